@@ -23,6 +23,17 @@ repositories {
     jcenter()
 }
 
+// open loop load generator, run with ./gradlew loadTest -PloadTestArgs="--rates 1000,5000 --duration 30s"
+// compare server transports with -PloadTestArgs="--transports auto,io_uring", which needs the io_uring transport
+// added to the loadtest runtime classpath, see below; without it the run fails instead of measuring the fallback
+val loadtest by sourceSets.creating {
+    compileClasspath += sourceSets["main"].output + sourceSets["test"].output
+    runtimeClasspath += output + compileClasspath
+}
+
+configurations["loadtestImplementation"].extendsFrom(configurations["testImplementation"])
+configurations["loadtestRuntimeOnly"].extendsFrom(configurations["testRuntimeOnly"])
+
 dependencies {
     // Use the Kotlin JDK 8 standard library
     implementation("io.ratpack:ratpack-guice:1.6.0")
@@ -31,8 +42,14 @@ dependencies {
     implementation("io.grpc:grpc-stub:$grpcVersion")
     implementation("io.netty:netty-transport-native-epoll:4.1.32.Final")
     implementation("io.netty:netty-transport-native-kqueue:4.1.32.Final")
+    // io_uring is optional, see ratpack.grpc.server.Transport.IO_URING; add
+    // io.netty.incubator:netty-incubator-transport-native-io_uring together with a Netty version it supports
     // need this for JsonFormat
     implementation("com.google.protobuf:protobuf-java-util:3.6.1")
+    // coroutine services and calls, 1.1.0 is built against the Kotlin version above
+    api("org.jetbrains.kotlinx:kotlinx-coroutines-core:1.1.0")
+    // EventLoopStats exposes histograms
+    api("org.hdrhistogram:HdrHistogram:2.1.10")
 
     testImplementation("io.grpc:grpc-testing:$grpcVersion")
     testImplementation("io.ratpack:ratpack-test:1.6.0")
@@ -46,6 +63,27 @@ dependencies {
     testImplementation("org.jetbrains.kotlin:kotlin-test-junit5")
 
     testImplementation("ch.qos.logback:logback-classic:1.2.3")
+
+    // OpenSSL for the TLS tests and the handshake benchmark, applications add it to use OpenSSL, see ratpack.grpc.tls.GrpcTls
+    testRuntimeOnly("io.netty:netty-tcnative-boringssl-static:2.0.20.Final")
+}
+
+tasks.register<JavaExec>("loadTest") {
+    description = "Runs the open loop load generator against a gRPC server."
+    group = "verification"
+    classpath = loadtest.runtimeClasspath
+    main = "ratpack.grpc.loadtest.LoadTest"
+    args = (project.findProperty("loadTestArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+// full and resumed TLS handshakes per second and server CPU per handshake, JDK against OpenSSL
+// run with ./gradlew handshakeBenchmark -PhandshakeBenchmarkArgs="--handshakes 5000 --concurrency 16"
+tasks.register<JavaExec>("handshakeBenchmark") {
+    description = "Measures TLS handshake cost of the gRPC server per TLS implementation."
+    group = "verification"
+    classpath = loadtest.runtimeClasspath
+    main = "ratpack.grpc.loadtest.HandshakeBenchmark"
+    args = (project.findProperty("handshakeBenchmarkArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
 }
 
 protobuf {
@@ -0,0 +1,41 @@
+package ratpack.grpc.loadtest;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.MethodDescriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Passes serialized messages through untouched, so that any method can be called without its generated classes.
+ */
+enum ByteArrayMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+
+    INSTANCE;
+
+    @Override
+    public InputStream stream(byte[] value) {
+        return new ByteArrayInputStream(value);
+    }
+
+    @Override
+    public byte[] parse(InputStream stream) {
+        try {
+            return ByteStreams.toByteArray(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static MethodDescriptor<byte[], byte[]> unary(String fullMethodName) {
+        return MethodDescriptor.<byte[], byte[]>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(fullMethodName)
+                .setRequestMarshaller(INSTANCE)
+                .setResponseMarshaller(INSTANCE)
+                .build();
+    }
+
+}
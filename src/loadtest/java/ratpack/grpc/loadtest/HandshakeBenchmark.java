@@ -0,0 +1,199 @@
+package ratpack.grpc.loadtest;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.handler.ssl.util.SelfSignedCertificate;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.grpc.GrpcConfig;
+import ratpack.grpc.server.GrpcRatpackServer;
+import ratpack.guice.Guice;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the cost of TLS handshakes on an embedded {@link GrpcRatpackServer} with a self-signed certificate.
+ * <p>
+ * For each TLS implementation of the server, opens new connections that only complete the handshake and close, first
+ * with full handshakes and then resuming a cached session, and writes the handshakes per second, handshake latency and
+ * server event loop CPU per handshake of every step as JSON. The client always uses the JDK implementation.
+ * <p>
+ * Options:
+ * <ul>
+ *     <li>{@code --providers jdk,openssl} the server TLS implementations to compare, OpenSSL is skipped when {@code netty-tcnative} is unavailable</li>
+ *     <li>{@code --handshakes 2000} the measured handshakes of each step</li>
+ *     <li>{@code --warmup 500} the unmeasured handshakes before each step</li>
+ *     <li>{@code --concurrency 8} the handshakes in progress at once</li>
+ *     <li>{@code --output file} where to write the JSON report, defaults to stdout</li>
+ * </ul>
+ */
+public class HandshakeBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(HandshakeBenchmark.class);
+
+    private static final String HOST = "localhost";
+
+    private final Map<String, String> options;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    HandshakeBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new HandshakeBenchmark(LoadTest.parse(args)).run();
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    void run() throws Exception {
+        List<SslProvider> providers = Arrays.stream(option("providers", "jdk,openssl").split(","))
+                .map(p -> SslProvider.valueOf(p.trim().toUpperCase()))
+                .collect(Collectors.toList());
+        int handshakes = Integer.parseInt(option("handshakes", "2000"));
+        int warmup = Integer.parseInt(option("warmup", "500"));
+        int concurrency = Integer.parseInt(option("concurrency", "8"));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("handshakes", handshakes);
+        report.put("concurrency", concurrency);
+        List<Map<String, Object>> steps = new ArrayList<>();
+        report.put("steps", steps);
+
+        SelfSignedCertificate certificate = new SelfSignedCertificate(HOST);
+        EventLoopGroup clientGroup = new NioEventLoopGroup();
+        try {
+            for (SslProvider provider : providers) {
+                if (provider != SslProvider.JDK && !OpenSsl.isAvailable()) {
+                    logger.info("skipping {}, OpenSSL is not available: {}", provider, OpenSsl.unavailabilityCause().toString());
+                    continue;
+                }
+                GrpcRatpackServer server = GrpcRatpackServer.start(s -> s
+                        .serverConfig(c -> c.port(0))
+                        .registry(Guice.registry(b -> b
+                                .bindInstance(GrpcConfig.class, new GrpcConfig().tls(t -> t
+                                        .keyCertChain(certificate.certificate().toPath(), certificate.privateKey().toPath())
+                                        .provider(provider)))
+                        ))
+                );
+                try {
+                    for (boolean resume : new boolean[]{false, true}) {
+                        // a fresh client context per step, so no session is cached before the step starts
+                        SslContext client = SslContextBuilder.forClient()
+                                .sslProvider(SslProvider.JDK)
+                                .trustManager(certificate.cert())
+                                .build();
+                        Bootstrap bootstrap = new Bootstrap()
+                                .group(clientGroup)
+                                .channel(NioSocketChannel.class)
+                                .handler(new ChannelInboundHandlerAdapter());
+                        int port = server.getBindPort();
+                        handshake(bootstrap, client, port, resume, warmup, concurrency);
+                        logger.info("running {} {} handshakes against {}", handshakes, resume ? "resumed" : "full", provider);
+                        Map<String, Object> step = handshake(bootstrap, client, port, resume, handshakes, concurrency);
+                        step.put("provider", provider.name());
+                        step.put("resumed", resume);
+                        steps.add(step);
+                    }
+                } finally {
+                    server.stop();
+                }
+            }
+        } finally {
+            clientGroup.shutdownGracefully().await(5, TimeUnit.SECONDS);
+            certificate.delete();
+        }
+
+        LoadTest.write(report, options.containsKey("output") ? Paths.get(options.get("output")) : null);
+    }
+
+    private Map<String, Object> handshake(Bootstrap bootstrap, SslContext client, int port, boolean resume, int count, int concurrency) throws InterruptedException {
+        Histogram latencyMicros = new Histogram(TimeUnit.SECONDS.toMicros(10), 3);
+        Semaphore permits = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicInteger errors = new AtomicInteger();
+
+        long cpuBefore = serverCpuNanos();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            permits.acquire();
+            long connectStart = System.nanoTime();
+            bootstrap.connect(HOST, port).addListener((ChannelFuture connected) -> {
+                if (!connected.isSuccess()) {
+                    errors.incrementAndGet();
+                    permits.release();
+                    done.countDown();
+                    return;
+                }
+                Channel channel = connected.channel();
+                // the JDK client only resumes sessions of engines created for a peer
+                SslHandler ssl = resume ? client.newHandler(channel.alloc(), HOST, port) : client.newHandler(channel.alloc());
+                ssl.handshakeFuture().addListener(handshake -> {
+                    if (handshake.isSuccess()) {
+                        synchronized (latencyMicros) {
+                            latencyMicros.recordValue(Math.min(latencyMicros.getHighestTrackableValue(), (System.nanoTime() - connectStart) / 1000));
+                        }
+                    } else {
+                        errors.incrementAndGet();
+                    }
+                    channel.close();
+                    permits.release();
+                    done.countDown();
+                });
+                channel.pipeline().addLast(ssl);
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        long cpu = serverCpuNanos() - cpuBefore;
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", latencyMicros.getValueAtPercentile(50));
+        latency.put("p99", latencyMicros.getValueAtPercentile(99));
+        latency.put("max", latencyMicros.getMaxValue());
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("handshakesPerSecond", count * 1_000_000_000d / elapsed);
+        step.put("serverCpuMicrosPerHandshake", cpu / 1000d / count);
+        step.put("errors", errors.get());
+        step.put("latencyMicros", latency);
+        return step;
+    }
+
+    // TLS runs on the server's event loops, which are Ratpack's compute threads
+    private long serverCpuNanos() {
+        long total = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("ratpack-compute")) {
+                total += Math.max(0, threads.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return total;
+    }
+
+}
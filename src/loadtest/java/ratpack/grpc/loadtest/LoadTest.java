@@ -0,0 +1,231 @@
+package ratpack.grpc.loadtest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.netty.NettyChannelBuilder;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.grpc.GrpcConfig;
+import ratpack.grpc.server.GrpcRatpackServer;
+import ratpack.grpc.server.Transport;
+import ratpack.grpc.server.internal.IoUring;
+import ratpack.guice.Guice;
+import ratpack.util.internal.TransportDetector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Open loop load generator for gRPC methods.
+ * <p>
+ * Drives a unary method at each configured arrival rate and connection count, after a warmup, and writes the latency
+ * percentiles of every step as JSON. Requests are sent as raw bytes, so any method can be driven without its generated classes.
+ * <p>
+ * Options:
+ * <ul>
+ *     <li>{@code --target host:port} the server to call, otherwise an embedded {@link GrpcRatpackServer} is started</li>
+ *     <li>{@code --service class} the {@code BindableService} the embedded server binds, defaults to {@code ratpack.grpc.GreeterService}</li>
+ *     <li>{@code --transports auto,io_uring} the {@link Transport transports} of the embedded server to compare, defaults to {@code auto}.
+ *     io_uring needs {@code io.netty.incubator:netty-incubator-transport-native-io_uring} on the classpath, which this build does not
+ *     add as it needs a newer Netty, and a kernel that supports it; without them the run fails rather than report another transport's numbers</li>
+ *     <li>{@code --method service/method} the full method name, defaults to {@code helloworld.Greeter/SayHello}</li>
+ *     <li>{@code --payload file} the serialized request message, defaults to an empty message</li>
+ *     <li>{@code --rates 1000,5000} the arrival rates per second to sweep</li>
+ *     <li>{@code --connections 1,4} the connection counts to sweep</li>
+ *     <li>{@code --duration 30s} the measured duration of each step</li>
+ *     <li>{@code --warmup 10s} the unmeasured warmup duration, at the first rate</li>
+ *     <li>{@code --timeout 5s} the deadline of each call</li>
+ *     <li>{@code --output file} where to write the JSON report, defaults to stdout</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+
+    private final Map<String, String> options;
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(parse(args)).run();
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("expected --option value pairs: " + Arrays.toString(args));
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        } else if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        } else if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private List<String> list(String name, String defaultValue) {
+        return Arrays.stream(option(name, defaultValue).split(",")).map(String::trim).collect(Collectors.toList());
+    }
+
+    void run() throws Exception {
+        MethodDescriptor<byte[], byte[]> method = ByteArrayMarshaller.unary(option("method", "helloworld.Greeter/SayHello"));
+        byte[] payload = options.containsKey("payload") ? Files.readAllBytes(Paths.get(options.get("payload"))) : new byte[0];
+        List<Double> rates = list("rates", "1000").stream().map(Double::parseDouble).collect(Collectors.toList());
+        List<Integer> connections = list("connections", "1").stream().map(Integer::parseInt).collect(Collectors.toList());
+        Duration duration = duration(option("duration", "30s"));
+        Duration warmup = duration(option("warmup", "10s"));
+        Duration timeout = duration(option("timeout", "5s"));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("method", method.getFullMethodName());
+        report.put("durationSeconds", duration.getSeconds());
+        List<Map<String, Object>> steps = new ArrayList<>();
+        report.put("steps", steps);
+
+        String target = options.get("target");
+        if (target != null) {
+            report.put("target", target);
+            run(target, method, payload, rates, connections, duration, warmup, timeout, null, steps);
+        } else {
+            // compare server transports, e.g. --transports auto,io_uring
+            for (String name : list("transports", "auto")) {
+                Transport transport = Transport.valueOf(name.toUpperCase());
+                if (transport == Transport.IO_URING && !IoUring.isAvailable()) {
+                    // the server would fall back to the default transport, and its numbers would be reported as io_uring
+                    throw new IllegalStateException("io_uring is not available, add netty-incubator-transport-native-io_uring to the loadtest runtime classpath", IoUring.unavailabilityCause());
+                }
+                String used = transport == Transport.IO_URING ? "io_uring" : serverChannel(TransportDetector.getServerSocketChannelImpl().getSimpleName());
+                GrpcRatpackServer server = startEmbedded(option("service", "ratpack.grpc.GreeterService"), transport);
+                try {
+                    run("localhost:" + server.getBindPort(), method, payload, rates, connections, duration, warmup, timeout, used, steps);
+                } finally {
+                    server.stop();
+                }
+            }
+        }
+
+        write(report, options.containsKey("output") ? Paths.get(options.get("output")) : null);
+    }
+
+    private void run(String target, MethodDescriptor<byte[], byte[]> method, byte[] payload, List<Double> rates, List<Integer> connections,
+                     Duration duration, Duration warmup, Duration timeout, @Nullable String transport, List<Map<String, Object>> steps) throws Exception {
+        for (int connectionCount : connections) {
+            List<ManagedChannel> channels = channels(target, connectionCount);
+            try {
+                OpenLoopRunner runner = new OpenLoopRunner(channels, method, payload, timeout);
+                if (!warmup.isZero()) {
+                    logger.info("warming up for {} at {}/s over {} connection(s)", warmup, rates.get(0), connectionCount);
+                    runner.run(rates.get(0), warmup);
+                }
+                for (double rate : rates) {
+                    logger.info("running for {} at {}/s over {} connection(s)", duration, rate, connectionCount);
+                    Map<String, Object> step = step(rate, connectionCount, runner.run(rate, duration));
+                    if (transport != null) {
+                        step.put("transport", transport);
+                    }
+                    steps.add(step);
+                }
+            } finally {
+                for (ManagedChannel channel : channels) {
+                    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+                }
+            }
+        }
+    }
+
+    // e.g. EpollServerSocketChannel is epoll
+    private static String serverChannel(String channelType) {
+        return channelType.replace("ServerSocketChannel", "").toLowerCase();
+    }
+
+    private GrpcRatpackServer startEmbedded(String serviceClass, Transport transport) throws Exception {
+        Class<?> service = Class.forName(serviceClass);
+        return GrpcRatpackServer.start(s -> s
+                .serverConfig(c -> c.port(0))
+                .registry(Guice.registry(b -> b
+                        .bind(service)
+                        .bindInstance(GrpcConfig.class, new GrpcConfig().transport(transport))
+                ))
+        );
+    }
+
+    private List<ManagedChannel> channels(String target, int count) {
+        List<ManagedChannel> channels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            channels.add(NettyChannelBuilder.forTarget(target).usePlaintext().directExecutor().build());
+        }
+        return channels;
+    }
+
+    private static Map<String, Object> step(double rate, int connections, OpenLoopRunner.Result result) {
+        Histogram histogram = result.latencyMicros;
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("min", histogram.getMinValue());
+        latency.put("mean", histogram.getMean());
+        latency.put("p50", histogram.getValueAtPercentile(50));
+        latency.put("p90", histogram.getValueAtPercentile(90));
+        latency.put("p99", histogram.getValueAtPercentile(99));
+        latency.put("p999", histogram.getValueAtPercentile(99.9));
+        latency.put("p9999", histogram.getValueAtPercentile(99.99));
+        latency.put("max", histogram.getMaxValue());
+
+        ByteBuffer encoded = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(encoded);
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("rate", rate);
+        step.put("connections", connections);
+        step.put("requests", result.requests);
+        step.put("errors", result.errors);
+        step.put("achievedRate", result.requests * 1_000_000_000d / result.issuedNanos);
+        step.put("latencyMicros", latency);
+        step.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(encoded.array(), length)));
+        return step;
+    }
+
+    static void write(Map<String, Object> report, @Nullable Path output) throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (output == null) {
+            mapper.writeValue(System.out, report);
+        } else {
+            mapper.writeValue(output.toFile(), report);
+            logger.info("report written to {}", output);
+        }
+    }
+
+}
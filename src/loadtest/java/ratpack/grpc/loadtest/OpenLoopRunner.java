@@ -0,0 +1,94 @@
+package ratpack.grpc.loadtest;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues calls at a fixed arrival rate, independent of how quickly the server responds.
+ * <p>
+ * Latency is measured from the time each call was scheduled to start rather than the time it actually started,
+ * so a stalled server or client shows up in the percentiles instead of silently lowering the request rate
+ * (coordinated omission).
+ */
+class OpenLoopRunner {
+
+    private final List<ManagedChannel> channels;
+    private final MethodDescriptor<byte[], byte[]> method;
+    private final byte[] payload;
+    private final Duration timeout;
+
+    OpenLoopRunner(List<ManagedChannel> channels, MethodDescriptor<byte[], byte[]> method, byte[] payload, Duration timeout) {
+        this.channels = channels;
+        this.method = method;
+        this.payload = payload;
+        this.timeout = timeout;
+    }
+
+    Result run(double rate, Duration duration) throws InterruptedException {
+        Recorder recorder = new Recorder(3);
+        AtomicLong outstanding = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long sent = 0;
+        for (long intended = start; intended < end; intended = start + (long) (++sent * 1_000_000_000d / rate)) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            ManagedChannel channel = channels.get((int) (sent % channels.size()));
+            ClientCall<byte[], byte[]> call = channel.newCall(method, CallOptions.DEFAULT.withDeadlineAfter(timeout.toNanos(), TimeUnit.NANOSECONDS));
+            long scheduled = intended;
+            outstanding.incrementAndGet();
+            call.start(new ClientCall.Listener<byte[]>() {
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                    recorder.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled)));
+                    if (!status.isOk()) {
+                        errors.incrementAndGet();
+                    }
+                    outstanding.decrementAndGet();
+                }
+            }, new Metadata());
+            call.request(1);
+            call.sendMessage(payload);
+            call.halfClose();
+        }
+        long issuedNanos = System.nanoTime() - start;
+
+        long drainDeadline = System.nanoTime() + timeout.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(1);
+        }
+
+        return new Result(sent, errors.get() + outstanding.get(), issuedNanos, recorder.getIntervalHistogram());
+    }
+
+    static class Result {
+        final long requests;
+        final long errors;
+        final long issuedNanos;
+        final Histogram latencyMicros;
+
+        Result(long requests, long errors, long issuedNanos, Histogram latencyMicros) {
+            this.requests = requests;
+            this.errors = errors;
+            this.issuedNanos = issuedNanos;
+            this.latencyMicros = latencyMicros;
+        }
+    }
+
+}
@@ -1,9 +1,44 @@
 package ratpack.grpc;
 
+import ratpack.api.Nullable;
+import ratpack.func.Action;
+import ratpack.grpc.auth.TokenAuthConfig;
+import ratpack.grpc.client.GrpcClientConfig;
+import ratpack.grpc.connection.KeepAliveConfig;
+import ratpack.grpc.lane.PriorityLanesConfig;
+import ratpack.grpc.log.AccessLogConfig;
+import ratpack.grpc.loop.EventLoopMonitorConfig;
+import ratpack.grpc.server.NamedServerConfig;
+import ratpack.grpc.server.Transport;
+import ratpack.grpc.shed.LoadSheddingConfig;
+import ratpack.grpc.tls.TlsConfig;
+import ratpack.grpc.trace.TracingConfig;
+import ratpack.util.Exceptions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class GrpcConfig {
 
     private int port = 50051;
     private boolean useRatpackEventLoop = true;
+    private Transport transport = Transport.AUTO;
+    private int listeners = 1;
+    private boolean tcpNoDelay = true;
+    private boolean tcpQuickAck;
+    private boolean connectionStats;
+    private KeepAliveConfig keepAlive = new KeepAliveConfig();
+    @Nullable
+    private String proxy;
+    private GrpcClientConfig client = new GrpcClientConfig();
+    private TracingConfig tracing = new TracingConfig();
+    private AccessLogConfig accessLog = new AccessLogConfig();
+    private EventLoopMonitorConfig eventLoopMonitor = new EventLoopMonitorConfig();
+    private PriorityLanesConfig lanes = new PriorityLanesConfig();
+    private LoadSheddingConfig shedding = new LoadSheddingConfig();
+    private Map<String, NamedServerConfig> servers = new LinkedHashMap<>();
+    private TlsConfig tls = new TlsConfig();
+    private TokenAuthConfig auth = new TokenAuthConfig();
 
     public int getPort() {
         return port;
@@ -23,4 +58,250 @@ public class GrpcConfig {
         return this;
     }
 
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public GrpcConfig transport(Transport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    public int getListeners() {
+        return listeners;
+    }
+
+    /**
+     * The number of listening sockets to bind to the port with {@code SO_REUSEPORT}, each accepting on its own event loop.
+     * <p>
+     * Spreading accepts over several event loops helps when many clients connect at once, e.g. reconnecting after a deploy.
+     * This requires the epoll transport; a single listener is bound on other transports.
+     *
+     * @param listeners the number of listening sockets
+     * @return this
+     */
+    public GrpcConfig listeners(int listeners) {
+        if (listeners < 1) {
+            throw new IllegalArgumentException("listeners must be at least 1");
+        }
+        this.listeners = listeners;
+        return this;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public GrpcConfig tcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * Whether to set {@code TCP_QUICKACK} on accepted connections. Only applies to the epoll transport.
+     *
+     * @param tcpQuickAck whether to send acknowledgements immediately
+     * @return this
+     */
+    public GrpcConfig tcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+        return this;
+    }
+
+    public boolean isConnectionStats() {
+        return connectionStats;
+    }
+
+    /**
+     * Whether to collect per connection statistics, see {@link ratpack.grpc.connection.ConnectionStats}.
+     *
+     * @param connectionStats whether to collect connection statistics
+     * @return this
+     */
+    public GrpcConfig connectionStats(boolean connectionStats) {
+        this.connectionStats = connectionStats;
+        return this;
+    }
+
+    public KeepAliveConfig getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Configures keepalive pings and the maximum age of connections, see {@link KeepAliveConfig}.
+     *
+     * @param action configures keepalive
+     * @return this
+     */
+    public GrpcConfig keepAlive(Action<? super KeepAliveConfig> action) {
+        Exceptions.uncheck(() -> action.execute(keepAlive));
+        return this;
+    }
+
+    @Nullable
+    public String getProxy() {
+        return proxy;
+    }
+
+    /**
+     * Forwards calls to methods that no service implements to the given upstream target, see {@link ratpack.grpc.proxy.GrpcProxy}.
+     * <p>
+     * The target is resolved with {@link ratpack.grpc.client.GrpcClients}, so it can be a {@link GrpcClientConfig#target(String, Action) configured target}.
+     *
+     * @param proxy the upstream target
+     * @return this
+     */
+    public GrpcConfig proxy(String proxy) {
+        this.proxy = proxy;
+        return this;
+    }
+
+    public GrpcClientConfig getClient() {
+        return client;
+    }
+
+    public GrpcConfig client(Action<? super GrpcClientConfig> action) {
+        Exceptions.uncheck(() -> action.execute(client));
+        return this;
+    }
+
+    public TracingConfig getTracing() {
+        return tracing;
+    }
+
+    public GrpcConfig tracing(Action<? super TracingConfig> action) {
+        Exceptions.uncheck(() -> action.execute(tracing));
+        return this;
+    }
+
+    public AccessLogConfig getAccessLog() {
+        return accessLog;
+    }
+
+    public GrpcConfig accessLog(Action<? super AccessLogConfig> action) {
+        Exceptions.uncheck(() -> action.execute(accessLog));
+        return this;
+    }
+
+    public EventLoopMonitorConfig getEventLoopMonitor() {
+        return eventLoopMonitor;
+    }
+
+    public GrpcConfig eventLoopMonitor(Action<? super EventLoopMonitorConfig> action) {
+        Exceptions.uncheck(() -> action.execute(eventLoopMonitor));
+        return this;
+    }
+
+    public PriorityLanesConfig getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Configures priority lanes for calls, see {@link ratpack.grpc.lane.PriorityLanes}. Lanes are off until one is added.
+     *
+     * @param action configures the lanes
+     * @return this
+     */
+    public GrpcConfig lanes(Action<? super PriorityLanesConfig> action) {
+        Exceptions.uncheck(() -> action.execute(lanes));
+        return this;
+    }
+
+    public LoadSheddingConfig getShedding() {
+        return shedding;
+    }
+
+    /**
+     * Configures queueing delay based load shedding, see {@link ratpack.grpc.shed.LoadShedder}.
+     *
+     * @param action configures load shedding
+     * @return this
+     */
+    public GrpcConfig shedding(Action<? super LoadSheddingConfig> action) {
+        Exceptions.uncheck(() -> action.execute(shedding));
+        return this;
+    }
+
+    public TlsConfig getTls() {
+        return tls;
+    }
+
+    /**
+     * Configures TLS for the gRPC servers, see {@link ratpack.grpc.tls.GrpcTls}.
+     * Without it, the servers use the Ratpack server config's SSL context, if any.
+     *
+     * @param action configures TLS
+     * @return this
+     */
+    public GrpcConfig tls(Action<? super TlsConfig> action) {
+        Exceptions.uncheck(() -> action.execute(tls));
+        return this;
+    }
+
+    public TokenAuthConfig getAuth() {
+        return auth;
+    }
+
+    /**
+     * Configures bearer token authentication of calls, see {@link ratpack.grpc.auth.TokenAuthenticator}.
+     * Calls are not authenticated until a {@link TokenAuthConfig#verifier(ratpack.grpc.auth.TokenVerifier) verifier} is set.
+     *
+     * @param action configures token authentication
+     * @return this
+     */
+    public GrpcConfig auth(Action<? super TokenAuthConfig> action) {
+        Exceptions.uncheck(() -> action.execute(auth));
+        return this;
+    }
+
+    public Map<String, NamedServerConfig> getServers() {
+        return servers;
+    }
+
+    /**
+     * Configures an additional server, e.g. for internal admin services that must stay responsive while the main server is busy.
+     * <p>
+     * The services it {@link NamedServerConfig#service(String) serves} are not served by the main server.
+     * Registry interceptors, tracing, access logging, connection statistics, TLS and token authentication apply to it, while priority lanes, load shedding
+     * and the proxy only apply to the main server.
+     * It uses the {@link #keepAlive(Action) keepalive settings} of the main server unless it {@link NamedServerConfig#keepAlive(Action) configures its own}.
+     *
+     * @param name the server name, used for its thread names
+     * @param action configures the server
+     * @return this
+     */
+    public GrpcConfig server(String name, Action<? super NamedServerConfig> action) {
+        Exceptions.uncheck(() -> action.execute(servers.computeIfAbsent(name, n -> new NamedServerConfig())));
+        return this;
+    }
+
+    GrpcConfig copy() {
+        GrpcConfig copy = new GrpcConfig();
+        copy.port = port;
+        copy.useRatpackEventLoop = useRatpackEventLoop;
+        copy.transport = transport;
+        copy.listeners = listeners;
+        copy.tcpNoDelay = tcpNoDelay;
+        copy.tcpQuickAck = tcpQuickAck;
+        copy.connectionStats = connectionStats;
+        copy.proxy = proxy;
+        // only read when the server starts, so they can be shared
+        copy.keepAlive = keepAlive;
+        copy.client = client;
+        copy.eventLoopMonitor = eventLoopMonitor;
+        copy.servers = servers;
+        copy.tls = tls;
+        copy.auth = auth;
+        // tuned at runtime
+        copy.tracing = tracing.copy();
+        copy.accessLog = accessLog.copy();
+        copy.lanes = lanes.copy();
+        copy.shedding = shedding.copy();
+        return copy;
+    }
+
 }
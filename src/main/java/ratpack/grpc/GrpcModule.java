@@ -1,13 +1,94 @@
 package ratpack.grpc;
 
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
+import io.netty.handler.ssl.ClientAuth;
+import ratpack.exec.ExecController;
+import ratpack.grpc.auth.TokenAuthenticator;
+import ratpack.grpc.client.GrpcClients;
+import ratpack.grpc.client.internal.DefaultGrpcClients;
+import ratpack.grpc.connection.ConnectionStats;
+import ratpack.grpc.lane.PriorityLanes;
+import ratpack.grpc.log.AccessLog;
+import ratpack.grpc.loop.EventLoopMonitor;
 import ratpack.grpc.service.GrpcService;
+import ratpack.grpc.shed.LoadShedder;
+import ratpack.grpc.tls.GrpcTls;
+import ratpack.grpc.tls.PeerIdentities;
+import ratpack.grpc.trace.Tracing;
 import ratpack.guice.ConfigurableModule;
 
+import java.io.IOException;
+
 public class GrpcModule extends ConfigurableModule<GrpcConfig> {
 
     @Override
     protected void configure() {
         bind(GrpcService.class).in(Scopes.SINGLETON);
+        bind(DefaultGrpcClients.class).in(Scopes.SINGLETON);
+        bind(GrpcClients.class).to(DefaultGrpcClients.class);
+    }
+
+    @Provides
+    @Singleton
+    Tracing tracing(GrpcConfig config) throws IOException {
+        return Tracing.of(config.getTracing());
+    }
+
+    @Provides
+    @Singleton
+    AccessLog accessLog(GrpcConfig config) {
+        return new AccessLog(config.getAccessLog());
+    }
+
+    @Provides
+    @Singleton
+    EventLoopMonitor eventLoopMonitor(ExecController execController, GrpcConfig config) {
+        return new EventLoopMonitor(execController, config.getEventLoopMonitor());
+    }
+
+    @Provides
+    @Singleton
+    ConnectionStats connectionStats(GrpcConfig config) {
+        return new ConnectionStats(config.isConnectionStats(), config.getKeepAlive().getMaxConnectionAge());
+    }
+
+    @Provides
+    @Singleton
+    PriorityLanes priorityLanes(ExecController execController, GrpcConfig config, LoadShedder loadShedder) {
+        // with lanes, calls queue in the lanes rather than in the executor
+        return new PriorityLanes(execController, config.getLanes(), loadShedder.isEnabled() ? loadShedder::observe : null);
+    }
+
+    @Provides
+    @Singleton
+    LoadShedder loadShedder(GrpcConfig config) {
+        return new LoadShedder(config.getShedding());
+    }
+
+    @Provides
+    @Singleton
+    GrpcTls tls(GrpcConfig config) throws IOException {
+        return new GrpcTls(config.getTls());
+    }
+
+    @Provides
+    @Singleton
+    PeerIdentities peerIdentities(GrpcConfig config) {
+        // only clients of mutual TLS have an identity
+        return new PeerIdentities(config.getTls().isEnabled() && config.getTls().getClientAuth() != ClientAuth.NONE);
+    }
+
+    @Provides
+    @Singleton
+    TokenAuthenticator tokenAuthenticator(ExecController execController, GrpcConfig config) {
+        return new TokenAuthenticator(execController, config.getAuth());
+    }
+
+    @Provides
+    @Singleton
+    GrpcTuning tuning(GrpcConfig config, PriorityLanes lanes, LoadShedder loadShedder, AccessLog accessLog, Tracing tracing) {
+        return new GrpcTuning(config, lanes, loadShedder, accessLog, tracing);
     }
 }
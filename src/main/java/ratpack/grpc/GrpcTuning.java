@@ -0,0 +1,79 @@
+package ratpack.grpc;
+
+import ratpack.func.Action;
+import ratpack.grpc.lane.PriorityLanes;
+import ratpack.grpc.log.AccessLog;
+import ratpack.grpc.shed.LoadShedder;
+import ratpack.grpc.trace.Tracing;
+
+/**
+ * Changes the performance settings of the running server, without a restart or dropping connections.
+ * <p>
+ * The settings that can change at runtime are:
+ * <ul>
+ *     <li>the {@link PriorityLanes priority lanes}: lane weights, method assignments and concurrency</li>
+ *     <li>the {@link LoadShedder load shedding} target and interval</li>
+ *     <li>the {@link AccessLog access log} sample rate and slow call threshold</li>
+ *     <li>the {@link Tracing tracing} sample rate</li>
+ * </ul>
+ * Everything else in {@link GrpcConfig} is only read when the server starts. That includes turning these features on or off,
+ * as that changes how the server is built.
+ * <p>
+ * For example, an admin endpoint that changes the lane concurrency:
+ * <pre>{@code
+ * chain.post("admin/lanes/concurrency/:n", ctx -> {
+ *     int n = Integer.parseInt(ctx.getPathTokens().get("n"));
+ *     ctx.get(GrpcTuning.class).update(c -> c.lanes(l -> l.concurrency(n)));
+ *     ctx.render("ok");
+ * })
+ * }</pre>
+ */
+public class GrpcTuning {
+
+    private volatile GrpcConfig config;
+    private final PriorityLanes lanes;
+    private final LoadShedder loadShedder;
+    private final AccessLog accessLog;
+    private final Tracing tracing;
+
+    public GrpcTuning(GrpcConfig config, PriorityLanes lanes, LoadShedder loadShedder, AccessLog accessLog, Tracing tracing) {
+        this.config = config;
+        this.lanes = lanes;
+        this.loadShedder = loadShedder;
+        this.accessLog = accessLog;
+        this.tracing = tracing;
+    }
+
+    /**
+     * Changes the server's config and applies it to the running server.
+     * <p>
+     * Updates are applied one at a time. Each setting changes as a whole, e.g. calls see either the old or the new lane
+     * weights, never a mix. The action changes a copy of the config, which replaces the {@link #getConfig() current config}
+     * once the running server has taken it. When the new settings are invalid, an exception is thrown and neither changes.
+     *
+     * @param action changes the config
+     * @return this
+     * @throws Exception any thrown by the action, or an {@link IllegalArgumentException} for invalid settings
+     */
+    public synchronized GrpcTuning update(Action<? super GrpcConfig> action) throws Exception {
+        GrpcConfig updated = config.copy();
+        action.execute(updated);
+        // lanes check the whole config before changing anything, so they go first
+        lanes.update(updated.getLanes());
+        loadShedder.update(updated.getShedding());
+        accessLog.update(updated.getAccessLog());
+        tracing.update(updated.getTracing());
+        config = updated;
+        return this;
+    }
+
+    /**
+     * The config the server runs with, including every update so far.
+     *
+     * @return the current config
+     */
+    public GrpcConfig getConfig() {
+        return config;
+    }
+
+}
@@ -0,0 +1,72 @@
+package ratpack.grpc.auth;
+
+import io.grpc.ServerCall;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Buffers the events of a call until the listener that handles it is known, then replays them in order.
+ */
+class DeferredListener<ReqT> extends ServerCall.Listener<ReqT> {
+
+    // guarded by this until passThrough
+    private final Queue<Consumer<ServerCall.Listener<ReqT>>> pending = new ArrayDeque<>();
+    private ServerCall.Listener<ReqT> delegate;
+    private volatile boolean passThrough;
+
+    void delegate(ServerCall.Listener<ReqT> delegate) {
+        while (true) {
+            Consumer<ServerCall.Listener<ReqT>> event;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    this.delegate = delegate;
+                    passThrough = true;
+                    return;
+                }
+                event = pending.poll();
+            }
+            // events arriving meanwhile are queued behind this one, so they are delivered in order
+            event.accept(delegate);
+        }
+    }
+
+    private void dispatch(Consumer<ServerCall.Listener<ReqT>> event) {
+        if (!passThrough) {
+            synchronized (this) {
+                if (!passThrough) {
+                    pending.add(event);
+                    return;
+                }
+            }
+        }
+        event.accept(delegate);
+    }
+
+    @Override
+    public void onMessage(ReqT message) {
+        dispatch(l -> l.onMessage(message));
+    }
+
+    @Override
+    public void onHalfClose() {
+        dispatch(ServerCall.Listener::onHalfClose);
+    }
+
+    @Override
+    public void onCancel() {
+        dispatch(ServerCall.Listener::onCancel);
+    }
+
+    @Override
+    public void onComplete() {
+        dispatch(ServerCall.Listener::onComplete);
+    }
+
+    @Override
+    public void onReady() {
+        dispatch(ServerCall.Listener::onReady);
+    }
+
+}
@@ -0,0 +1,100 @@
+package ratpack.grpc.auth;
+
+import ratpack.api.Nullable;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class TokenAuthConfig {
+
+    @Nullable
+    private TokenVerifier verifier;
+    private String header = "authorization";
+    private int cacheSize = 10_000;
+    private Duration maxCacheTime = Duration.ofMinutes(5);
+    private Set<String> exempt = new LinkedHashSet<>();
+
+    /**
+     * Token authentication is enabled by setting a verifier.
+     *
+     * @return whether calls must carry a valid bearer token
+     */
+    public boolean isEnabled() {
+        return verifier != null;
+    }
+
+    @Nullable
+    public TokenVerifier getVerifier() {
+        return verifier;
+    }
+
+    public TokenAuthConfig verifier(TokenVerifier verifier) {
+        this.verifier = verifier;
+        return this;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * The header carrying {@code Bearer <token>}.
+     *
+     * @param header the header name
+     * @return this
+     */
+    public TokenAuthConfig header(String header) {
+        this.header = header;
+        return this;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * The maximum number of verified tokens to keep, evicting the least recently used beyond it.
+     *
+     * @param cacheSize the maximum number of cached tokens
+     * @return this
+     */
+    public TokenAuthConfig cacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must not be negative");
+        }
+        this.cacheSize = cacheSize;
+        return this;
+    }
+
+    public Duration getMaxCacheTime() {
+        return maxCacheTime;
+    }
+
+    /**
+     * How long a verified token is cached at most, even if it expires later, so that revoked tokens stop working eventually.
+     *
+     * @param maxCacheTime the maximum time to cache a token
+     * @return this
+     */
+    public TokenAuthConfig maxCacheTime(Duration maxCacheTime) {
+        this.maxCacheTime = maxCacheTime;
+        return this;
+    }
+
+    public Set<String> getExempt() {
+        return exempt;
+    }
+
+    /**
+     * Lets calls to the given service or method through without a token, e.g. {@code grpc.health.v1.Health}.
+     *
+     * @param serviceOrMethod a service name, or a full method name such as {@code grpc.health.v1.Health/Check}
+     * @return this
+     */
+    public TokenAuthConfig exempt(String serviceOrMethod) {
+        exempt.add(serviceOrMethod);
+        return this;
+    }
+
+}
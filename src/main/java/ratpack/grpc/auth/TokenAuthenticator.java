@@ -0,0 +1,201 @@
+package ratpack.grpc.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.exec.ExecController;
+import ratpack.exec.Execution;
+import ratpack.grpc.exec.GrpcExecution;
+import ratpack.grpc.server.GrpcServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authenticates calls by the bearer token in their {@code authorization} header, verifying each token once rather than on every call.
+ * <p>
+ * Verified tokens are cached by their SHA-256 hash, so the tokens themselves are not kept, until they expire or the
+ * {@link TokenAuthConfig#maxCacheTime(java.time.Duration) maximum cache time} passes, and the cache is bounded in size.
+ * Calls presenting a token that is already being verified wait for that verification instead of starting another.
+ * <p>
+ * When calls run on an event loop, Ratpack's or a {@link GrpcServer#eventLoop(io.grpc.Attributes) server's own}, tokens are
+ * verified on the Ratpack blocking executor and the call is started back on the event loops once its token is verified, with its
+ * messages buffered meanwhile. Otherwise they are verified on the thread that runs the call.
+ * Calls without a valid token fail with {@code UNAUTHENTICATED}.
+ */
+public class TokenAuthenticator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenAuthenticator.class);
+
+    private static final String BEARER = "bearer ";
+
+    @Nullable
+    private final TokenVerifier verifier;
+    private final Metadata.Key<String> header;
+    private final Set<String> exempt;
+    private final Executor blockingExecutor;
+    private final Executor computeExecutor;
+    private final Cache<HashCode, VerifiedToken> cache;
+    private final ConcurrentMap<HashCode, CompletableFuture<VerifiedToken>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder verifications = new LongAdder();
+
+    public TokenAuthenticator(ExecController execController, TokenAuthConfig config) {
+        this.verifier = config.getVerifier();
+        this.header = Metadata.Key.of(config.getHeader(), Metadata.ASCII_STRING_MARSHALLER);
+        this.exempt = config.getExempt();
+        this.blockingExecutor = execController.getBlockingExecutor();
+        this.computeExecutor = execController.getExecutor();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getCacheSize())
+                .expireAfterWrite(config.getMaxCacheTime().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return verifier != null;
+    }
+
+    /**
+     * The number of times the verifier has been called.
+     *
+     * @return the number of verifications
+     */
+    public long getVerifications() {
+        return verifications.sum();
+    }
+
+    public long getCacheSize() {
+        return cache.size();
+    }
+
+    public ServerInterceptor serverInterceptor() {
+        GrpcExecution.expose(VerifiedToken.class, VerifiedToken.KEY);
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                if (isExempt(call.getMethodDescriptor())) {
+                    return next.startCall(call, headers);
+                }
+                String token = token(headers.get(header));
+                if (token == null) {
+                    return reject(call, Status.UNAUTHENTICATED.withDescription("missing bearer token"));
+                }
+
+                HashCode hash = Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+                VerifiedToken cached = cache.getIfPresent(hash);
+                if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+                    return start(Context.current(), cached, call, headers, next);
+                }
+
+                Executor eventLoop = GrpcServer.eventLoop(call.getAttributes());
+                if (eventLoop == null && Execution.isComputeThread()) {
+                    eventLoop = computeExecutor;
+                }
+                if (eventLoop == null) {
+                    // already off the event loop, so wait here rather than buffer the call
+                    try {
+                        return start(Context.current(), verify(hash, token, false).join(), call, headers, next);
+                    } catch (CompletionException e) {
+                        return reject(call, status(e.getCause()));
+                    }
+                }
+
+                Context context = Context.current();
+                DeferredListener<ReqT> deferred = new DeferredListener<>();
+                verify(hash, token, true).whenCompleteAsync((verified, error) -> {
+                    if (error != null) {
+                        deferred.delegate(reject(call, status(error)));
+                    } else if (call.isCancelled()) {
+                        deferred.delegate(new ServerCall.Listener<ReqT>() {});
+                    } else {
+                        deferred.delegate(start(context, verified, call, headers, next));
+                    }
+                }, eventLoop);
+                return deferred;
+            }
+        };
+    }
+
+    private boolean isExempt(MethodDescriptor<?, ?> method) {
+        return !exempt.isEmpty() && (exempt.contains(method.getFullMethodName())
+                || exempt.contains(MethodDescriptor.extractFullServiceName(method.getFullMethodName())));
+    }
+
+    @Nullable
+    private static String token(@Nullable String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        String token = authorization.substring(BEARER.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private CompletableFuture<VerifiedToken> verify(HashCode hash, String token, boolean offload) {
+        CompletableFuture<VerifiedToken> verification = new CompletableFuture<>();
+        CompletableFuture<VerifiedToken> existing = inFlight.putIfAbsent(hash, verification);
+        if (existing != null) {
+            return existing;
+        }
+        Runnable verify = () -> {
+            try {
+                verifications.increment();
+                VerifiedToken verified = verifier.verify(token);
+                if (verified == null || verified.isExpired(System.currentTimeMillis())) {
+                    throw Status.UNAUTHENTICATED.withDescription("token expired").asException();
+                }
+                // cache before leaving the in flight map, so that later calls always find one or the other
+                cache.put(hash, verified);
+                verification.complete(verified);
+            } catch (Throwable t) {
+                verification.completeExceptionally(t);
+            } finally {
+                inFlight.remove(hash, verification);
+            }
+        };
+        if (offload) {
+            blockingExecutor.execute(verify);
+        } else {
+            verify.run();
+        }
+        return verification;
+    }
+
+    private static Status status(Throwable error) {
+        Status status = Status.fromThrowable(error);
+        if (status.getCode() != Status.Code.UNKNOWN) {
+            return status;
+        }
+        logger.debug("token verification failed", error);
+        return Status.UNAUTHENTICATED.withDescription("invalid bearer token");
+    }
+
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> start(Context context, VerifiedToken verified, ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        return Contexts.interceptCall(context.withValue(VerifiedToken.KEY, verified), call, headers, next);
+    }
+
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> reject(ServerCall<ReqT, RespT> call, Status status) {
+        call.close(status, new Metadata());
+        return new ServerCall.Listener<ReqT>() {};
+    }
+
+}
@@ -0,0 +1,24 @@
+package ratpack.grpc.auth;
+
+/**
+ * Verifies bearer tokens, e.g. by checking a JWT's signature, issuer and audience.
+ * <p>
+ * Verification may be expensive and may block, as {@link TokenAuthenticator} caches its results and never runs it on the
+ * Ratpack event loop.
+ */
+@FunctionalInterface
+public interface TokenVerifier {
+
+    /**
+     * Verifies a token.
+     * <p>
+     * Throwing a {@link io.grpc.StatusException} or {@link io.grpc.StatusRuntimeException} fails the call with its status,
+     * any other exception fails it as {@code UNAUTHENTICATED}. Failures are not cached.
+     *
+     * @param token the bearer token, without the {@code Bearer} scheme
+     * @return the verified token
+     * @throws Exception if the token is not valid
+     */
+    VerifiedToken verify(String token) throws Exception;
+
+}
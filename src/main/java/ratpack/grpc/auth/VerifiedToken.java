@@ -0,0 +1,85 @@
+package ratpack.grpc.auth;
+
+import com.google.common.collect.ImmutableMap;
+import io.grpc.Context;
+import ratpack.api.Nullable;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A bearer token that a {@link TokenVerifier} accepted.
+ * <p>
+ * The token of each authenticated call is available from {@link #current()}, the gRPC {@link Context}, and the registry of
+ * executions started with {@link ratpack.grpc.exec.GrpcExecution}.
+ */
+public final class VerifiedToken implements Principal {
+
+    public static final Context.Key<VerifiedToken> KEY = Context.key("ratpack-grpc-verified-token");
+
+    private final String subject;
+    private final Instant expiresAt;
+    private final long expiresAtMillis;
+    private final Map<String, Object> claims;
+
+    private VerifiedToken(String subject, Instant expiresAt, Map<String, Object> claims) {
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.expiresAtMillis = expiresAt.toEpochMilli();
+        this.claims = claims;
+    }
+
+    public static VerifiedToken of(String subject, Instant expiresAt) {
+        return of(subject, expiresAt, ImmutableMap.of());
+    }
+
+    /**
+     * Creates a verified token.
+     *
+     * @param subject who the token was issued to
+     * @param expiresAt when the token expires, after which it is verified again
+     * @param claims any other claims of the token that authorization needs
+     * @return the verified token
+     */
+    public static VerifiedToken of(String subject, Instant expiresAt, Map<String, ?> claims) {
+        return new VerifiedToken(subject, expiresAt, ImmutableMap.copyOf(claims));
+    }
+
+    /**
+     * The token of the current call, if it was authenticated.
+     *
+     * @return the current verified token, or {@code null}
+     */
+    @Nullable
+    public static VerifiedToken current() {
+        return KEY.get();
+    }
+
+    @Override
+    public String getName() {
+        return subject;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedToken{" + subject + ", expires " + expiresAt + "}";
+    }
+
+}
@@ -0,0 +1,345 @@
+package ratpack.grpc.broadcast;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.BindableService;
+import io.grpc.Drainable;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import ratpack.api.Nullable;
+import ratpack.func.Action;
+import ratpack.util.Exceptions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes messages to every subscriber of a server streaming method.
+ * <pre>{@code
+ * BroadcastHub<Quote> quotes = BroadcastHub.of(c -> c.queueSize(64).policy(SlowConsumerPolicy.CONFLATE));
+ * BindableService service = quotes.bind(new QuoteService(), QuotesGrpc.getSubscribeMethod());
+ * ...
+ * quotes.publish(quote.getSymbol(), quote);
+ * }</pre>
+ * {@link #bind(BindableService, MethodDescriptor) Binding} a service replaces one of its server streaming methods with the hub;
+ * the returned service is registered like any other, e.g. in the registry for {@code GrpcService}.
+ * <p>
+ * Each message is serialized once when published, and the same bytes are written to every subscriber. Messages are queued per
+ * subscriber and sent as its call becomes ready, so a slow subscriber never holds up the others. When a subscriber's queue is
+ * full, the hub's {@link SlowConsumerPolicy} applies.
+ *
+ * @param <T> the message type
+ */
+public class BroadcastHub<T extends MessageLite> {
+
+    private static final MethodDescriptor.Marshaller<Frame> FRAME_MARSHALLER = new MethodDescriptor.Marshaller<Frame>() {
+        @Override
+        public InputStream stream(Frame frame) {
+            return new FrameStream(frame.bytes);
+        }
+
+        @Override
+        public Frame parse(InputStream stream) {
+            throw new UnsupportedOperationException("broadcast messages are only sent");
+        }
+    };
+
+    private final BroadcastHubConfig config;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    public BroadcastHub(BroadcastHubConfig config) {
+        this.config = config;
+    }
+
+    public static <T extends MessageLite> BroadcastHub<T> of(Action<? super BroadcastHubConfig> action) {
+        BroadcastHubConfig config = new BroadcastHubConfig();
+        Exceptions.uncheck(() -> action.execute(config));
+        return new BroadcastHub<>(config);
+    }
+
+    /**
+     * Returns the given service with the given server streaming method served by this hub.
+     * Every call to the method subscribes to the hub until it is cancelled, whatever its request.
+     *
+     * @param service the service
+     * @param method a server streaming method of the service
+     * @param <Req> the request type of the method
+     * @return the service with the method replaced
+     */
+    public <Req> BindableService bind(BindableService service, MethodDescriptor<Req, T> method) {
+        if (method.getType() != MethodDescriptor.MethodType.SERVER_STREAMING) {
+            throw new IllegalArgumentException(method.getFullMethodName() + " is not a server streaming method");
+        }
+        MethodDescriptor<Req, Frame> framed = method.toBuilder(method.getRequestMarshaller(), FRAME_MARSHALLER).build();
+        return () -> {
+            ServerServiceDefinition definition = service.bindService();
+            ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(definition.getServiceDescriptor().getName());
+            for (ServerMethodDefinition<?, ?> existing : definition.getMethods()) {
+                if (!existing.getMethodDescriptor().getFullMethodName().equals(method.getFullMethodName())) {
+                    builder.addMethod(existing);
+                }
+            }
+            builder.addMethod(framed, ServerCalls.asyncServerStreamingCall((request, responseObserver) ->
+                    subscribe((ServerCallStreamObserver<Frame>) responseObserver)
+            ));
+            return builder.build();
+        };
+    }
+
+    /**
+     * Publishes a message to every current subscriber.
+     *
+     * @param message the message
+     */
+    public void publish(T message) {
+        publish(null, message);
+    }
+
+    /**
+     * Publishes a message with a key, that replaces queued messages with the same key under {@link SlowConsumerPolicy#CONFLATE}.
+     *
+     * @param key the message key
+     * @param message the message
+     */
+    public void publish(@Nullable Object key, T message) {
+        Frame frame = new Frame(key, message.toByteArray());
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    /**
+     * Completes the call of every subscriber.
+     */
+    public void close() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.complete();
+        }
+    }
+
+    public int getSubscribers() {
+        return subscribers.size();
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * The number of messages dropped or conflated for slow subscribers.
+     *
+     * @return the number of dropped messages
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * The number of slow subscribers disconnected by {@link SlowConsumerPolicy#DISCONNECT}.
+     *
+     * @return the number of disconnected subscribers
+     */
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+
+    private void subscribe(ServerCallStreamObserver<Frame> call) {
+        Subscriber subscriber = new Subscriber(call);
+        call.setOnCancelHandler(() -> subscribers.remove(subscriber));
+        call.setOnReadyHandler(subscriber::drain);
+        subscribers.add(subscriber);
+    }
+
+    private class Subscriber {
+
+        private final ServerCallStreamObserver<Frame> call;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final boolean conflate = config.getPolicy() == SlowConsumerPolicy.CONFLATE;
+        // guarded by this, frames in the order they were published; only CONFLATE needs them keyed, to replace a queued frame
+        // with a newer one with the same key, so the other policies queue them without a map entry and key per message
+        @Nullable
+        private final ArrayDeque<Frame> queue = conflate ? null : new ArrayDeque<>();
+        @Nullable
+        private final Map<Object, Frame> conflated = conflate ? new LinkedHashMap<>() : null;
+        private boolean closed;
+        @Nullable
+        private Status closeStatus;
+
+        private Subscriber(ServerCallStreamObserver<Frame> call) {
+            this.call = call;
+        }
+
+        void offer(Frame frame) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (conflate && conflated.put(frame.key != null ? frame.key : new Object(), frame) != null) {
+                    dropped.increment();
+                } else {
+                    if (!conflate) {
+                        queue.add(frame);
+                    }
+                    if (queued() > config.getQueueSize()) {
+                        if (config.getPolicy() == SlowConsumerPolicy.DISCONNECT) {
+                            clear();
+                            close(Status.RESOURCE_EXHAUSTED.withDescription("subscriber is too slow, more than " + config.getQueueSize() + " messages queued"));
+                            disconnected.increment();
+                        } else {
+                            poll();
+                            dropped.increment();
+                        }
+                    }
+                }
+            }
+            drain();
+        }
+
+        void complete() {
+            synchronized (this) {
+                close(Status.OK);
+            }
+            drain();
+        }
+
+        private int queued() {
+            return conflate ? conflated.size() : queue.size();
+        }
+
+        @Nullable
+        private Frame poll() {
+            if (!conflate) {
+                return queue.poll();
+            }
+            Iterator<Frame> oldest = conflated.values().iterator();
+            if (!oldest.hasNext()) {
+                return null;
+            }
+            Frame frame = oldest.next();
+            oldest.remove();
+            return frame;
+        }
+
+        private void clear() {
+            if (conflate) {
+                conflated.clear();
+            } else {
+                queue.clear();
+            }
+        }
+
+        private void close(Status status) {
+            if (!closed) {
+                closed = true;
+                closeStatus = status;
+                subscribers.remove(this);
+            }
+        }
+
+        private void cancelled() {
+            synchronized (this) {
+                closed = true;
+                closeStatus = null;
+                clear();
+            }
+            subscribers.remove(this);
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (true) {
+                    Frame next;
+                    Status status = null;
+                    synchronized (this) {
+                        if (queued() == 0 || !call.isReady()) {
+                            // only close once everything queued before a graceful close has been sent
+                            if (closeStatus != null && (queued() == 0 || !closeStatus.isOk())) {
+                                status = closeStatus;
+                                closeStatus = null;
+                            }
+                            next = null;
+                        } else {
+                            next = poll();
+                        }
+                    }
+                    if (call.isCancelled()) {
+                        cancelled();
+                        break;
+                    }
+                    try {
+                        if (next != null) {
+                            call.onNext(next);
+                        } else {
+                            if (status != null) {
+                                if (status.isOk()) {
+                                    call.onCompleted();
+                                } else {
+                                    call.onError(status.asRuntimeException());
+                                }
+                            }
+                            break;
+                        }
+                    } catch (StatusRuntimeException e) {
+                        // cancelled after the check, before the cancel handler removed this subscriber
+                        cancelled();
+                        break;
+                    }
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
+
+    static class Frame {
+
+        @Nullable
+        final Object key;
+        final byte[] bytes;
+
+        private Frame(@Nullable Object key, byte[] bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Streams a shared serialized message, written straight to the transport's buffer.
+     */
+    private static class FrameStream extends ByteArrayInputStream implements KnownLength, Drainable {
+
+        private FrameStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            int length = count - pos;
+            target.write(buf, pos, length);
+            pos = count;
+            return length;
+        }
+    }
+
+}
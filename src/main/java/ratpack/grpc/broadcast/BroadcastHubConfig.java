@@ -0,0 +1,34 @@
+package ratpack.grpc.broadcast;
+
+public class BroadcastHubConfig {
+
+    private int queueSize = 128;
+    private SlowConsumerPolicy policy = SlowConsumerPolicy.DROP_OLDEST;
+
+    /**
+     * The number of messages queued for a subscriber that is not ready, before its {@link #policy(SlowConsumerPolicy) policy} applies.
+     *
+     * @return the queue size
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public BroadcastHubConfig queueSize(int queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("queueSize must be at least 1");
+        }
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public SlowConsumerPolicy getPolicy() {
+        return policy;
+    }
+
+    public BroadcastHubConfig policy(SlowConsumerPolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+}
@@ -0,0 +1,24 @@
+package ratpack.grpc.broadcast;
+
+/**
+ * What a {@link BroadcastHub} does when a subscriber's queue is full.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Drops the oldest queued message to make room.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Replaces a queued message with the same key, and otherwise drops the oldest queued message.
+     * Suits messages that carry the latest state of their key, such as prices.
+     */
+    CONFLATE,
+
+    /**
+     * Fails the subscriber's call with {@code RESOURCE_EXHAUSTED}.
+     */
+    DISCONNECT
+
+}
@@ -0,0 +1,305 @@
+package ratpack.grpc.client;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import ratpack.api.Nullable;
+import ratpack.func.Factory;
+import ratpack.util.Exceptions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A channel that spreads calls over several connections to the same target.
+ * <p>
+ * A single HTTP/2 connection is limited by the server's {@code MAX_CONCURRENT_STREAMS} and is served by one event loop thread.
+ * The pool opens another connection, up to {@link ChannelPoolConfig#getMaxSize()}, whenever the chosen connection has
+ * {@link ChannelPoolConfig#getMaxInFlightPerChannel()} calls in flight,
+ * and periodically closes connections that are no longer needed, down to {@link ChannelPoolConfig#getMinSize()}.
+ */
+public class ChannelPool extends ManagedChannel {
+
+    private final Factory<? extends ManagedChannel> channelFactory;
+    private final ChannelPoolConfig config;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Nullable
+    private final ScheduledFuture<?> resizer;
+
+    private volatile Entry[] entries;
+    // trimmed connections, until they terminate
+    private final Set<Entry> terminating = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param channelFactory creates a new connection to the target
+     * @param config the pool configuration
+     * @param scheduler schedules shrink checks, or {@code null} to only shrink on calls to {@link #trim()}
+     */
+    public ChannelPool(Factory<? extends ManagedChannel> channelFactory, ChannelPoolConfig config, @Nullable ScheduledExecutorService scheduler) {
+        this.channelFactory = channelFactory;
+        this.config = config;
+        Entry[] initial = new Entry[config.getMinSize()];
+        for (int i = 0; i < initial.length; i++) {
+            initial[i] = newEntry();
+        }
+        this.entries = initial;
+        if (scheduler != null) {
+            long interval = config.getResizeInterval().toNanos();
+            this.resizer = scheduler.scheduleWithFixedDelay(this::trim, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            this.resizer = null;
+        }
+    }
+
+    private Entry newEntry() {
+        return new Entry(Exceptions.uncheck(channelFactory));
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        Entry entry = acquire();
+        return new CountingCall<>(entry.channel.newCall(method, callOptions), entry);
+    }
+
+    private Entry acquire() {
+        while (true) {
+            Entry entry = pick();
+            if (entry.inFlight.get() >= config.getMaxInFlightPerChannel()) {
+                entry = grow(entry);
+            }
+            // count the call before checking, so that trim either sees it or this sees the connection retired
+            entry.inFlight.incrementAndGet();
+            if (!entry.retired) {
+                return entry;
+            }
+            release(entry);
+        }
+    }
+
+    private static void release(Entry entry) {
+        if (entry.inFlight.decrementAndGet() == 0 && entry.retired) {
+            entry.channel.shutdown();
+        }
+    }
+
+    private Entry pick() {
+        Entry[] current = entries;
+        int start = (next.getAndIncrement() & Integer.MAX_VALUE) % current.length;
+        if (config.getStrategy() == ChannelPoolConfig.Strategy.ROUND_ROBIN) {
+            return current[start];
+        }
+        Entry least = current[start];
+        for (int i = 1; i < current.length && least.inFlight.get() > 0; i++) {
+            Entry candidate = current[(start + i) % current.length];
+            if (candidate.inFlight.get() < least.inFlight.get()) {
+                least = candidate;
+            }
+        }
+        return least;
+    }
+
+    private synchronized Entry grow(Entry busy) {
+        Entry[] current = entries;
+        if (shutdown || current.length >= config.getMaxSize()) {
+            return busy;
+        }
+        for (Entry entry : current) {
+            if (entry.inFlight.get() < config.getMaxInFlightPerChannel()) {
+                // another caller already grew the pool, or a call completed
+                return entry;
+            }
+        }
+        Entry added = newEntry();
+        Entry[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = added;
+        entries = grown;
+        return added;
+    }
+
+    /**
+     * Closes the least loaded connection if the remaining connections can comfortably carry the calls in flight.
+     * <p>
+     * A connection is only closed when the total in flight calls fit in half of the remaining capacity, so that the pool
+     * does not oscillate around the high water mark. The closed connection is shut down once its calls in flight complete.
+     */
+    public synchronized void trim() {
+        Entry[] current = entries;
+        if (shutdown || current.length <= config.getMinSize()) {
+            return;
+        }
+        int total = 0;
+        int leastIndex = 0;
+        for (int i = 0; i < current.length; i++) {
+            int inFlight = current[i].inFlight.get();
+            total += inFlight;
+            if (inFlight < current[leastIndex].inFlight.get()) {
+                leastIndex = i;
+            }
+        }
+        long remainingCapacity = (long) (current.length - 1) * config.getMaxInFlightPerChannel();
+        if (total * 2L > remainingCapacity) {
+            return;
+        }
+        Entry removed = current[leastIndex];
+        Entry[] shrunk = new Entry[current.length - 1];
+        System.arraycopy(current, 0, shrunk, 0, leastIndex);
+        System.arraycopy(current, leastIndex + 1, shrunk, leastIndex, shrunk.length - leastIndex);
+        entries = shrunk;
+        terminating.removeIf(entry -> entry.channel.isTerminated());
+        terminating.add(removed);
+        removed.retired = true;
+        if (removed.inFlight.get() == 0) {
+            removed.channel.shutdown();
+        }
+    }
+
+    /**
+     * The number of connections currently in the pool.
+     *
+     * @return the number of connections
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * The number of calls currently in flight across the pooled connections, counted from their creation until they close.
+     *
+     * @return the number of calls in flight
+     */
+    public int inFlight() {
+        int total = 0;
+        for (Entry entry : entries) {
+            total += entry.inFlight.get();
+        }
+        return total;
+    }
+
+    @Override
+    public String authority() {
+        return entries[0].channel.authority();
+    }
+
+    @Override
+    public synchronized ChannelPool shutdown() {
+        shutdown = true;
+        if (resizer != null) {
+            resizer.cancel(false);
+        }
+        for (Entry entry : entries) {
+            entry.channel.shutdown();
+        }
+        terminating.forEach(entry -> entry.channel.shutdown());
+        return this;
+    }
+
+    @Override
+    public synchronized ChannelPool shutdownNow() {
+        shutdown();
+        for (Entry entry : entries) {
+            entry.channel.shutdownNow();
+        }
+        terminating.forEach(entry -> entry.channel.shutdownNow());
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (Entry entry : all()) {
+            if (!entry.channel.isTerminated()) {
+                return false;
+            }
+        }
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Entry entry : all()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !entry.channel.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Entry> all() {
+        List<Entry> all = new ArrayList<>(Arrays.asList(entries));
+        all.addAll(terminating);
+        return all;
+    }
+
+    private static class Entry {
+        private final ManagedChannel channel;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean retired;
+
+        private Entry(ManagedChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private static class CountingCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean started;
+
+        private CountingCall(ClientCall<ReqT, RespT> delegate, Entry entry) {
+            super(delegate);
+            this.entry = entry;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            started = true;
+            super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                @Override
+                public void onClose(Status status, Metadata trailers) {
+                    release();
+                    super.onClose(status, trailers);
+                }
+            }, headers);
+        }
+
+        @Override
+        public void cancel(@Nullable String message, @Nullable Throwable cause) {
+            if (!started) {
+                // calls cancelled before they start are never closed
+                release();
+            }
+            super.cancel(message, cause);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                ChannelPool.release(entry);
+            }
+        }
+    }
+
+}
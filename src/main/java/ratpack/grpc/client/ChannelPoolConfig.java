@@ -0,0 +1,90 @@
+package ratpack.grpc.client;
+
+import java.time.Duration;
+
+public class ChannelPoolConfig {
+
+    public enum Strategy {
+        /**
+         * Pick the connection with the fewest calls in flight.
+         */
+        LEAST_LOADED,
+        /**
+         * Cycle through connections regardless of load.
+         */
+        ROUND_ROBIN
+    }
+
+    private int minSize = 1;
+    private int maxSize = Runtime.getRuntime().availableProcessors();
+    private int maxInFlightPerChannel = 100;
+    private Strategy strategy = Strategy.LEAST_LOADED;
+    private Duration resizeInterval = Duration.ofSeconds(30);
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public ChannelPoolConfig minSize(int minSize) {
+        if (minSize < 1) {
+            throw new IllegalArgumentException("minSize must be at least 1");
+        }
+        this.minSize = minSize;
+        return this;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public ChannelPoolConfig maxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * The number of calls in flight on a connection above which the pool opens another connection.
+     * <p>
+     * This should be below the server's {@code MAX_CONCURRENT_STREAMS} setting, or calls queue on the connection.
+     *
+     * @return the in flight high water mark per connection
+     */
+    public int getMaxInFlightPerChannel() {
+        return maxInFlightPerChannel;
+    }
+
+    public ChannelPoolConfig maxInFlightPerChannel(int maxInFlightPerChannel) {
+        if (maxInFlightPerChannel < 1) {
+            throw new IllegalArgumentException("maxInFlightPerChannel must be at least 1");
+        }
+        this.maxInFlightPerChannel = maxInFlightPerChannel;
+        return this;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public ChannelPoolConfig strategy(Strategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * How often the pool checks whether it can close an underused connection.
+     *
+     * @return the interval between shrink checks
+     */
+    public Duration getResizeInterval() {
+        return resizeInterval;
+    }
+
+    public ChannelPoolConfig resizeInterval(Duration resizeInterval) {
+        this.resizeInterval = resizeInterval;
+        return this;
+    }
+
+}
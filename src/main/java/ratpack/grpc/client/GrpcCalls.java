@@ -0,0 +1,158 @@
+package ratpack.grpc.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import ratpack.exec.Downstream;
+import ratpack.exec.Promise;
+import ratpack.func.Action;
+import ratpack.grpc.client.internal.ClientCallPublisher;
+import ratpack.stream.Streams;
+import ratpack.stream.TransformablePublisher;
+
+/**
+ * Adapts gRPC client calls to Ratpack promises and publishers.
+ * <p>
+ * The returned promises and publishers resume on the execution that subscribed to them,
+ * regardless of which thread the gRPC callbacks are delivered on.
+ */
+public final class GrpcCalls {
+
+    private GrpcCalls() {
+    }
+
+    /**
+     * Performs a unary call.
+     *
+     * @param channel the channel to call over
+     * @param method the method to call
+     * @param callOptions the call options
+     * @param request the request message
+     * @param <Req> the request type
+     * @param <Resp> the response type
+     * @return a promise for the single response message
+     */
+    public static <Req, Resp> Promise<Resp> unary(Channel channel, MethodDescriptor<Req, Resp> method, CallOptions callOptions, Req request) {
+        return Promise.async(downstream -> {
+            ClientCall<Req, Resp> call = channel.newCall(method, callOptions);
+            call.start(new UnaryListener<>(call, downstream), new Metadata());
+            // ask for two so that a misbehaving server sending more than one response is detected
+            call.request(2);
+            call.sendMessage(request);
+            call.halfClose();
+        });
+    }
+
+    /**
+     * Performs a unary call with default call options.
+     *
+     * @param channel the channel to call over
+     * @param method the method to call
+     * @param request the request message
+     * @param <Req> the request type
+     * @param <Resp> the response type
+     * @return a promise for the single response message
+     */
+    public static <Req, Resp> Promise<Resp> unary(Channel channel, MethodDescriptor<Req, Resp> method, Req request) {
+        return unary(channel, method, CallOptions.DEFAULT, request);
+    }
+
+    /**
+     * Performs a server streaming call.
+     * <p>
+     * Messages are only requested from the server as the subscriber requests them.
+     *
+     * @param channel the channel to call over
+     * @param method the method to call
+     * @param callOptions the call options
+     * @param request the request message
+     * @param <Req> the request type
+     * @param <Resp> the response type
+     * @return a publisher of the response messages
+     */
+    public static <Req, Resp> TransformablePublisher<Resp> serverStreaming(Channel channel, MethodDescriptor<Req, Resp> method, CallOptions callOptions, Req request) {
+        return Streams.bindExec(new ClientCallPublisher<>(channel, method, callOptions, request));
+    }
+
+    /**
+     * Performs a server streaming call with default call options.
+     *
+     * @param channel the channel to call over
+     * @param method the method to call
+     * @param request the request message
+     * @param <Req> the request type
+     * @param <Resp> the response type
+     * @return a publisher of the response messages
+     */
+    public static <Req, Resp> TransformablePublisher<Resp> serverStreaming(Channel channel, MethodDescriptor<Req, Resp> method, Req request) {
+        return serverStreaming(channel, method, CallOptions.DEFAULT, request);
+    }
+
+    /**
+     * Adapts a generated async stub call to a promise.
+     * <pre>{@code
+     * Promise<HelloReply> reply = GrpcCalls.promise(o -> GreeterGrpc.newStub(channel).sayHello(request, o));
+     * }</pre>
+     *
+     * @param call invokes the stub with the given observer
+     * @param <T> the response type
+     * @return a promise for the last response message
+     */
+    public static <T> Promise<T> promise(Action<? super StreamObserver<T>> call) {
+        return Promise.async(downstream -> call.execute(new StreamObserver<T>() {
+            private T value;
+
+            @Override
+            public void onNext(T value) {
+                this.value = value;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                downstream.error(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                downstream.success(value);
+            }
+        }));
+    }
+
+    private static class UnaryListener<Resp> extends ClientCall.Listener<Resp> {
+
+        private final ClientCall<?, Resp> call;
+        private final Downstream<? super Resp> downstream;
+        private Resp value;
+
+        UnaryListener(ClientCall<?, Resp> call, Downstream<? super Resp> downstream) {
+            this.call = call;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onMessage(Resp message) {
+            if (value != null) {
+                call.cancel("More than one value received for unary call", null);
+                return;
+            }
+            value = message;
+        }
+
+        @Override
+        public void onClose(Status status, Metadata trailers) {
+            if (!status.isOk()) {
+                downstream.error(status.asRuntimeException(trailers));
+            } else if (value == null) {
+                downstream.error(Status.INTERNAL.withDescription("No value received for unary call").asRuntimeException(trailers));
+            } else {
+                downstream.success(value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package ratpack.grpc.client;
+
+import ratpack.func.Action;
+import ratpack.util.Exceptions;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class GrpcClientConfig {
+
+    private boolean plaintext = true;
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+    private ChannelPoolConfig pool = new ChannelPoolConfig();
+    private Map<String, TargetConfig> targets = new LinkedHashMap<>();
+
+    public boolean isPlaintext() {
+        return plaintext;
+    }
+
+    public GrpcClientConfig plaintext(boolean plaintext) {
+        this.plaintext = plaintext;
+        return this;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public GrpcClientConfig shutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+        return this;
+    }
+
+    public ChannelPoolConfig getPool() {
+        return pool;
+    }
+
+    public GrpcClientConfig pool(Action<? super ChannelPoolConfig> action) {
+        Exceptions.uncheck(() -> action.execute(pool));
+        return this;
+    }
+
+    public Map<String, TargetConfig> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Configures a named target that the client resolves and load balances itself.
+     * <p>
+     * The name can then be used as the target of {@link GrpcClients#channel(String)} and {@link GrpcClients#pool(String)}.
+     *
+     * @param name the target name
+     * @param action configures the target
+     * @return this
+     */
+    public GrpcClientConfig target(String name, Action<? super TargetConfig> action) {
+        Exceptions.uncheck(() -> action.execute(targets.computeIfAbsent(name, n -> new TargetConfig())));
+        return this;
+    }
+
+}
@@ -0,0 +1,43 @@
+package ratpack.grpc.client;
+
+import io.grpc.ManagedChannel;
+
+/**
+ * Provides gRPC client channels that run on the Ratpack event loop.
+ * <p>
+ * Channels are cached per target and are shut down when the Ratpack server stops.
+ * Use {@link GrpcCalls} to adapt calls made over these channels to promises and publishers.
+ */
+public interface GrpcClients {
+
+    /**
+     * Returns the channel for the given target, creating it if necessary.
+     *
+     * @param target a gRPC target string, e.g. {@code localhost:50051} or {@code dns:///example.com:443}
+     * @return a channel backed by the Ratpack event loop group
+     */
+    ManagedChannel channel(String target);
+
+    /**
+     * Returns the channel for the given host and port, creating it if necessary.
+     *
+     * @param host the host to connect to
+     * @param port the port to connect to
+     * @return a channel backed by the Ratpack event loop group
+     */
+    default ManagedChannel channel(String host, int port) {
+        return channel(host + ":" + port);
+    }
+
+    /**
+     * Returns the connection pool for the given target, creating it if necessary.
+     * <p>
+     * Use a pool instead of a {@link #channel(String) single channel} when calls to the target would saturate one connection.
+     *
+     * @param target a gRPC target string
+     * @return a pool of channels backed by the Ratpack event loop group
+     * @see ChannelPoolConfig
+     */
+    ChannelPool pool(String target);
+
+}
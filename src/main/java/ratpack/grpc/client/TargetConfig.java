@@ -0,0 +1,85 @@
+package ratpack.grpc.client;
+
+import ratpack.api.Nullable;
+import ratpack.grpc.client.lb.LoadBalancingPolicy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A named client target that is resolved and load balanced by the client instead of by DNS and a proxy.
+ * <p>
+ * The backends are either a fixed list of {@code host:port} {@link #addresses(List) addresses},
+ * or are read from a {@link #file(Path) file} that is watched for changes.
+ */
+public class TargetConfig {
+
+    private List<String> addresses = new ArrayList<>();
+    @Nullable
+    private Path file;
+    private Duration watchInterval = Duration.ofSeconds(5);
+    private LoadBalancingPolicy policy = LoadBalancingPolicy.ROUND_ROBIN;
+    @Nullable
+    private String hashHeader;
+
+    public List<String> getAddresses() {
+        return addresses;
+    }
+
+    public TargetConfig addresses(List<String> addresses) {
+        this.addresses = new ArrayList<>(addresses);
+        return this;
+    }
+
+    public TargetConfig addresses(String... addresses) {
+        return addresses(Arrays.asList(addresses));
+    }
+
+    @Nullable
+    public Path getFile() {
+        return file;
+    }
+
+    public TargetConfig file(Path file) {
+        this.file = file;
+        return this;
+    }
+
+    public Duration getWatchInterval() {
+        return watchInterval;
+    }
+
+    public TargetConfig watchInterval(Duration watchInterval) {
+        this.watchInterval = watchInterval;
+        return this;
+    }
+
+    public LoadBalancingPolicy getPolicy() {
+        return policy;
+    }
+
+    public TargetConfig policy(LoadBalancingPolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    @Nullable
+    public String getHashHeader() {
+        return hashHeader;
+    }
+
+    /**
+     * The request header holding the routing key of calls, for {@link LoadBalancingPolicy#CONSISTENT_HASH}.
+     *
+     * @param hashHeader the header name
+     * @return this
+     */
+    public TargetConfig hashHeader(String hashHeader) {
+        this.hashHeader = hashHeader;
+        return this;
+    }
+
+}
@@ -0,0 +1,90 @@
+package ratpack.grpc.client.internal;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A publisher of the responses of a server streaming call, requesting messages from the server only as demanded.
+ */
+public class ClientCallPublisher<Req, Resp> implements Publisher<Resp> {
+
+    private final Channel channel;
+    private final MethodDescriptor<Req, Resp> method;
+    private final CallOptions callOptions;
+    private final Req request;
+
+    public ClientCallPublisher(Channel channel, MethodDescriptor<Req, Resp> method, CallOptions callOptions, Req request) {
+        this.channel = channel;
+        this.method = method;
+        this.callOptions = callOptions;
+        this.request = request;
+    }
+
+    /**
+     * Signals {@code onSubscribe} before anything else, as rule 1.9 requires, and only starts the call on the first request.
+     */
+    @Override
+    public void subscribe(Subscriber<? super Resp> subscriber) {
+        ClientCall<Req, Resp> call = channel.newCall(method, callOptions);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean started = new AtomicBoolean();
+
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancel();
+                    subscriber.onError(new IllegalArgumentException("3.9 While the Subscription is not cancelled, Subscription.request(long n) MUST throw a java.lang.IllegalArgumentException if the argument is <= 0."));
+                    return;
+                }
+                if (cancelled.get()) {
+                    return;
+                }
+                if (started.compareAndSet(false, true)) {
+                    start(call, subscriber, cancelled);
+                }
+                call.request((int) Math.min(n, Integer.MAX_VALUE));
+            }
+
+            @Override
+            public void cancel() {
+                if (cancelled.compareAndSet(false, true) && started.get()) {
+                    call.cancel("Subscription cancelled", null);
+                }
+            }
+        });
+    }
+
+    private void start(ClientCall<Req, Resp> call, Subscriber<? super Resp> subscriber, AtomicBoolean cancelled) {
+        call.start(new ClientCall.Listener<Resp>() {
+            @Override
+            public void onMessage(Resp message) {
+                subscriber.onNext(message);
+            }
+
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+                if (cancelled.get()) {
+                    return;
+                }
+                if (status.isOk()) {
+                    subscriber.onComplete();
+                } else {
+                    subscriber.onError(status.asRuntimeException(trailers));
+                }
+            }
+        }, new Metadata());
+        call.sendMessage(request);
+        call.halfClose();
+    }
+
+}
@@ -0,0 +1,133 @@
+package ratpack.grpc.client.internal;
+
+import com.google.inject.Inject;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.netty.NettyChannelBuilder;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.exec.Blocking;
+import ratpack.exec.ExecController;
+import ratpack.grpc.GrpcConfig;
+import ratpack.grpc.client.ChannelPool;
+import ratpack.grpc.client.GrpcClientConfig;
+import ratpack.grpc.client.GrpcClients;
+import ratpack.grpc.client.TargetConfig;
+import ratpack.grpc.client.lb.FileNameResolverFactory;
+import ratpack.grpc.client.lb.StaticNameResolverFactory;
+import ratpack.grpc.trace.Tracing;
+import ratpack.service.DependsOn;
+import ratpack.service.Service;
+import ratpack.service.StopEvent;
+import ratpack.util.internal.TransportDetector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+@DependsOn(Tracing.class)
+public class DefaultGrpcClients implements GrpcClients, Service {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcClients.class);
+
+    private final ExecController execController;
+    private final GrpcClientConfig config;
+    @Nullable
+    private final Tracing tracing;
+    private final ConcurrentMap<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ChannelPool> pools = new ConcurrentHashMap<>();
+
+    private volatile boolean stopped;
+
+    public DefaultGrpcClients(ExecController execController, GrpcConfig config) {
+        this(execController, config, null);
+    }
+
+    @Inject
+    public DefaultGrpcClients(ExecController execController, GrpcConfig config, @Nullable Tracing tracing) {
+        this.execController = execController;
+        this.config = config.getClient();
+        this.tracing = tracing;
+    }
+
+    @Override
+    public ManagedChannel channel(String target) {
+        if (stopped) {
+            throw new IllegalStateException("gRPC clients have been shut down");
+        }
+        return channels.computeIfAbsent(target, this::newChannel);
+    }
+
+    @Override
+    public ChannelPool pool(String target) {
+        if (stopped) {
+            throw new IllegalStateException("gRPC clients have been shut down");
+        }
+        return pools.computeIfAbsent(target, t ->
+                new ChannelPool(() -> newChannel(t), config.getPool(), execController.getExecutor())
+        );
+    }
+
+    protected NettyChannelBuilder channelBuilder(String target) {
+        // callbacks run directly on the event loop, promises resume on the calling execution
+        NettyChannelBuilder builder = NettyChannelBuilder.forTarget(target)
+                .channelType(TransportDetector.getSocketChannelImpl())
+                .eventLoopGroup(execController.getEventLoopGroup())
+                .withOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .directExecutor();
+        if (config.isPlaintext()) {
+            builder.usePlaintext();
+        }
+        if (tracing != null && tracing.isEnabled()) {
+            builder.intercept(tracing.clientInterceptor());
+        }
+
+        TargetConfig targetConfig = config.getTargets().get(target);
+        if (targetConfig != null) {
+            builder.nameResolverFactory(nameResolverFactory(target, targetConfig));
+            builder.loadBalancerFactory(targetConfig.getPolicy().factory(targetConfig.getHashHeader()));
+        }
+        return builder;
+    }
+
+    private NameResolver.Factory nameResolverFactory(String target, TargetConfig targetConfig) {
+        // resolving reads files and may look up DNS, so it must not run on the event loop
+        if (targetConfig.getFile() != null) {
+            return new FileNameResolverFactory(target, targetConfig.getFile(), targetConfig.getWatchInterval(),
+                    execController.getExecutor(), execController.getBlockingExecutor());
+        } else {
+            return new StaticNameResolverFactory(target, targetConfig.getAddresses(), execController.getBlockingExecutor());
+        }
+    }
+
+    private ManagedChannel newChannel(String target) {
+        logger.debug("creating gRPC channel for {}", target);
+        return channelBuilder(target).build();
+    }
+
+    @Override
+    public void onStop(StopEvent event) throws Exception {
+        stopped = true;
+        List<ManagedChannel> open = new ArrayList<>(channels.values());
+        open.addAll(pools.values());
+        channels.clear();
+        pools.clear();
+        open.forEach(ManagedChannel::shutdown);
+
+        // channels share the event loop, so wait for termination off of it
+        Blocking.op(() -> {
+            long deadline = System.nanoTime() + config.getShutdownTimeout().toNanos();
+            for (ManagedChannel channel : open) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !channel.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    channel.shutdownNow();
+                }
+            }
+        }).then(() -> logger.info("gRPC client channels stopped"));
+    }
+}
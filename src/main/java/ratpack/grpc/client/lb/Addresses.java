@@ -0,0 +1,31 @@
+package ratpack.grpc.client.lb;
+
+import com.google.common.net.HostAndPort;
+import io.grpc.EquivalentAddressGroup;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+final class Addresses {
+
+    private Addresses() {
+    }
+
+    static List<EquivalentAddressGroup> parse(Iterable<String> addresses) {
+        List<EquivalentAddressGroup> groups = new ArrayList<>();
+        for (String address : addresses) {
+            String trimmed = address.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            HostAndPort hostAndPort = HostAndPort.fromString(trimmed);
+            if (!hostAndPort.hasPort()) {
+                throw new IllegalArgumentException("address must include a port: " + trimmed);
+            }
+            groups.add(new EquivalentAddressGroup(new InetSocketAddress(hostAndPort.getHost(), hostAndPort.getPort())));
+        }
+        return groups;
+    }
+
+}
@@ -0,0 +1,183 @@
+package ratpack.grpc.client.lb;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import ratpack.api.Nullable;
+import ratpack.func.Function;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routing keys for targets using {@link LoadBalancingPolicy#CONSISTENT_HASH}.
+ * <p>
+ * A call's key is taken from, in order: the {@link #KEY} call option, the target's
+ * {@link ratpack.grpc.client.TargetConfig#hashHeader(String) hash header}, or a field of the request with
+ * {@link #byRequest(Function)}. Calls without a key are spread round robin.
+ */
+public final class ConsistentHash {
+
+    /**
+     * The call option holding a call's routing key.
+     */
+    public static final CallOptions.Key<String> KEY = CallOptions.Key.create("ratpack-grpc-hash-key");
+
+    private ConsistentHash() {
+    }
+
+    /**
+     * Returns an interceptor that routes each call by a key extracted from its first request message.
+     * <p>
+     * A backend is picked when a call starts, before its request is sent, so the interceptor holds back the start of the call
+     * until the first message is sent.
+     *
+     * @param key extracts the routing key from a request, or returns {@code null} for no key
+     * @param <Req> the request type
+     * @return a client interceptor for channels to the target
+     */
+    public static <Req> ClientInterceptor byRequest(Function<? super Req, String> key) {
+        return new ClientInterceptor() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+                if (callOptions.getOption(KEY) != null) {
+                    return next.newCall(method, callOptions);
+                }
+                return new KeyedCall<>(method, callOptions, next, key);
+            }
+        };
+    }
+
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // the splitmix64 finalizer, spreads similar keys and seeds over the whole range
+    static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Starts the real call with the key of the first request message, replaying whatever was done before it.
+     */
+    private static class KeyedCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CallOptions callOptions;
+        private final Channel next;
+        private final Function<Object, String> key;
+
+        @Nullable
+        private ClientCall<ReqT, RespT> delegate;
+        @Nullable
+        private Listener<RespT> listener;
+        @Nullable
+        private Metadata headers;
+        private int requested;
+        private final List<Runnable> pending = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        private KeyedCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next, Function<?, String> key) {
+            this.method = method;
+            this.callOptions = callOptions;
+            this.next = next;
+            this.key = (Function<Object, String>) key;
+        }
+
+        @Override
+        public void start(Listener<RespT> listener, Metadata headers) {
+            this.listener = listener;
+            this.headers = headers;
+        }
+
+        @Override
+        public void request(int numMessages) {
+            if (delegate == null) {
+                requested += numMessages;
+            } else {
+                delegate.request(numMessages);
+            }
+        }
+
+        @Override
+        public void cancel(@Nullable String message, @Nullable Throwable cause) {
+            if (delegate != null) {
+                delegate.cancel(message, cause);
+            } else if (listener != null) {
+                Status status = Status.CANCELLED.withDescription(message).withCause(cause);
+                Listener<RespT> cancelled = listener;
+                listener = null;
+                cancelled.onClose(status, new Metadata());
+            }
+        }
+
+        @Override
+        public void halfClose() {
+            if (delegate == null) {
+                // no message to take a key from, e.g. a client streaming call with no requests
+                pending.add(() -> delegate.halfClose());
+                startWith(null);
+            } else {
+                delegate.halfClose();
+            }
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            if (delegate == null) {
+                String routingKey;
+                try {
+                    routingKey = key.apply(message);
+                } catch (Exception e) {
+                    cancel("failed to extract the routing key", e);
+                    return;
+                }
+                startWith(routingKey);
+            }
+            if (delegate != null) {
+                delegate.sendMessage(message);
+            }
+        }
+
+        private void startWith(@Nullable String routingKey) {
+            if (listener == null) {
+                return;
+            }
+            ClientCall<ReqT, RespT> call = next.newCall(method, routingKey == null ? callOptions : callOptions.withOption(KEY, routingKey));
+            call.start(listener, headers);
+            if (requested > 0) {
+                call.request(requested);
+            }
+            delegate = call;
+            pending.forEach(Runnable::run);
+            pending.clear();
+        }
+
+        @Override
+        public boolean isReady() {
+            // ready to take the first message, which starts the call
+            return delegate == null || delegate.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(boolean enabled) {
+            if (delegate == null) {
+                pending.add(() -> delegate.setMessageCompression(enabled));
+            } else {
+                delegate.setMessageCompression(enabled);
+            }
+        }
+    }
+
+}
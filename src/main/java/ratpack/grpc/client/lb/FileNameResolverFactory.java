@@ -0,0 +1,120 @@
+package ratpack.grpc.client.lb;
+
+import io.grpc.Attributes;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves a target to the {@code host:port} addresses listed in a file, one per line.
+ * <p>
+ * The file is polled for modifications, and the new address list is pushed to the channel whenever it changes.
+ * Blank lines and lines starting with {@code #} are ignored. The scheduler only times the polls, the file is read on the
+ * given executor, as it blocks.
+ */
+public class FileNameResolverFactory extends NameResolver.Factory {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileNameResolverFactory.class);
+
+    private final String authority;
+    private final Path file;
+    private final Duration watchInterval;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    public FileNameResolverFactory(String authority, Path file, Duration watchInterval, ScheduledExecutorService scheduler, Executor executor) {
+        this.authority = authority;
+        this.file = file;
+        this.watchInterval = watchInterval;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, Attributes params) {
+        if (!StaticNameResolverFactory.SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        return new FileNameResolver();
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return StaticNameResolverFactory.SCHEME;
+    }
+
+    private class FileNameResolver extends NameResolver {
+
+        private Listener listener;
+
+        @Nullable
+        private ScheduledFuture<?> watch;
+
+        @Nullable
+        private FileTime lastModified;
+
+        @Override
+        public String getServiceAuthority() {
+            return authority;
+        }
+
+        @Override
+        public synchronized void start(Listener listener) {
+            this.listener = listener;
+            long interval = watchInterval.toNanos();
+            watch = scheduler.scheduleWithFixedDelay(() -> executor.execute(() -> resolve(false)), 0, interval, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void refresh() {
+            executor.execute(() -> resolve(true));
+        }
+
+        private synchronized void resolve(boolean force) {
+            if (watch == null) {
+                return;
+            }
+            try {
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (!force && modified.equals(lastModified)) {
+                    return;
+                }
+                lastModified = modified;
+                List<EquivalentAddressGroup> groups = Addresses.parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+                if (groups.isEmpty()) {
+                    listener.onError(Status.UNAVAILABLE.withDescription("no addresses in " + file));
+                } else {
+                    logger.debug("resolved {} to {}", authority, groups);
+                    listener.onAddresses(groups, Attributes.EMPTY);
+                }
+            } catch (Exception e) {
+                lastModified = null;
+                listener.onError(Status.UNAVAILABLE.withDescription("unable to read addresses from " + file).withCause(e));
+            }
+        }
+
+        @Override
+        public synchronized void shutdown() {
+            if (watch != null) {
+                watch.cancel(false);
+                watch = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package ratpack.grpc.client.lb;
+
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import ratpack.api.Nullable;
+
+public enum LoadBalancingPolicy {
+
+    /**
+     * Cycle through ready backends.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Pick the ready backend with the fewest calls in flight from this client.
+     */
+    LEAST_REQUEST,
+
+    /**
+     * Pick two ready backends at random and use the one with the lower
+     * latency weighted by calls in flight.
+     */
+    POWER_OF_TWO_CHOICES,
+
+    /**
+     * Pick the ready backend with the highest rendezvous hash of the call's {@link ConsistentHash routing key},
+     * so that calls with the same key go to the same backend. When a backend is added or removed,
+     * only the keys that move to or from it change backend.
+     */
+    CONSISTENT_HASH;
+
+    public LoadBalancer.Factory factory() {
+        return factory(null);
+    }
+
+    /**
+     * Creates load balancers for this policy.
+     *
+     * @param hashHeader the request header holding the routing key of calls, for {@link #CONSISTENT_HASH}
+     * @return a load balancer factory
+     */
+    public LoadBalancer.Factory factory(@Nullable String hashHeader) {
+        Metadata.Key<String> header = hashHeader == null ? null : Metadata.Key.of(hashHeader, Metadata.ASCII_STRING_MARSHALLER);
+        return new LoadBalancer.Factory() {
+            @Override
+            public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+                return new RatpackLoadBalancer(helper, LoadBalancingPolicy.this, header);
+            }
+        };
+    }
+
+}
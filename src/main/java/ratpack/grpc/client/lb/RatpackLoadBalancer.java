@@ -0,0 +1,260 @@
+package ratpack.grpc.client.lb;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import ratpack.api.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RatpackLoadBalancer extends LoadBalancer {
+
+    private static final Attributes.Key<Backend> BACKEND = Attributes.Key.create("ratpack-grpc-backend");
+
+    private final Helper helper;
+    private final LoadBalancingPolicy policy;
+    @Nullable
+    private final Metadata.Key<String> hashHeader;
+    private final Map<EquivalentAddressGroup, Subchannel> subchannels = new HashMap<>();
+
+    private Status lastError = Status.UNAVAILABLE.withDescription("no backends resolved");
+
+    RatpackLoadBalancer(Helper helper, LoadBalancingPolicy policy, @Nullable Metadata.Key<String> hashHeader) {
+        this.helper = helper;
+        this.policy = policy;
+        this.hashHeader = hashHeader;
+    }
+
+    @Override
+    public void handleResolvedAddressGroups(List<EquivalentAddressGroup> servers, Attributes attributes) {
+        Set<EquivalentAddressGroup> latest = new HashSet<>();
+        for (EquivalentAddressGroup server : servers) {
+            // ignore attributes so that the same address maps to the same subchannel across resolutions
+            latest.add(new EquivalentAddressGroup(server.getAddresses()));
+        }
+
+        for (EquivalentAddressGroup address : latest) {
+            if (!subchannels.containsKey(address)) {
+                Attributes subchannelAttributes = Attributes.newBuilder().set(BACKEND, new Backend(address.getAddresses().toString())).build();
+                Subchannel subchannel = helper.createSubchannel(address, subchannelAttributes);
+                subchannels.put(address, subchannel);
+                subchannel.requestConnection();
+            }
+        }
+
+        List<Subchannel> removed = new ArrayList<>();
+        subchannels.entrySet().removeIf(entry -> {
+            if (latest.contains(entry.getKey())) {
+                return false;
+            }
+            removed.add(entry.getValue());
+            return true;
+        });
+
+        updateBalancingState();
+        removed.forEach(Subchannel::shutdown);
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+        lastError = error;
+        if (subchannels.isEmpty()) {
+            helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE, new ErrorPicker(error));
+        }
+    }
+
+    @Override
+    public void handleSubchannelState(Subchannel subchannel, ConnectivityStateInfo stateInfo) {
+        if (subchannels.get(new EquivalentAddressGroup(subchannel.getAddresses().getAddresses())) != subchannel) {
+            return;
+        }
+        Backend backend = subchannel.getAttributes().get(BACKEND);
+        backend.state = stateInfo.getState();
+        if (stateInfo.getState() == ConnectivityState.TRANSIENT_FAILURE) {
+            lastError = stateInfo.getStatus();
+        } else if (stateInfo.getState() == ConnectivityState.IDLE) {
+            subchannel.requestConnection();
+        }
+        updateBalancingState();
+    }
+
+    private void updateBalancingState() {
+        List<Subchannel> ready = new ArrayList<>();
+        boolean connecting = false;
+        for (Subchannel subchannel : subchannels.values()) {
+            ConnectivityState state = subchannel.getAttributes().get(BACKEND).state;
+            if (state == ConnectivityState.READY) {
+                ready.add(subchannel);
+            } else if (state == ConnectivityState.CONNECTING || state == ConnectivityState.IDLE) {
+                connecting = true;
+            }
+        }
+
+        if (!ready.isEmpty()) {
+            helper.updateBalancingState(ConnectivityState.READY, new ReadyPicker(ready, policy, hashHeader));
+        } else if (connecting) {
+            helper.updateBalancingState(ConnectivityState.CONNECTING, new ErrorPicker(null));
+        } else {
+            helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE, new ErrorPicker(lastError));
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        subchannels.values().forEach(Subchannel::shutdown);
+        subchannels.clear();
+    }
+
+    /**
+     * Live statistics for one backend, shared by every call to it from this channel.
+     */
+    static class Backend extends ClientStreamTracer.Factory {
+
+        // weight given to the latest latency sample
+        private static final double DECAY = 0.3;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // identifies the backend by address for rendezvous hashing, the same in every client
+        private final long seed;
+        private volatile double latencyNanos;
+        private volatile ConnectivityState state = ConnectivityState.IDLE;
+
+        Backend(String address) {
+            this.seed = ConsistentHash.hash(address);
+        }
+
+        @Override
+        public ClientStreamTracer newClientStreamTracer(CallOptions callOptions, Metadata headers) {
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            return new ClientStreamTracer() {
+                @Override
+                public void streamClosed(Status status) {
+                    inFlight.decrementAndGet();
+                    long sample = System.nanoTime() - start;
+                    // racing updates may lose a sample, which is acceptable for a moving average
+                    double current = latencyNanos;
+                    latencyNanos = current == 0 ? sample : current + DECAY * (sample - current);
+                }
+            };
+        }
+
+        int inFlight() {
+            return inFlight.get();
+        }
+
+        double score() {
+            return latencyNanos * (inFlight.get() + 1);
+        }
+    }
+
+    private static class ReadyPicker extends SubchannelPicker {
+
+        private final Subchannel[] ready;
+        private final LoadBalancingPolicy policy;
+        @Nullable
+        private final Metadata.Key<String> hashHeader;
+        private final AtomicInteger next = new AtomicInteger(ThreadLocalRandom.current().nextInt());
+
+        private ReadyPicker(List<Subchannel> ready, LoadBalancingPolicy policy, @Nullable Metadata.Key<String> hashHeader) {
+            this.ready = ready.toArray(new Subchannel[0]);
+            this.policy = policy;
+            this.hashHeader = hashHeader;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            Subchannel picked;
+            switch (policy) {
+                case LEAST_REQUEST:
+                    picked = leastRequest();
+                    break;
+                case POWER_OF_TWO_CHOICES:
+                    picked = powerOfTwoChoices();
+                    break;
+                case CONSISTENT_HASH:
+                    String key = args.getCallOptions().getOption(ConsistentHash.KEY);
+                    if (key == null && hashHeader != null) {
+                        key = args.getHeaders().get(hashHeader);
+                    }
+                    if (key != null) {
+                        return PickResult.withSubchannel(rendezvous(ConsistentHash.hash(key)));
+                    }
+                    return PickResult.withSubchannel(ready[(next.getAndIncrement() & Integer.MAX_VALUE) % ready.length]);
+                default:
+                    return PickResult.withSubchannel(ready[(next.getAndIncrement() & Integer.MAX_VALUE) % ready.length]);
+            }
+            return PickResult.withSubchannel(picked, backend(picked));
+        }
+
+        private Subchannel rendezvous(long keyHash) {
+            Subchannel highest = ready[0];
+            long highestScore = ConsistentHash.mix(keyHash ^ backend(highest).seed);
+            for (int i = 1; i < ready.length; i++) {
+                long score = ConsistentHash.mix(keyHash ^ backend(ready[i]).seed);
+                if (score > highestScore) {
+                    highest = ready[i];
+                    highestScore = score;
+                }
+            }
+            return highest;
+        }
+
+        private Subchannel leastRequest() {
+            int start = (next.getAndIncrement() & Integer.MAX_VALUE) % ready.length;
+            Subchannel least = ready[start];
+            for (int i = 1; i < ready.length; i++) {
+                Subchannel candidate = ready[(start + i) % ready.length];
+                if (backend(candidate).inFlight() < backend(least).inFlight()) {
+                    least = candidate;
+                }
+            }
+            return least;
+        }
+
+        private Subchannel powerOfTwoChoices() {
+            if (ready.length == 1) {
+                return ready[0];
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(ready.length);
+            int second = random.nextInt(ready.length - 1);
+            if (second >= first) {
+                second++;
+            }
+            return backend(ready[first]).score() <= backend(ready[second]).score() ? ready[first] : ready[second];
+        }
+
+        private static Backend backend(Subchannel subchannel) {
+            return subchannel.getAttributes().get(BACKEND);
+        }
+    }
+
+    private static class ErrorPicker extends SubchannelPicker {
+
+        private final Status error;
+
+        private ErrorPicker(Status error) {
+            this.error = error;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            return error == null ? PickResult.withNoResult() : PickResult.withError(error);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package ratpack.grpc.client.lb;
+
+import io.grpc.Attributes;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.Status;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Resolves a target to a fixed list of {@code host:port} addresses.
+ */
+public class StaticNameResolverFactory extends NameResolver.Factory {
+
+    public static final String SCHEME = "ratpack";
+
+    private final String authority;
+    private final List<String> addresses;
+    private final Executor executor;
+
+    public StaticNameResolverFactory(String authority, List<String> addresses, Executor executor) {
+        this.authority = authority;
+        this.addresses = addresses;
+        this.executor = executor;
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, Attributes params) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        return new NameResolver() {
+            @Override
+            public String getServiceAuthority() {
+                return authority;
+            }
+
+            @Override
+            public void start(Listener listener) {
+                // constructing the socket addresses may perform a DNS lookup
+                executor.execute(() -> {
+                    List<EquivalentAddressGroup> groups;
+                    try {
+                        groups = Addresses.parse(addresses);
+                    } catch (Exception e) {
+                        listener.onError(Status.UNAVAILABLE.withDescription("invalid addresses for " + authority).withCause(e));
+                        return;
+                    }
+                    if (groups.isEmpty()) {
+                        listener.onError(Status.UNAVAILABLE.withDescription("no addresses configured for " + authority));
+                    } else {
+                        listener.onAddresses(groups, Attributes.EMPTY);
+                    }
+                });
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+}
@@ -0,0 +1,113 @@
+package ratpack.grpc.connection;
+
+import ratpack.api.Nullable;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live statistics of one client connection to the gRPC server.
+ */
+public class Connection {
+
+    @Nullable
+    private final SocketAddress remoteAddress;
+    private final Instant openedAt = Instant.now();
+    private final long openedNanos = System.nanoTime();
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final LongAdder totalStreams = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder flowControlStalls = new LongAdder();
+
+    Connection(@Nullable SocketAddress remoteAddress) {
+        this.remoteAddress = remoteAddress;
+    }
+
+    @Nullable
+    public SocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public Instant getOpenedAt() {
+        return openedAt;
+    }
+
+    public Duration getAge() {
+        return Duration.ofNanos(System.nanoTime() - openedNanos);
+    }
+
+    /**
+     * The number of calls currently open on this connection.
+     *
+     * @return the number of active streams
+     */
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    public long getTotalStreams() {
+        return totalStreams.sum();
+    }
+
+    /**
+     * The bytes of messages received on this connection, as sent on the wire.
+     *
+     * @return the bytes received
+     */
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    /**
+     * The bytes of messages sent on this connection, as sent on the wire.
+     *
+     * @return the bytes sent
+     */
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * The number of messages sent while their call was not ready.
+     * <p>
+     * A call stops being ready when its outbound buffer fills up, which happens when the client's flow control window
+     * is exhausted because it does not read fast enough. Such messages queue on the server until the window opens again.
+     *
+     * @return the number of messages sent behind a full flow control window
+     */
+    public long getFlowControlStalls() {
+        return flowControlStalls.sum();
+    }
+
+    void streamStarted() {
+        activeStreams.incrementAndGet();
+        totalStreams.increment();
+    }
+
+    void streamClosed() {
+        activeStreams.decrementAndGet();
+    }
+
+    void inbound(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    void outbound(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    void flowControlStall() {
+        flowControlStalls.increment();
+    }
+
+    @Override
+    public String toString() {
+        return remoteAddress + " age=" + getAge() + " activeStreams=" + getActiveStreams() + " totalStreams=" + getTotalStreams()
+                + " in=" + getBytesIn() + " out=" + getBytesOut() + " flowControlStalls=" + getFlowControlStalls();
+    }
+
+}
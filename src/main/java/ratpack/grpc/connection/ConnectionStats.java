@@ -0,0 +1,227 @@
+package ratpack.grpc.connection;
+
+import io.grpc.Attributes;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerStreamTracer;
+import io.grpc.ServerTransportFilter;
+import io.grpc.Status;
+import ratpack.api.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the client connections to the gRPC server, available from the server registry.
+ * <p>
+ * A transport filter tracks each connection, and a stream tracer and interceptor attribute each call's streams,
+ * bytes and flow control stalls to its connection. Use it to find a connection with far more streams than the others,
+ * or one whose client does not read its responses.
+ * <pre>
+ * registry.get(ConnectionStats.class).getConnections(Comparator.comparing(Connection::getActiveStreams).reversed())
+ * </pre>
+ */
+public class ConnectionStats {
+
+    private static final Attributes.Key<Connection> CONNECTION = Attributes.Key.create("ratpack-grpc-connection");
+
+    private final boolean enabled;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+    @Nullable
+    private final Duration maxConnectionAge;
+
+    public ConnectionStats(boolean enabled) {
+        this(enabled, null);
+    }
+
+    /**
+     * Creates connection statistics that also count the connections recycled at the given maximum age.
+     *
+     * @param enabled whether to collect statistics
+     * @param maxConnectionAge the server's {@link KeepAliveConfig#maxConnectionAge(Duration) maximum connection age}, if any,
+     * used by {@link #transportFilter()}
+     */
+    public ConnectionStats(boolean enabled, @Nullable Duration maxConnectionAge) {
+        this.enabled = enabled;
+        this.maxConnectionAge = maxConnectionAge;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The open connections.
+     *
+     * @return a snapshot of the open connections
+     */
+    public List<Connection> getConnections() {
+        return new ArrayList<>(connections);
+    }
+
+    /**
+     * The open connections, ordered by the given comparator.
+     *
+     * @param order the order of the connections
+     * @return a sorted snapshot of the open connections
+     */
+    public List<Connection> getConnections(Comparator<? super Connection> order) {
+        List<Connection> sorted = getConnections();
+        sorted.sort(order);
+        return sorted;
+    }
+
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    public long getClosed() {
+        return closed.sum();
+    }
+
+    /**
+     * The number of connections closed once they reached the maximum connection age, so their clients reconnected.
+     * <p>
+     * gRPC does not report why a connection closed, so this is an estimate: a connection counts as recycled when it closes
+     * after living at least 90% of the maximum age, the shortest age gRPC recycles connections at. Connections the client
+     * closes itself that late count too.
+     * Like the other statistics, recycled connections are only counted when connection statistics are {@link #isEnabled() enabled}.
+     * The count covers every server sharing these statistics, e.g. named servers, each judged by the maximum age given to
+     * its {@link #transportFilter(Duration) transport filter}, so servers without one never count as recycling.
+     *
+     * @return the number of recycled connections
+     * @see KeepAliveConfig#maxConnectionAge(Duration)
+     */
+    public long getRecycled() {
+        return recycled.sum();
+    }
+
+    /**
+     * The connection a call was made on.
+     *
+     * @param callAttributes the attributes of a server call
+     * @return the connection, or {@code null} if connection stats are disabled
+     */
+    @Nullable
+    public static Connection connection(Attributes callAttributes) {
+        return callAttributes.get(CONNECTION);
+    }
+
+    public ServerTransportFilter transportFilter() {
+        return transportFilter(maxConnectionAge);
+    }
+
+    /**
+     * Tracks the connections of a server with the given maximum connection age.
+     *
+     * @param maxConnectionAge the server's {@link KeepAliveConfig#maxConnectionAge(Duration) maximum connection age}, if any
+     * @return the transport filter
+     */
+    public ServerTransportFilter transportFilter(@Nullable Duration maxConnectionAge) {
+        // gRPC shortens the maximum age of a connection by up to 10%
+        long recycledAgeNanos = maxConnectionAge == null ? Long.MAX_VALUE : maxConnectionAge.toNanos() / 10 * 9;
+        return new ServerTransportFilter() {
+            @Override
+            public Attributes transportReady(Attributes transportAttrs) {
+                Connection connection = new Connection(transportAttrs.get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR));
+                connections.add(connection);
+                opened.increment();
+                return transportAttrs.toBuilder().set(CONNECTION, connection).build();
+            }
+
+            @Override
+            public void transportTerminated(Attributes transportAttrs) {
+                Connection connection = transportAttrs.get(CONNECTION);
+                // transports that fail before becoming ready are never tracked
+                if (connection != null && connections.remove(connection)) {
+                    closed.increment();
+                    if (connection.getAge().toNanos() >= recycledAgeNanos) {
+                        recycled.increment();
+                    }
+                }
+            }
+        };
+    }
+
+    public ServerStreamTracer.Factory streamTracerFactory() {
+        return new ServerStreamTracer.Factory() {
+            @Override
+            public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+                return new StreamTracer();
+            }
+        };
+    }
+
+    public ServerInterceptor serverInterceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                Connection connection = call.getAttributes().get(CONNECTION);
+                if (connection == null) {
+                    return next.startCall(call, headers);
+                }
+                return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+                    @Override
+                    public void sendMessage(RespT message) {
+                        if (!isReady()) {
+                            connection.flowControlStall();
+                        }
+                        super.sendMessage(message);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    private static class StreamTracer extends ServerStreamTracer {
+
+        @Nullable
+        private volatile Connection connection;
+
+        @Override
+        public void serverCallStarted(ServerCallInfo<?, ?> callInfo) {
+            Connection started = callInfo.getAttributes().get(CONNECTION);
+            if (started != null) {
+                started.streamStarted();
+                connection = started;
+            }
+        }
+
+        @Override
+        public void inboundWireSize(long bytes) {
+            Connection current = connection;
+            if (current != null) {
+                current.inbound(bytes);
+            }
+        }
+
+        @Override
+        public void outboundWireSize(long bytes) {
+            Connection current = connection;
+            if (current != null) {
+                current.outbound(bytes);
+            }
+        }
+
+        @Override
+        public void streamClosed(Status status) {
+            Connection current = connection;
+            if (current != null) {
+                current.streamClosed();
+            }
+        }
+    }
+
+}
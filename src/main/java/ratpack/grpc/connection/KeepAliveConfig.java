@@ -0,0 +1,129 @@
+package ratpack.grpc.connection;
+
+import ratpack.api.Nullable;
+
+import java.time.Duration;
+
+/**
+ * Keepalive pings and connection lifetimes of the gRPC server. The defaults are gRPC's own.
+ */
+public class KeepAliveConfig {
+
+    private Duration time = Duration.ofHours(2);
+    private Duration timeout = Duration.ofSeconds(20);
+    private Duration permitTime = Duration.ofMinutes(5);
+    private boolean permitWithoutCalls;
+    @Nullable
+    private Duration maxConnectionAge;
+    @Nullable
+    private Duration maxConnectionAgeGrace;
+
+    public Duration getTime() {
+        return time;
+    }
+
+    /**
+     * How long a connection may go without receiving anything before the server pings it.
+     * <p>
+     * A ping that is not acknowledged within the {@link #timeout(Duration) timeout} closes the connection, so that half-open
+     * connections, e.g. to clients behind a NAT that dropped them, do not hold on to their calls.
+     *
+     * @param time the idle time before pinging
+     * @return this
+     */
+    public KeepAliveConfig time(Duration time) {
+        this.time = positive("time", time);
+        return this;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public KeepAliveConfig timeout(Duration timeout) {
+        this.timeout = positive("timeout", timeout);
+        return this;
+    }
+
+    public Duration getPermitTime() {
+        return permitTime;
+    }
+
+    /**
+     * The shortest interval at which clients may ping the server. Clients that ping more often are sent {@code GOAWAY}.
+     *
+     * @param permitTime the minimum interval between client pings
+     * @return this
+     */
+    public KeepAliveConfig permitTime(Duration permitTime) {
+        if (permitTime.isNegative()) {
+            throw new IllegalArgumentException("permitTime must not be negative");
+        }
+        this.permitTime = permitTime;
+        return this;
+    }
+
+    public boolean isPermitWithoutCalls() {
+        return permitWithoutCalls;
+    }
+
+    /**
+     * Whether clients may ping connections that have no open calls.
+     *
+     * @param permitWithoutCalls whether to allow pings without calls
+     * @return this
+     */
+    public KeepAliveConfig permitWithoutCalls(boolean permitWithoutCalls) {
+        this.permitWithoutCalls = permitWithoutCalls;
+        return this;
+    }
+
+    @Nullable
+    public Duration getMaxConnectionAge() {
+        return maxConnectionAge;
+    }
+
+    /**
+     * How long a connection is kept before the server asks its client to reconnect, with {@code GOAWAY}.
+     * <p>
+     * Long lived connections stay pinned to the servers that were up when they were made, so servers started later, e.g. by
+     * scaling out, get no load from them. Recycling connections lets clients rebalance. gRPC varies the age of each connection
+     * by up to 10% either way, so that connections made together are not all recycled together.
+     * With {@link ratpack.grpc.GrpcConfig#connectionStats(boolean) connection statistics} enabled, recycled connections are counted by {@link ConnectionStats#getRecycled()}.
+     *
+     * @param maxConnectionAge the maximum connection age, at least a second, or {@code null} to keep connections indefinitely
+     * @return this
+     */
+    public KeepAliveConfig maxConnectionAge(@Nullable Duration maxConnectionAge) {
+        this.maxConnectionAge = maxConnectionAge == null ? null : positive("maxConnectionAge", maxConnectionAge);
+        return this;
+    }
+
+    @Nullable
+    public Duration getMaxConnectionAgeGrace() {
+        return maxConnectionAgeGrace;
+    }
+
+    /**
+     * How long calls on a connection past its {@link #maxConnectionAge(Duration) maximum age} may take to complete before
+     * the connection is closed anyway.
+     *
+     * @param maxConnectionAgeGrace the grace period, or {@code null} to wait for calls indefinitely
+     * @return this
+     */
+    public KeepAliveConfig maxConnectionAgeGrace(@Nullable Duration maxConnectionAgeGrace) {
+        if (maxConnectionAgeGrace != null && maxConnectionAgeGrace.isNegative()) {
+            throw new IllegalArgumentException("maxConnectionAgeGrace must not be negative");
+        }
+        this.maxConnectionAgeGrace = maxConnectionAgeGrace;
+        return this;
+    }
+
+    private static Duration positive(String name, Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return duration;
+    }
+
+}
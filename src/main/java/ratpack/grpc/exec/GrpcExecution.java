@@ -0,0 +1,141 @@
+package ratpack.grpc.exec;
+
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
+import ratpack.exec.ExecInterceptor;
+import ratpack.exec.Execution;
+import ratpack.exec.Promise;
+import ratpack.func.Action;
+import ratpack.func.Block;
+import ratpack.func.Factory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts Ratpack executions from gRPC calls, carrying the call's {@link Context} with them.
+ * <p>
+ * The gRPC context of the calling thread is attached during every segment of the execution, so that
+ * {@link Context#current()} works in promise callbacks regardless of which thread they run on.
+ * The context is also added to the execution registry, along with any {@link #expose(Class, Context.Key) exposed} context values.
+ * <p>
+ * Executions are forked from the current thread, so the server must be using the Ratpack event loop and executor.
+ */
+public final class GrpcExecution {
+
+    private static final Map<Class<?>, Context.Key<?>> EXPOSED = new ConcurrentHashMap<>();
+    private static final Set<Context.Key<? extends ExecInterceptor>> INTERCEPTORS = ConcurrentHashMap.newKeySet();
+
+    private GrpcExecution() {
+    }
+
+    /**
+     * Adds the value of the given context key, when present, to the registry of executions started from gRPC calls.
+     *
+     * @param type the type to register the value as
+     * @param key the context key holding the value
+     * @param <T> the type of value
+     */
+    public static <T> void expose(Class<T> type, Context.Key<T> key) {
+        EXPOSED.put(type, key);
+    }
+
+    /**
+     * Intercepts every segment of executions started from gRPC calls with the interceptor held by the given context key, when present.
+     *
+     * @param key the context key holding the interceptor
+     */
+    public static void intercept(Context.Key<? extends ExecInterceptor> key) {
+        INTERCEPTORS.add(key);
+    }
+
+    /**
+     * Starts an execution that carries the current gRPC context.
+     *
+     * @param action the execution's initial segment
+     */
+    public static void start(Action<? super Execution> action) {
+        Context context = Context.current();
+        List<ExecInterceptor> interceptors = new ArrayList<>(INTERCEPTORS.size());
+        for (Context.Key<? extends ExecInterceptor> key : INTERCEPTORS) {
+            ExecInterceptor interceptor = key.get(context);
+            if (interceptor != null) {
+                interceptors.add(interceptor);
+            }
+        }
+
+        Execution.fork()
+                .register(registry -> {
+                    registry.add(Context.class, context);
+                    EXPOSED.forEach((type, key) -> {
+                        Object value = key.get(context);
+                        if (value != null) {
+                            registry.add(GrpcExecution.<Object>type(type), value);
+                        }
+                    });
+                })
+                .start(execution ->
+                        execution.addInterceptor(new ContextInterceptor(context, interceptors), () -> action.execute(execution))
+                );
+    }
+
+    /**
+     * Starts an execution that carries the current gRPC context, and completes the call with the value of the given promise.
+     * <pre>{@code
+     * public void sayHello(HelloRequest request, StreamObserver<HelloReply> responseObserver) {
+     *     GrpcExecution.respond(responseObserver, () -> greetings.greet(request.getName()));
+     * }
+     * }</pre>
+     *
+     * @param observer the response observer of the call
+     * @param promise provides the promise of the response, called within the execution
+     * @param <T> the response type
+     */
+    public static <T> void respond(StreamObserver<? super T> observer, Factory<? extends Promise<T>> promise) {
+        start(execution -> promise.create()
+                .onError(observer::onError)
+                .then(value -> {
+                    observer.onNext(value);
+                    observer.onCompleted();
+                })
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> type(Class<?> type) {
+        return (Class<T>) type;
+    }
+
+    private static class ContextInterceptor implements ExecInterceptor {
+
+        private final Context context;
+        private final List<ExecInterceptor> interceptors;
+
+        private ContextInterceptor(Context context, List<ExecInterceptor> interceptors) {
+            this.context = context;
+            this.interceptors = interceptors;
+        }
+
+        @Override
+        public void intercept(Execution execution, ExecType execType, Block continuation) throws Exception {
+            Context previous = context.attach();
+            try {
+                intercept(execution, execType, continuation, 0);
+            } finally {
+                context.detach(previous);
+            }
+        }
+
+        private void intercept(Execution execution, ExecType execType, Block continuation, int index) throws Exception {
+            if (index == interceptors.size()) {
+                continuation.execute();
+            } else {
+                interceptors.get(index).intercept(execution, execType, () -> intercept(execution, execType, continuation, index + 1));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+package ratpack.grpc.file;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import ratpack.api.Nullable;
+import ratpack.file.FileSystemBinding;
+import ratpack.func.Function;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams a file, or a byte range of one, as the chunked messages of a server streaming response.
+ * <pre>{@code
+ * public void download(DownloadRequest request, StreamObserver<Chunk> responseObserver) {
+ *     FileStream.of(fileSystemBinding, request.getPath())
+ *         .range(request.getOffset(), request.getLength())
+ *         .executor(ExecController.require().getBlockingExecutor())
+ *         .send(data -> Chunk.newBuilder().setData(data).build(), responseObserver);
+ * }
+ * }</pre>
+ * Chunks are read with a {@link FileChannel} into one pooled direct buffer per call, or taken from memory mapped regions of
+ * the file, and wrapped as {@link ByteString}s without copying them onto the heap. Chunks are only read while the call
+ * {@link ServerCallStreamObserver#isReady() is ready}, so a slow client holds one chunk in memory rather than the whole file.
+ * <p>
+ * Because the buffer is reused, the {@code ByteString} given to the message function is only valid until the message is sent,
+ * and must not be retained. The Netty transport serializes each message as it is sent; the in-process transport does not,
+ * and needs {@link #mapped(boolean) mapped} chunks.
+ */
+public class FileStream {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    // mapped regions are limited so that large files do not need a single huge mapping
+    private static final long MAX_MAPPED_REGION = 64L * 1024 * 1024;
+
+    @Nullable
+    private final Path file;
+    private long offset;
+    private long length = -1;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean mapped;
+    private Executor executor = MoreExecutors.directExecutor();
+
+    private FileStream(@Nullable Path file) {
+        this.file = file;
+    }
+
+    public static FileStream of(Path file) {
+        return new FileStream(file);
+    }
+
+    /**
+     * Streams a file of a file system binding, such as the base dir of the Ratpack server.
+     * The call fails with {@code NOT_FOUND} if the path is outside of the binding.
+     *
+     * @param binding the file system binding
+     * @param path the path relative to the binding
+     * @return a file stream
+     */
+    public static FileStream of(FileSystemBinding binding, String path) {
+        return new FileStream(binding.file(path));
+    }
+
+    /**
+     * Streams only part of the file.
+     *
+     * @param offset the position of the first byte to send
+     * @param length the number of bytes to send, or a negative number for the rest of the file
+     * @return this
+     */
+    public FileStream range(long offset, long length) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    public FileStream chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Whether to send chunks from memory mapped regions of the file instead of reading them into a buffer.
+     * Mapping avoids a read per chunk, and suits large files that are read often.
+     *
+     * @param mapped whether to memory map the file
+     * @return this
+     */
+    public FileStream mapped(boolean mapped) {
+        this.mapped = mapped;
+        return this;
+    }
+
+    /**
+     * The executor that chunks are read on. Defaults to the thread that the call becomes ready on.
+     * <p>
+     * Reads from the page cache are fast, but a file that is not cached blocks the reading thread on the disk;
+     * use the Ratpack blocking executor for such files.
+     *
+     * @param executor the executor to read on
+     * @return this
+     */
+    public FileStream executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sends the file as messages to the response observer of a server streaming call, and completes the call.
+     *
+     * @param message creates a message from each chunk
+     * @param responseObserver the response observer of the call
+     * @param <T> the message type
+     */
+    public <T> void send(Function<? super ByteString, ? extends T> message, StreamObserver<T> responseObserver) {
+        ServerCallStreamObserver<T> observer = (ServerCallStreamObserver<T>) responseObserver;
+        if (file == null) {
+            observer.onError(Status.NOT_FOUND.withDescription("file is outside of the file system binding").asRuntimeException());
+            return;
+        }
+
+        FileChannel channel;
+        long size;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+        } catch (NoSuchFileException e) {
+            observer.onError(Status.NOT_FOUND.withDescription(file.getFileName() + " does not exist").asRuntimeException());
+            return;
+        } catch (IOException e) {
+            observer.onError(Status.INTERNAL.withDescription("failed to open " + file.getFileName()).withCause(e).asRuntimeException());
+            return;
+        }
+
+        long end = length < 0 ? size : offset + length;
+        if (offset > size || end > size) {
+            close(channel);
+            observer.onError(Status.OUT_OF_RANGE.withDescription("range " + offset + "-" + end + " is outside of the file size " + size).asRuntimeException());
+            return;
+        }
+
+        Sender<T> sender = new Sender<>(channel, end, message, observer);
+        observer.setOnCancelHandler(sender::cancel);
+        observer.setOnReadyHandler(sender::drain);
+        sender.drain();
+    }
+
+    private static void close(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing was written
+        }
+    }
+
+    private class Sender<T> {
+
+        private final FileChannel channel;
+        private final long end;
+        private final Function<? super ByteString, ? extends T> message;
+        private final ServerCallStreamObserver<T> observer;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private long position = offset;
+        private volatile boolean cancelled;
+        private boolean done;
+
+        @Nullable
+        private ByteBuf buffer;
+        @Nullable
+        private MappedByteBuffer region;
+        private long regionStart;
+
+        private Sender(FileChannel channel, long end, Function<? super ByteString, ? extends T> message, ServerCallStreamObserver<T> observer) {
+            this.channel = channel;
+            this.end = end;
+            this.message = message;
+            this.observer = observer;
+        }
+
+        void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::send);
+            }
+        }
+
+        // only ever runs on one thread at a time
+        private void send() {
+            do {
+                if (done) {
+                    continue;
+                }
+                try {
+                    while (!cancelled && position < end && observer.isReady()) {
+                        int chunk = (int) Math.min(chunkSize, end - position);
+                        ByteString data = mapped ? mappedChunk(chunk) : readChunk(chunk);
+                        position += data.size();
+                        observer.onNext(message.apply(data));
+                    }
+                    if (cancelled) {
+                        finish();
+                    } else if (position >= end) {
+                        finish();
+                        observer.onCompleted();
+                    }
+                } catch (Exception e) {
+                    finish();
+                    observer.onError(Status.INTERNAL.withDescription("failed to read " + file.getFileName()).withCause(e).asRuntimeException());
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private ByteString readChunk(int chunk) throws IOException {
+            if (buffer == null) {
+                buffer = PooledByteBufAllocator.DEFAULT.directBuffer(chunkSize, chunkSize);
+            }
+            ByteBuffer target = buffer.nioBuffer(0, chunk);
+            while (target.hasRemaining()) {
+                if (channel.read(target, position + target.position()) < 0) {
+                    throw new IOException("file was truncated while streaming");
+                }
+            }
+            target.flip();
+            return UnsafeByteOperations.unsafeWrap(target);
+        }
+
+        private ByteString mappedChunk(int chunk) throws IOException {
+            if (region == null || position + chunk > regionStart + region.capacity()) {
+                regionStart = position;
+                region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPED_REGION, end - position));
+            }
+            ByteBuffer slice = region.duplicate();
+            slice.position((int) (position - regionStart)).limit((int) (position - regionStart) + chunk);
+            return UnsafeByteOperations.unsafeWrap(slice.slice());
+        }
+
+        private void finish() {
+            done = true;
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+            region = null;
+            close(channel);
+        }
+    }
+
+}
@@ -0,0 +1,350 @@
+package ratpack.grpc.file;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.exec.ExecController;
+import ratpack.file.FileSystemBinding;
+import ratpack.func.Function;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes the chunked messages of a client streaming call to a file, the counterpart of {@link FileStream}.
+ * <pre>{@code
+ * public StreamObserver<Chunk> upload(StreamObserver<UploadReply> responseObserver) {
+ *     return FileUpload.to(fileSystemBinding, "uploads/" + UUID.randomUUID())
+ *         .checksum("SHA-256")
+ *         .receive(Chunk::getData, result -> UploadReply.newBuilder().setSha256(result.getChecksum()).build(), responseObserver);
+ * }
+ * }</pre>
+ * Chunks are written with an {@link AsynchronousFileChannel}. Automatic inbound flow control is disabled, and another message
+ * is only requested from the client once a chunk has been written, so at most {@link #maxInFlight(int) maxInFlight} chunks are
+ * held in memory however fast the client sends. The optional checksum is computed as chunks arrive.
+ * <p>
+ * The response is sent once the client completes and every chunk is written. If the call fails or is cancelled, the partial
+ * file is deleted.
+ */
+public class FileUpload {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileUpload.class);
+
+    @Nullable
+    private final Path file;
+    private int maxInFlight = 4;
+    private long maxSize = -1;
+    @Nullable
+    private String checksum;
+    private boolean sync;
+    @Nullable
+    private Executor syncExecutor;
+
+    private FileUpload(@Nullable Path file) {
+        this.file = file;
+    }
+
+    public static FileUpload to(Path file) {
+        return new FileUpload(file);
+    }
+
+    /**
+     * Writes to a file of a file system binding, such as the base dir of the Ratpack server.
+     * The call fails with {@code INVALID_ARGUMENT} if the path is outside of the binding.
+     *
+     * @param binding the file system binding
+     * @param path the path relative to the binding
+     * @return a file upload
+     */
+    public static FileUpload to(FileSystemBinding binding, String path) {
+        return new FileUpload(binding.file(path));
+    }
+
+    /**
+     * The number of chunks that may be received but not yet written.
+     *
+     * @param maxInFlight the maximum number of chunks in memory
+     * @return this
+     */
+    public FileUpload maxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * The largest file accepted, beyond which the call fails with {@code RESOURCE_EXHAUSTED}. Negative for no limit.
+     *
+     * @param maxSize the maximum size in bytes
+     * @return this
+     */
+    public FileUpload maxSize(long maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Computes a checksum of the file while it is written.
+     *
+     * @param algorithm a {@link MessageDigest} algorithm, e.g. {@code SHA-256}
+     * @return this
+     */
+    public FileUpload checksum(String algorithm) {
+        try {
+            MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("unknown checksum algorithm " + algorithm, e);
+        }
+        this.checksum = algorithm;
+        return this;
+    }
+
+    /**
+     * Whether to flush the file to the storage device before responding.
+     * <p>
+     * Syncing blocks until the device has the data, so it runs on the {@link #syncExecutor(Executor) sync executor}, and the
+     * response is sent from there.
+     *
+     * @param sync whether to sync the file
+     * @return this
+     */
+    public FileUpload sync(boolean sync) {
+        this.sync = sync;
+        return this;
+    }
+
+    /**
+     * The executor that the file is synced and closed on when {@link #sync(boolean) syncing}.
+     * Defaults to the Ratpack blocking executor when receiving on a Ratpack thread, otherwise the thread that writes the last chunk.
+     *
+     * @param syncExecutor the executor to sync on
+     * @return this
+     */
+    public FileUpload syncExecutor(Executor syncExecutor) {
+        this.syncExecutor = syncExecutor;
+        return this;
+    }
+
+    /**
+     * Receives the file, and responds with a message created from the result once it is written.
+     *
+     * @param data extracts the chunk from each message
+     * @param response creates the response message from the result
+     * @param responseObserver the response observer of the call
+     * @param <Req> the request message type
+     * @param <Resp> the response message type
+     * @return the request observer to return from the service method
+     */
+    public <Req, Resp> StreamObserver<Req> receive(Function<? super Req, ByteString> data,
+                                                   Function<? super UploadResult, ? extends Resp> response,
+                                                   StreamObserver<Resp> responseObserver) {
+        ServerCallStreamObserver<Resp> observer = (ServerCallStreamObserver<Resp>) responseObserver;
+        observer.disableAutoInboundFlowControl();
+        if (file == null) {
+            observer.onError(Status.INVALID_ARGUMENT.withDescription("file is outside of the file system binding").asRuntimeException());
+            return new Discard<>();
+        }
+
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            observer.onError(Status.INTERNAL.withDescription("failed to open " + file.getFileName()).withCause(e).asRuntimeException());
+            return new Discard<>();
+        }
+
+        Executor completion = MoreExecutors.directExecutor();
+        if (sync) {
+            completion = syncExecutor != null ? syncExecutor
+                    : ExecController.current().<Executor>map(ExecController::getBlockingExecutor).orElse(MoreExecutors.directExecutor());
+        }
+        Receiver<Req, Resp> receiver = new Receiver<>(file, channel, completion, data, response, observer);
+        observer.request(maxInFlight);
+        return receiver;
+    }
+
+    private class Receiver<Req, Resp> implements StreamObserver<Req> {
+
+        private final Path file;
+        private final AsynchronousFileChannel channel;
+        private final Executor completion;
+        private final Function<? super Req, ByteString> data;
+        private final Function<? super UploadResult, ? extends Resp> response;
+        private final ServerCallStreamObserver<Resp> observer;
+        @Nullable
+        private final MessageDigest digest;
+
+        // guarded by this
+        private long position;
+        private int pending;
+        private boolean halfClosed;
+        private boolean done;
+
+        private Receiver(Path file, AsynchronousFileChannel channel, Executor completion, Function<? super Req, ByteString> data,
+                         Function<? super UploadResult, ? extends Resp> response, ServerCallStreamObserver<Resp> observer) {
+            this.file = file;
+            this.channel = channel;
+            this.completion = completion;
+            this.data = data;
+            this.response = response;
+            this.observer = observer;
+            this.digest = checksum == null ? null : newDigest(checksum);
+        }
+
+        @Override
+        public synchronized void onNext(Req message) {
+            if (done) {
+                return;
+            }
+            ByteString chunk;
+            try {
+                chunk = data.apply(message);
+            } catch (Exception e) {
+                fail(Status.INTERNAL.withDescription("failed to read chunk").withCause(e));
+                return;
+            }
+            if (maxSize >= 0 && position + chunk.size() > maxSize) {
+                fail(Status.RESOURCE_EXHAUSTED.withDescription("upload exceeds " + maxSize + " bytes"));
+                return;
+            }
+            if (digest != null) {
+                digest.update(chunk.asReadOnlyByteBuffer());
+            }
+            long at = position;
+            position += chunk.size();
+            pending++;
+            write(chunk.asReadOnlyByteBuffer(), at);
+        }
+
+        private void write(ByteBuffer buffer, long at) {
+            channel.write(buffer, at, null, new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer written, Void attachment) {
+                    if (buffer.hasRemaining()) {
+                        write(buffer, at + written);
+                    } else {
+                        written();
+                    }
+                }
+
+                @Override
+                public void failed(Throwable e, Void attachment) {
+                    synchronized (Receiver.this) {
+                        fail(Status.INTERNAL.withDescription("failed to write " + file.getFileName()).withCause(e));
+                    }
+                }
+            });
+        }
+
+        private synchronized void written() {
+            pending--;
+            if (done) {
+                return;
+            }
+            if (halfClosed && pending == 0) {
+                complete();
+            } else {
+                observer.request(1);
+            }
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            halfClosed = true;
+            if (!done && pending == 0) {
+                complete();
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            // the client cancelled, there is nobody to respond to
+            if (!done) {
+                done = true;
+                abandon();
+            }
+        }
+
+        private void complete() {
+            done = true;
+            UploadResult result = new UploadResult(file, position, digest == null ? null : BaseEncoding.base16().lowerCase().encode(digest.digest()));
+            // nothing else touches the channel or the call once done, so finishing needs no lock
+            completion.execute(() -> finish(result));
+        }
+
+        private void finish(UploadResult result) {
+            Resp reply;
+            try {
+                if (sync) {
+                    channel.force(true);
+                }
+                channel.close();
+                reply = response.apply(result);
+            } catch (Exception e) {
+                abandon();
+                observer.onError(Status.INTERNAL.withDescription("failed to complete " + file.getFileName()).withCause(e).asRuntimeException());
+                return;
+            }
+            observer.onNext(reply);
+            observer.onCompleted();
+        }
+
+        private void fail(Status status) {
+            if (done) {
+                return;
+            }
+            done = true;
+            abandon();
+            observer.onError(status.asRuntimeException());
+        }
+
+        private void abandon() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("failed to delete partial upload " + file, e);
+            }
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Discard<T> implements StreamObserver<T> {
+
+        @Override
+        public void onNext(T value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package ratpack.grpc.file;
+
+import ratpack.api.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * A file received by a {@link FileUpload}.
+ */
+public class UploadResult {
+
+    private final Path file;
+    private final long size;
+    @Nullable
+    private final String checksum;
+
+    UploadResult(Path file, long size, @Nullable String checksum) {
+        this.file = file;
+        this.size = size;
+        this.checksum = checksum;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * The lowercase hex digest of the file, if a {@link FileUpload#checksum(String) checksum} was requested.
+     *
+     * @return the checksum, or {@code null}
+     */
+    @Nullable
+    public String getChecksum() {
+        return checksum;
+    }
+
+}
@@ -0,0 +1,92 @@
+package ratpack.grpc.lane;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A priority lane, and its queue of calls waiting to be dispatched.
+ */
+public class Lane {
+
+    private final String name;
+    private volatile int weight;
+    private final LongAdder dispatched = new LongAdder();
+    private final Histogram waitMicros = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 2);
+
+    // guarded by the PriorityLanes instance
+    final ArrayDeque<PriorityLanes.Task> queue = new ArrayDeque<>();
+    double pass;
+    private double stride;
+    private volatile int queueLength;
+
+    Lane(String name, int weight) {
+        this.name = name;
+        weight(weight);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * The number of calls waiting to be dispatched in this lane.
+     *
+     * @return the queue length
+     */
+    public int getQueueLength() {
+        return queueLength;
+    }
+
+    /**
+     * The number of call callbacks dispatched from this lane.
+     *
+     * @return the number of dispatches
+     */
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * How long callbacks waited in this lane before they were dispatched, in microseconds.
+     *
+     * @return a copy of the wait time histogram
+     */
+    public Histogram getWaitMicros() {
+        return waitMicros.copy();
+    }
+
+    void weight(int weight) {
+        this.weight = weight;
+        this.stride = 1d / weight;
+    }
+
+    void enqueued() {
+        queueLength = queue.size();
+    }
+
+    PriorityLanes.Task dequeue() {
+        PriorityLanes.Task task = queue.poll();
+        queueLength = queue.size();
+        pass += stride;
+        return task;
+    }
+
+    void dispatched(long waitNanos) {
+        dispatched.increment();
+        waitMicros.recordValue(Math.min(waitMicros.getHighestTrackableValue(), waitNanos / 1000));
+    }
+
+    @Override
+    public String toString() {
+        return name + " weight=" + weight + " queueLength=" + queueLength + " dispatched=" + getDispatched();
+    }
+
+}
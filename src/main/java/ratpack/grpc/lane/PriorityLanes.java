@@ -0,0 +1,343 @@
+package ratpack.grpc.lane;
+
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.exec.ExecController;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+
+/**
+ * Dispatches gRPC calls by priority lane, so that a burst of calls in one lane cannot take over the handler executor.
+ * <p>
+ * Every callback of a call, starting with the call itself, is queued in the call's lane. At most
+ * {@link PriorityLanesConfig#getConcurrency() concurrency} callbacks run on the Ratpack executor at once, and when calls are
+ * waiting in several lanes the next one is picked by weighted fair queuing: a lane with weight 4 is dispatched four times as
+ * often as a lane with weight 1. An idle lane does not bank credit while it is empty.
+ * <p>
+ * Callbacks of the same call still run one at a time and in order.
+ */
+public class PriorityLanes {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriorityLanes.class);
+
+    private final Executor executor;
+    private final int defaultConcurrency;
+    @Nullable
+    private final LongConsumer waitObserver;
+
+    // replaced as a whole on update, so calls never see a partial assignment
+    private volatile Assignment assignment;
+
+    // guarded by this
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    private int concurrency;
+    private int running;
+    private double virtualTime;
+
+    public PriorityLanes(ExecController execController, PriorityLanesConfig config) {
+        this(execController, config, null);
+    }
+
+    /**
+     * Creates lanes that report how long each callback waited in its lane.
+     *
+     * @param execController the Ratpack exec controller, whose executor callbacks are dispatched to
+     * @param config the lanes config
+     * @param waitObserver receives the wait of each dispatched callback in nanoseconds
+     */
+    public PriorityLanes(ExecController execController, PriorityLanesConfig config, @Nullable LongConsumer waitObserver) {
+        this(execController.getExecutor(), execController.getNumThreads(), config, waitObserver);
+    }
+
+    PriorityLanes(Executor executor, int defaultConcurrency, PriorityLanesConfig config, @Nullable LongConsumer waitObserver) {
+        this.executor = executor;
+        this.defaultConcurrency = defaultConcurrency;
+        this.waitObserver = waitObserver;
+        update(config);
+    }
+
+    /**
+     * Applies the lanes, method assignments and concurrency of the given config to the running lanes.
+     * <p>
+     * Lanes are reweighted in place, keeping their queued calls, and lanes that the config no longer has keep dispatching
+     * their queued calls but no longer receive new ones. Calls already started stay in their lane. The config is checked
+     * before anything changes, so an invalid config leaves the lanes as they were.
+     *
+     * @param config the new settings
+     */
+    public void update(PriorityLanesConfig config) {
+        synchronized (this) {
+            Map<String, Integer> weights = config.getLanes();
+            if (assignment != null && (assignment.defaultLane == null) != weights.isEmpty()) {
+                throw new IllegalArgumentException("priority lanes can not be turned on or off while running");
+            }
+            for (String lane : config.getMethods().values()) {
+                checkLane(weights, lane);
+            }
+            String defaultName = config.getDefaultLane();
+            if (defaultName != null) {
+                checkLane(weights, defaultName);
+            }
+
+            weights.forEach((name, weight) -> {
+                Lane lane = lanes.get(name);
+                if (lane == null) {
+                    lanes.put(name, new Lane(name, weight));
+                } else {
+                    lane.weight(weight);
+                }
+            });
+            Map<String, Lane> methods = new LinkedHashMap<>();
+            config.getMethods().forEach((method, lane) -> methods.put(method, lanes.get(lane)));
+            Lane defaultLane = defaultName != null ? lanes.get(defaultName) : weights.keySet().stream().findFirst().map(lanes::get).orElse(null);
+            assignment = new Assignment(methods, defaultLane);
+            concurrency = config.getConcurrency() == 0 ? defaultConcurrency : config.getConcurrency();
+        }
+        // a higher concurrency may let queued calls run
+        dispatch();
+    }
+
+    private static void checkLane(Map<String, Integer> weights, String name) {
+        if (!weights.containsKey(name)) {
+            throw new IllegalArgumentException("unknown priority lane: " + name);
+        }
+    }
+
+    public boolean isEnabled() {
+        return assignment.defaultLane != null;
+    }
+
+    public synchronized List<Lane> getLanes() {
+        return Collections.unmodifiableList(new ArrayList<>(lanes.values()));
+    }
+
+    /**
+     * The lane of calls to the given method.
+     *
+     * @param fullMethodName the full method name
+     * @return the lane
+     */
+    public Lane laneOf(String fullMethodName) {
+        Assignment assignment = this.assignment;
+        Lane lane = assignment.methods.get(fullMethodName);
+        if (lane == null) {
+            int slash = fullMethodName.lastIndexOf('/');
+            lane = slash < 0 ? null : assignment.methods.get(fullMethodName.substring(0, slash));
+        }
+        return lane == null ? assignment.defaultLane : lane;
+    }
+
+    /**
+     * The interceptor that queues calls in their lanes. It must be the first interceptor, and the server must use a direct
+     * executor, so that everything after it runs when the call is dispatched.
+     *
+     * @return the lane interceptor
+     */
+    public ServerInterceptor serverInterceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                CallExecutor callExecutor = new CallExecutor(laneOf(call.getMethodDescriptor().getFullMethodName()), call);
+                QueuedListener<ReqT> listener = new QueuedListener<>(callExecutor);
+                callExecutor.execute(() -> listener.delegate = next.startCall(call, headers));
+                return listener;
+            }
+        };
+    }
+
+    void submit(Lane lane, Runnable runnable) {
+        synchronized (this) {
+            if (lane.queue.isEmpty()) {
+                // a lane that was idle starts from the current virtual time instead of catching up
+                lane.pass = Math.max(lane.pass, virtualTime);
+            }
+            lane.queue.add(new Task(runnable, System.nanoTime()));
+            lane.enqueued();
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (true) {
+            Lane lane;
+            Task task;
+            synchronized (this) {
+                if (running >= concurrency) {
+                    return;
+                }
+                lane = next();
+                if (lane == null) {
+                    return;
+                }
+                virtualTime = lane.pass;
+                task = lane.dequeue();
+                running++;
+            }
+            long waitNanos = System.nanoTime() - task.enqueuedNanos;
+            lane.dispatched(waitNanos);
+            if (waitObserver != null) {
+                waitObserver.accept(waitNanos);
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.runnable.run();
+                    } finally {
+                        synchronized (this) {
+                            running--;
+                        }
+                        dispatch();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    running--;
+                }
+                logger.debug("priority lane dispatch rejected, the executor is shutting down", e);
+                return;
+            }
+        }
+    }
+
+    @Nullable
+    private Lane next() {
+        Lane next = null;
+        for (Lane lane : lanes.values()) {
+            if (!lane.queue.isEmpty() && (next == null || lane.pass < next.pass)) {
+                next = lane;
+            }
+        }
+        return next;
+    }
+
+    private static class Assignment {
+
+        private final Map<String, Lane> methods;
+        @Nullable
+        private final Lane defaultLane;
+
+        private Assignment(Map<String, Lane> methods, @Nullable Lane defaultLane) {
+            this.methods = methods;
+            this.defaultLane = defaultLane;
+        }
+    }
+
+    static class Task {
+
+        final Runnable runnable;
+        final long enqueuedNanos;
+
+        private Task(Runnable runnable, long enqueuedNanos) {
+            this.runnable = runnable;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * Runs the callbacks of one call in order, one lane dispatch per callback, with the call's gRPC context attached.
+     */
+    private class CallExecutor implements Executor, Runnable {
+
+        private final Lane lane;
+        private final ServerCall<?, ?> call;
+        private final Context context = Context.current();
+        private final Queue<Runnable> callbacks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private CallExecutor(Lane lane, ServerCall<?, ?> call) {
+            this.lane = lane;
+            this.call = call;
+        }
+
+        @Override
+        public void execute(Runnable callback) {
+            callbacks.add(callback);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                submit(lane, this);
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable callback = callbacks.poll();
+            Context previous = context.attach();
+            try {
+                if (callback != null) {
+                    callback.run();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("gRPC call " + call.getMethodDescriptor().getFullMethodName() + " failed", e);
+                try {
+                    call.close(Status.fromThrowable(e), new Metadata());
+                } catch (IllegalStateException ignored) {
+                    // already closed
+                }
+            } finally {
+                context.detach(previous);
+                scheduled.set(false);
+                if (!callbacks.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+
+    private static class QueuedListener<ReqT> extends ServerCall.Listener<ReqT> {
+
+        private final Executor executor;
+        // set by the first callback, and only read by later ones
+        private ServerCall.Listener<ReqT> delegate = new ServerCall.Listener<ReqT>() {
+        };
+
+        private QueuedListener(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            executor.execute(() -> delegate.onMessage(message));
+        }
+
+        @Override
+        public void onHalfClose() {
+            executor.execute(() -> delegate.onHalfClose());
+        }
+
+        @Override
+        public void onCancel() {
+            executor.execute(() -> delegate.onCancel());
+        }
+
+        @Override
+        public void onComplete() {
+            executor.execute(() -> delegate.onComplete());
+        }
+
+        @Override
+        public void onReady() {
+            executor.execute(() -> delegate.onReady());
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package ratpack.grpc.lane;
+
+import ratpack.api.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PriorityLanesConfig {
+
+    private Map<String, Integer> lanes = new LinkedHashMap<>();
+    private Map<String, String> methods = new LinkedHashMap<>();
+    @Nullable
+    private String defaultLane;
+    private int concurrency;
+
+    public Map<String, Integer> getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Adds a lane. When calls are queued in several lanes, each lane is dispatched in proportion to its weight.
+     *
+     * @param name the lane name, e.g. {@code interactive}
+     * @param weight the lane's share of dispatches
+     * @return this
+     */
+    public PriorityLanesConfig lane(String name, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("lane weight must be at least 1");
+        }
+        lanes.put(name, weight);
+        return this;
+    }
+
+    public Map<String, String> getMethods() {
+        return methods;
+    }
+
+    /**
+     * Assigns calls to a method, or to every method of a service, to a lane.
+     *
+     * @param method a full method name, e.g. {@code helloworld.Greeter/SayHello}, or a service name, e.g. {@code helloworld.Greeter}
+     * @param lane the lane name
+     * @return this
+     */
+    public PriorityLanesConfig method(String method, String lane) {
+        methods.put(method, lane);
+        return this;
+    }
+
+    /**
+     * The lane of calls to methods that are not assigned to a lane. Defaults to the first lane.
+     *
+     * @return the default lane name
+     */
+    @Nullable
+    public String getDefaultLane() {
+        return defaultLane;
+    }
+
+    public PriorityLanesConfig defaultLane(String defaultLane) {
+        this.defaultLane = defaultLane;
+        return this;
+    }
+
+    /**
+     * The number of call callbacks that may run at once, beyond which callbacks queue in their lane.
+     * Zero uses the number of Ratpack compute threads.
+     *
+     * @return the dispatch concurrency
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public PriorityLanesConfig concurrency(int concurrency) {
+        if (concurrency < 0) {
+            throw new IllegalArgumentException("concurrency must not be negative");
+        }
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public PriorityLanesConfig copy() {
+        PriorityLanesConfig copy = new PriorityLanesConfig();
+        copy.lanes = new LinkedHashMap<>(lanes);
+        copy.methods = new LinkedHashMap<>(methods);
+        copy.defaultLane = defaultLane;
+        copy.concurrency = concurrency;
+        return copy;
+    }
+
+}
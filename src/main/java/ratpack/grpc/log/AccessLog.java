@@ -0,0 +1,189 @@
+package ratpack.grpc.log;
+
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.service.Service;
+import ratpack.service.StartEvent;
+import ratpack.service.StopEvent;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logs one line per gRPC call, the gRPC equivalent of Ratpack's {@code RequestLogger}.
+ * <p>
+ * Each line has the method, peer, status, duration, and bytes received and sent:
+ * <pre>
+ * helloworld.Greeter/SayHello 127.0.0.1:52310 OK 0.412ms in=15 out=20
+ * </pre>
+ * Calls only record an entry into a preallocated lock free ring; lines are formatted and written to the logger by a
+ * background thread, so slow appenders never block the event loop. Entries are dropped when the ring is full.
+ */
+public class AccessLog implements Service {
+
+    private static final ServerStreamTracer NOOP = new ServerStreamTracer() {
+    };
+
+    private final AccessLogConfig config;
+    private final Logger logger;
+    private final AccessLogBuffer buffer;
+    private final StringBuilder line = new StringBuilder(128);
+    private volatile double sampleRate;
+    private volatile long slowCallThresholdNanos;
+
+    @Nullable
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public AccessLog(AccessLogConfig config) {
+        this.config = config;
+        this.logger = LoggerFactory.getLogger(config.getLoggerName());
+        this.buffer = new AccessLogBuffer(config.getBufferSize());
+        update(config);
+    }
+
+    /**
+     * Applies the sample rate and slow call threshold of the given config to calls that start from now on.
+     *
+     * @param config the new settings
+     */
+    public void update(AccessLogConfig config) {
+        this.sampleRate = config.getSampleRate();
+        this.slowCallThresholdNanos = config.getSlowCallThreshold().toNanos();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public ServerStreamTracer.Factory streamTracerFactory() {
+        return new ServerStreamTracer.Factory() {
+            @Override
+            public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+                double rate = sampleRate;
+                if (rate < 1 && (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+                    return NOOP;
+                }
+                return new CallTracer(fullMethodName);
+            }
+        };
+    }
+
+    /**
+     * The number of entries dropped because the writer thread could not keep up.
+     *
+     * @return the number of dropped entries
+     */
+    public long getDropped() {
+        return buffer.getDropped();
+    }
+
+    @Override
+    public void onStart(StartEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::write, "grpc-access-log");
+        thread.setDaemon(true);
+        thread.start();
+        writer = thread;
+    }
+
+    @Override
+    public void onStop(StopEvent event) throws Exception {
+        Thread thread = writer;
+        if (thread != null) {
+            running = false;
+            LockSupport.unpark(thread);
+            thread.join(1000);
+            writer = null;
+        }
+    }
+
+    private void write() {
+        while (running) {
+            if (buffer.drain(this::log) == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        buffer.drain(this::log);
+    }
+
+    private void log(AccessLogBuffer.Entry entry) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        line.setLength(0);
+        line.append(entry.method).append(' ');
+        appendPeer(entry.peer);
+        line.append(' ').append(entry.status)
+                .append(' ').append(entry.durationNanos / 1_000_000).append('.');
+        long fraction = (entry.durationNanos / 1000) % 1000;
+        if (fraction < 100) {
+            line.append('0');
+        }
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction).append("ms")
+                .append(" in=").append(entry.bytesIn)
+                .append(" out=").append(entry.bytesOut);
+        logger.info(line.toString());
+    }
+
+    private void appendPeer(@Nullable SocketAddress peer) {
+        if (peer instanceof InetSocketAddress) {
+            InetSocketAddress address = (InetSocketAddress) peer;
+            line.append(address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress())
+                    .append(':').append(address.getPort());
+        } else {
+            line.append(peer == null ? "-" : peer.toString());
+        }
+    }
+
+    private class CallTracer extends ServerStreamTracer {
+
+        private final String method;
+        private final long start = System.nanoTime();
+        private volatile SocketAddress peer;
+        private volatile long bytesIn;
+        private volatile long bytesOut;
+
+        private CallTracer(String method) {
+            this.method = method;
+        }
+
+        @Override
+        public void serverCallStarted(ServerCallInfo<?, ?> callInfo) {
+            peer = callInfo.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        }
+
+        @Override
+        public void inboundWireSize(long bytes) {
+            bytesIn += bytes;
+        }
+
+        @Override
+        public void outboundWireSize(long bytes) {
+            bytesOut += bytes;
+        }
+
+        @Override
+        public void streamClosed(Status status) {
+            long duration = System.nanoTime() - start;
+            if (duration >= slowCallThresholdNanos) {
+                buffer.offer(method, peer, status.getCode(), duration, bytesIn, bytesOut);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package ratpack.grpc.log;
+
+import io.grpc.Status;
+
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock free, multi producer single consumer ring of preallocated access log entries.
+ * <p>
+ * Producers claim a slot with a compare and set, fill in the preallocated entry and publish it.
+ * Nothing is allocated and nothing blocks on the producer side; when the ring is full the entry is dropped.
+ */
+class AccessLogBuffer {
+
+    static class Entry {
+        long timestampMillis;
+        String method;
+        SocketAddress peer;
+        Status.Code status;
+        long durationNanos;
+        long bytesIn;
+        long bytesOut;
+    }
+
+    private final Entry[] entries;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long tail;
+
+    AccessLogBuffer(int size) {
+        int capacity = Integer.highestOneBit(size - 1) << 1;
+        if (capacity <= 0) {
+            capacity = 1;
+        }
+        this.entries = new Entry[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+    }
+
+    boolean offer(String method, SocketAddress peer, Status.Code status, long durationNanos, long bytesIn, long bytesOut) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= entries.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        Entry entry = entries[index];
+        entry.timestampMillis = System.currentTimeMillis();
+        entry.method = method;
+        entry.peer = peer;
+        entry.status = status;
+        entry.durationNanos = durationNanos;
+        entry.bytesIn = bytesIn;
+        entry.bytesOut = bytesOut;
+        published.lazySet(index, sequence);
+        return true;
+    }
+
+    /**
+     * Hands every published entry to the consumer, in order. Must only be called from one thread.
+     *
+     * @param consumer receives each entry, which must not be retained
+     * @return the number of entries consumed
+     */
+    int drain(Consumer<Entry> consumer) {
+        int count = 0;
+        long sequence = tail;
+        while (true) {
+            int index = (int) sequence & mask;
+            if (published.get(index) != sequence) {
+                break;
+            }
+            Entry entry = entries[index];
+            consumer.accept(entry);
+            entry.method = null;
+            entry.peer = null;
+            tail = ++sequence;
+            count++;
+        }
+        return count;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+}
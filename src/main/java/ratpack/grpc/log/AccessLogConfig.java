@@ -0,0 +1,90 @@
+package ratpack.grpc.log;
+
+import java.time.Duration;
+
+public class AccessLogConfig {
+
+    private boolean enabled;
+    private double sampleRate = 1;
+    private Duration slowCallThreshold = Duration.ZERO;
+    private int bufferSize = 8192;
+    private String loggerName = "ratpack.grpc.access";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public AccessLogConfig enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * The fraction of calls that are logged.
+     *
+     * @return the sample rate between 0 and 1
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public AccessLogConfig sampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    /**
+     * Only calls that take at least this long are logged. Zero logs every sampled call.
+     *
+     * @return the slow call threshold
+     */
+    public Duration getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    public AccessLogConfig slowCallThreshold(Duration slowCallThreshold) {
+        this.slowCallThreshold = slowCallThreshold;
+        return this;
+    }
+
+    /**
+     * The number of entries buffered for the writer thread, rounded up to a power of two.
+     * Entries are dropped rather than blocking the event loop when the buffer is full.
+     *
+     * @return the buffer size
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public AccessLogConfig bufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public String getLoggerName() {
+        return loggerName;
+    }
+
+    public AccessLogConfig loggerName(String loggerName) {
+        this.loggerName = loggerName;
+        return this;
+    }
+
+    public AccessLogConfig copy() {
+        AccessLogConfig copy = new AccessLogConfig();
+        copy.enabled = enabled;
+        copy.sampleRate = sampleRate;
+        copy.slowCallThreshold = slowCallThreshold;
+        copy.bufferSize = bufferSize;
+        copy.loggerName = loggerName;
+        return copy;
+    }
+
+}
@@ -0,0 +1,165 @@
+package ratpack.grpc.loop;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.exec.ExecController;
+import ratpack.service.Service;
+import ratpack.service.StartEvent;
+import ratpack.service.StopEvent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the scheduling lag, task queue depth and utilization of every Ratpack event loop.
+ * <p>
+ * When {@link ratpack.grpc.GrpcConfig#useRatpackEventLoop(boolean)} is set, gRPC calls and HTTP requests share these loops.
+ * A probe task on each loop reschedules itself every sample interval and records how late it ran, how many tasks were
+ * queued behind it and how much CPU the loop thread used since the last probe. Every report interval the samples are
+ * collected into {@link #getStats()}, and logged when a loop exceeds a configured threshold.
+ */
+public class EventLoopMonitor implements Service {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopMonitor.class);
+
+    private final ExecController execController;
+    private final EventLoopMonitorConfig config;
+    private volatile List<Probe> probes = Collections.emptyList();
+    private volatile List<EventLoopStats> stats = Collections.emptyList();
+    private volatile boolean running;
+    private ScheduledFuture<?> report;
+
+    public EventLoopMonitor(ExecController execController, EventLoopMonitorConfig config) {
+        this.execController = execController;
+        this.config = config;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * The stats of each event loop over the last report interval, empty until the first report.
+     *
+     * @return the stats of each event loop
+     */
+    public List<EventLoopStats> getStats() {
+        return stats;
+    }
+
+    @Override
+    public void onStart(StartEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        EventLoopGroup group = execController.getEventLoopGroup();
+        List<Probe> started = new ArrayList<>();
+        for (EventExecutor loop : group) {
+            Probe probe = new Probe(loop);
+            started.add(probe);
+            probe.schedule();
+        }
+        probes = started;
+        long interval = config.getReportInterval().toNanos();
+        report = group.next().scheduleAtFixedRate(this::report, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onStop(StopEvent event) {
+        running = false;
+        if (report != null) {
+            report.cancel(false);
+            report = null;
+        }
+        probes = Collections.emptyList();
+    }
+
+    void report() {
+        List<Probe> current = probes;
+        List<EventLoopStats> latest = new ArrayList<>(current.size());
+        for (Probe probe : current) {
+            EventLoopStats loop = probe.interval();
+            latest.add(loop);
+            if (exceedsThreshold(loop)) {
+                logger.warn("event loop saturated: {}", loop);
+            }
+        }
+        stats = Collections.unmodifiableList(latest);
+    }
+
+    private boolean exceedsThreshold(EventLoopStats loop) {
+        long lag = config.getLagThreshold().toNanos() / 1000;
+        int pending = config.getPendingTasksThreshold();
+        double utilization = config.getUtilizationThreshold();
+        return lag > 0 && loop.getMaxLagMicros() >= lag
+                || pending > 0 && loop.getMaxPendingTasks() >= pending
+                || utilization > 0 && loop.getUtilization() >= utilization;
+    }
+
+    private class Probe implements Runnable {
+
+        private final EventExecutor loop;
+        private final Recorder lag = new Recorder(3);
+        private final Recorder pending = new Recorder(3);
+        private final Recorder utilization = new Recorder(2);
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        private volatile String thread = "";
+        private long scheduledAt;
+        private long lastWallNanos;
+        private long lastCpuNanos = -1;
+
+        private Probe(EventExecutor loop) {
+            this.loop = loop;
+        }
+
+        private void schedule() {
+            long interval = config.getSampleInterval().toNanos();
+            scheduledAt = System.nanoTime() + interval;
+            loop.schedule(this, interval, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            lag.recordValue(Math.max(0, now - scheduledAt) / 1000);
+            if (loop instanceof SingleThreadEventExecutor) {
+                pending.recordValue(((SingleThreadEventExecutor) loop).pendingTasks());
+            }
+            if (threads.isCurrentThreadCpuTimeSupported()) {
+                long cpu = threads.getCurrentThreadCpuTime();
+                if (lastCpuNanos >= 0 && now > lastWallNanos) {
+                    long percent = (cpu - lastCpuNanos) * 100 / (now - lastWallNanos);
+                    utilization.recordValue(Math.min(100, Math.max(0, percent)));
+                }
+                lastCpuNanos = cpu;
+                lastWallNanos = now;
+            }
+            if (thread.isEmpty()) {
+                thread = Thread.currentThread().getName();
+            }
+            if (running) {
+                schedule();
+            }
+        }
+
+        private EventLoopStats interval() {
+            Histogram lagMicros = lag.getIntervalHistogram();
+            Histogram pendingTasks = pending.getIntervalHistogram();
+            Histogram utilizationPercent = utilization.getIntervalHistogram();
+            return new EventLoopStats(thread, lagMicros, pendingTasks, utilizationPercent);
+        }
+    }
+
+}
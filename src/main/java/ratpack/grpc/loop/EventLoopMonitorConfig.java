@@ -0,0 +1,103 @@
+package ratpack.grpc.loop;
+
+import java.time.Duration;
+
+public class EventLoopMonitorConfig {
+
+    private boolean enabled;
+    private Duration sampleInterval = Duration.ofMillis(100);
+    private Duration reportInterval = Duration.ofSeconds(10);
+    private Duration lagThreshold = Duration.ofMillis(50);
+    private int pendingTasksThreshold = 1000;
+    private double utilizationThreshold = 0.9;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public EventLoopMonitorConfig enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * How often each event loop is probed. The probe is a task scheduled on the loop itself, so a shorter interval
+     * catches shorter stalls at the cost of more wakeups.
+     *
+     * @return the sample interval
+     */
+    public Duration getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public EventLoopMonitorConfig sampleInterval(Duration sampleInterval) {
+        if (sampleInterval.isNegative() || sampleInterval.isZero()) {
+            throw new IllegalArgumentException("sampleInterval must be positive");
+        }
+        this.sampleInterval = sampleInterval;
+        return this;
+    }
+
+    /**
+     * How often the samples are collected into {@link EventLoopStats}, which then cover this interval.
+     *
+     * @return the report interval
+     */
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+
+    public EventLoopMonitorConfig reportInterval(Duration reportInterval) {
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("reportInterval must be positive");
+        }
+        this.reportInterval = reportInterval;
+        return this;
+    }
+
+    /**
+     * A report is logged when the maximum scheduling lag of a loop reaches this threshold. Zero disables it.
+     *
+     * @return the lag threshold
+     */
+    public Duration getLagThreshold() {
+        return lagThreshold;
+    }
+
+    public EventLoopMonitorConfig lagThreshold(Duration lagThreshold) {
+        this.lagThreshold = lagThreshold;
+        return this;
+    }
+
+    /**
+     * A report is logged when the maximum number of pending tasks of a loop reaches this threshold. Zero disables it.
+     *
+     * @return the pending tasks threshold
+     */
+    public int getPendingTasksThreshold() {
+        return pendingTasksThreshold;
+    }
+
+    public EventLoopMonitorConfig pendingTasksThreshold(int pendingTasksThreshold) {
+        this.pendingTasksThreshold = pendingTasksThreshold;
+        return this;
+    }
+
+    /**
+     * A report is logged when the mean utilization of a loop reaches this threshold. Zero disables it.
+     *
+     * @return the utilization threshold between 0 and 1
+     */
+    public double getUtilizationThreshold() {
+        return utilizationThreshold;
+    }
+
+    public EventLoopMonitorConfig utilizationThreshold(double utilizationThreshold) {
+        if (utilizationThreshold < 0 || utilizationThreshold > 1) {
+            throw new IllegalArgumentException("utilizationThreshold must be between 0 and 1");
+        }
+        this.utilizationThreshold = utilizationThreshold;
+        return this;
+    }
+
+}
@@ -0,0 +1,78 @@
+package ratpack.grpc.loop;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * The samples of one event loop over one report interval.
+ * <p>
+ * Lag is how late the loop ran a task scheduled on it, in microseconds. A loop that is busy, or blocked, runs it late.
+ * Pending tasks is the length of the loop's task queue when the sample ran.
+ * Utilization is the CPU time of the loop thread over wall time between samples, in percent; an idle loop waits in
+ * {@code epoll_wait} without using CPU.
+ */
+public class EventLoopStats {
+
+    private final String thread;
+    private final Histogram lagMicros;
+    private final Histogram pendingTasks;
+    private final Histogram utilizationPercent;
+
+    EventLoopStats(String thread, Histogram lagMicros, Histogram pendingTasks, Histogram utilizationPercent) {
+        this.thread = thread;
+        this.lagMicros = lagMicros;
+        this.pendingTasks = pendingTasks;
+        this.utilizationPercent = utilizationPercent;
+    }
+
+    /**
+     * The name of the event loop thread.
+     *
+     * @return the thread name
+     */
+    public String getThread() {
+        return thread;
+    }
+
+    public Histogram getLagMicros() {
+        return lagMicros;
+    }
+
+    public Histogram getPendingTasks() {
+        return pendingTasks;
+    }
+
+    /**
+     * Utilization samples, in percent. Empty if the JVM does not support thread CPU time.
+     *
+     * @return the utilization histogram
+     */
+    public Histogram getUtilizationPercent() {
+        return utilizationPercent;
+    }
+
+    public long getMaxLagMicros() {
+        return lagMicros.getMaxValue();
+    }
+
+    public long getMaxPendingTasks() {
+        return pendingTasks.getMaxValue();
+    }
+
+    /**
+     * The mean utilization over the interval.
+     *
+     * @return the utilization between 0 and 1
+     */
+    public double getUtilization() {
+        return utilizationPercent.getTotalCount() == 0 ? 0 : utilizationPercent.getMean() / 100;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s lag p50=%dus p99=%dus max=%dus pending max=%d utilization=%.0f%%",
+                thread,
+                lagMicros.getValueAtPercentile(50), lagMicros.getValueAtPercentile(99), lagMicros.getMaxValue(),
+                pendingTasks.getMaxValue(), getUtilization() * 100);
+    }
+
+}
@@ -0,0 +1,219 @@
+package ratpack.grpc.proxy;
+
+import com.google.common.io.ByteStreams;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Drainable;
+import io.grpc.HandlerRegistry;
+import io.grpc.KnownLength;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.Status;
+import ratpack.api.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Forwards calls to methods the server does not implement to an upstream channel, without deserializing their messages.
+ * <p>
+ * {@link #handlerRegistry()} is installed as the server's fallback handler registry, see {@link ratpack.grpc.GrpcConfig#proxy(String)}.
+ * Messages are passed through as bytes, so a proxied call costs a buffer copy per message rather than a protobuf parse
+ * and serialize, and works for methods the proxy has no generated classes for. Headers, trailers, status, deadline and
+ * cancellation are forwarded, and flow control is propagated both ways: a message is only requested from one side once the
+ * other side is ready to send it on.
+ * <p>
+ * Proxied calls pass through the server's interceptors like any other call, so they are authenticated, shed, queued in
+ * lanes and traced as the server's own methods are.
+ */
+public class GrpcProxy {
+
+    private final Channel upstream;
+    private final ServerCallHandler<byte[], byte[]> handler = this::startCall;
+
+    public GrpcProxy(Channel upstream) {
+        this.upstream = upstream;
+    }
+
+    public HandlerRegistry handlerRegistry() {
+        return new HandlerRegistry() {
+            @Override
+            public ServerMethodDefinition<?, ?> lookupMethod(String methodName, @Nullable String authority) {
+                // built per call, as caching by the method names clients send would let them grow the cache without bound
+                return ServerMethodDefinition.create(
+                        MethodDescriptor.<byte[], byte[]>newBuilder()
+                                .setType(MethodDescriptor.MethodType.UNKNOWN)
+                                .setFullMethodName(methodName)
+                                .setRequestMarshaller(BytesMarshaller.INSTANCE)
+                                .setResponseMarshaller(BytesMarshaller.INSTANCE)
+                                .build(),
+                        handler
+                );
+            }
+        };
+    }
+
+    private ServerCall.Listener<byte[]> startCall(ServerCall<byte[], byte[]> serverCall, Metadata headers) {
+        CallOptions callOptions = CallOptions.DEFAULT;
+        Deadline deadline = Context.current().getDeadline();
+        if (deadline != null) {
+            callOptions = callOptions.withDeadline(deadline);
+        }
+        ClientCall<byte[], byte[]> clientCall = upstream.newCall(serverCall.getMethodDescriptor(), callOptions);
+        CallProxy proxy = new CallProxy(serverCall, clientCall);
+        clientCall.start(proxy.clientListener, headers);
+        serverCall.request(1);
+        clientCall.request(1);
+        return proxy.serverListener;
+    }
+
+    private static class CallProxy {
+
+        private final ServerCall<byte[], byte[]> serverCall;
+        private final ClientCall<byte[], byte[]> clientCall;
+        private final ServerListener serverListener = new ServerListener();
+        private final ClientListener clientListener = new ClientListener();
+
+        private CallProxy(ServerCall<byte[], byte[]> serverCall, ClientCall<byte[], byte[]> clientCall) {
+            this.serverCall = serverCall;
+            this.clientCall = clientCall;
+        }
+
+        /**
+         * Forwards the downstream client's messages upstream.
+         */
+        private class ServerListener extends ServerCall.Listener<byte[]> {
+
+            // guarded by this
+            private boolean needsRequest;
+
+            @Override
+            public void onMessage(byte[] message) {
+                clientCall.sendMessage(message);
+                synchronized (this) {
+                    if (clientCall.isReady()) {
+                        serverCall.request(1);
+                    } else {
+                        needsRequest = true;
+                    }
+                }
+            }
+
+            @Override
+            public void onHalfClose() {
+                clientCall.halfClose();
+            }
+
+            @Override
+            public void onCancel() {
+                clientCall.cancel("downstream call cancelled", null);
+            }
+
+            @Override
+            public void onReady() {
+                clientListener.ready();
+            }
+
+            // the upstream call can take another message
+            synchronized void ready() {
+                if (needsRequest) {
+                    serverCall.request(1);
+                    needsRequest = false;
+                }
+            }
+        }
+
+        /**
+         * Forwards the upstream server's responses downstream.
+         */
+        private class ClientListener extends ClientCall.Listener<byte[]> {
+
+            // guarded by this
+            private boolean needsRequest;
+
+            @Override
+            public void onHeaders(Metadata headers) {
+                serverCall.sendHeaders(headers);
+            }
+
+            @Override
+            public void onMessage(byte[] message) {
+                serverCall.sendMessage(message);
+                synchronized (this) {
+                    if (serverCall.isReady()) {
+                        clientCall.request(1);
+                    } else {
+                        needsRequest = true;
+                    }
+                }
+            }
+
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+                serverCall.close(status, trailers);
+            }
+
+            @Override
+            public void onReady() {
+                serverListener.ready();
+            }
+
+            // the downstream call can take another message
+            synchronized void ready() {
+                if (needsRequest) {
+                    clientCall.request(1);
+                    needsRequest = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes serialized messages through untouched.
+     * <p>
+     * Received messages must be copied, since the transport releases its buffers once a message is parsed.
+     */
+    private enum BytesMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+
+        INSTANCE;
+
+        @Override
+        public InputStream stream(byte[] value) {
+            return new BytesStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+            try {
+                return ByteStreams.toByteArray(stream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class BytesStream extends ByteArrayInputStream implements KnownLength, Drainable {
+
+        private BytesStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public int drainTo(OutputStream target) throws IOException {
+            int length = count - pos;
+            target.write(buf, pos, length);
+            pos = count;
+            return length;
+        }
+    }
+
+}
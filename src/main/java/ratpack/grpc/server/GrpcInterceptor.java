@@ -0,0 +1,107 @@
+package ratpack.grpc.server;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerInterceptor;
+import ratpack.api.Nullable;
+
+/**
+ * A server interceptor with an order and, optionally, a scope of one service or one method.
+ * <p>
+ * Bind instances in the server registry to apply them to the services of the {@link GrpcServer}:
+ * <pre>{@code
+ * b.multiBindInstance(GrpcInterceptor.class, GrpcInterceptor.of(new AuthInterceptor()).order(-10))
+ *  .multiBindInstance(GrpcInterceptor.class, GrpcInterceptor.forService("helloworld.Greeter", new AuditInterceptor()))
+ * }</pre>
+ * Interceptors with a lower order see each call first; interceptors with the same order keep their registry order.
+ * A {@link ServerInterceptor} bound in the registry directly applies to every method with order {@code 0}.
+ * <p>
+ * The interceptors of each method are chained once when the server starts, see {@link InterceptorChains}.
+ */
+public final class GrpcInterceptor {
+
+    private final ServerInterceptor interceptor;
+    @Nullable
+    private final String serviceName;
+    @Nullable
+    private final String fullMethodName;
+    private final int order;
+
+    private GrpcInterceptor(ServerInterceptor interceptor, @Nullable String serviceName, @Nullable String fullMethodName, int order) {
+        this.interceptor = interceptor;
+        this.serviceName = serviceName;
+        this.fullMethodName = fullMethodName;
+        this.order = order;
+    }
+
+    /**
+     * An interceptor for every method.
+     *
+     * @param interceptor the interceptor
+     * @return an interceptor with order {@code 0}
+     */
+    public static GrpcInterceptor of(ServerInterceptor interceptor) {
+        return new GrpcInterceptor(interceptor, null, null, 0);
+    }
+
+    /**
+     * An interceptor for the methods of one service.
+     *
+     * @param serviceName the full service name, e.g. {@code helloworld.Greeter}
+     * @param interceptor the interceptor
+     * @return an interceptor with order {@code 0}
+     */
+    public static GrpcInterceptor forService(String serviceName, ServerInterceptor interceptor) {
+        return new GrpcInterceptor(interceptor, serviceName, null, 0);
+    }
+
+    /**
+     * An interceptor for one method.
+     *
+     * @param fullMethodName the full method name, e.g. {@code helloworld.Greeter/SayHello}
+     * @param interceptor the interceptor
+     * @return an interceptor with order {@code 0}
+     */
+    public static GrpcInterceptor forMethod(String fullMethodName, ServerInterceptor interceptor) {
+        return new GrpcInterceptor(interceptor, null, fullMethodName, 0);
+    }
+
+    /**
+     * The same interceptor with the given order.
+     *
+     * @param order the order, lower runs first
+     * @return a new interceptor
+     */
+    public GrpcInterceptor order(int order) {
+        return new GrpcInterceptor(interceptor, serviceName, fullMethodName, order);
+    }
+
+    public ServerInterceptor getInterceptor() {
+        return interceptor;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Whether this interceptor applies to the given method.
+     *
+     * @param method the method
+     * @return whether calls to the method are intercepted
+     */
+    public boolean appliesTo(MethodDescriptor<?, ?> method) {
+        if (fullMethodName != null) {
+            return fullMethodName.equals(method.getFullMethodName());
+        }
+        if (serviceName != null) {
+            return serviceName.equals(MethodDescriptor.extractFullServiceName(method.getFullMethodName()));
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        String scope = fullMethodName != null ? fullMethodName : serviceName != null ? serviceName : "*";
+        return "GrpcInterceptor{" + interceptor + " on " + scope + ", order " + order + "}";
+    }
+}
@@ -1,64 +1,504 @@
 package ratpack.grpc.server;
 
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Attributes;
 import io.grpc.BindableService;
+import io.grpc.HandlerRegistry;
 import io.grpc.Server;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServerStreamTracer;
+import io.grpc.ServerTransportFilter;
 import io.grpc.netty.NettyServerBuilder;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ratpack.api.Nullable;
 import ratpack.exec.ExecController;
 import ratpack.grpc.GrpcConfig;
+import ratpack.grpc.auth.TokenAuthenticator;
+import ratpack.grpc.client.GrpcClients;
+import ratpack.grpc.connection.ConnectionStats;
+import ratpack.grpc.connection.KeepAliveConfig;
+import ratpack.grpc.lane.PriorityLanes;
+import ratpack.grpc.log.AccessLog;
+import ratpack.grpc.proxy.GrpcProxy;
+import ratpack.grpc.server.internal.IoUring;
+import ratpack.grpc.server.internal.ReusePortEpollServerSocketChannel;
+import ratpack.grpc.shed.LoadShedder;
+import ratpack.grpc.tls.GrpcTls;
+import ratpack.grpc.tls.PeerIdentities;
+import ratpack.grpc.trace.Tracing;
+import ratpack.registry.Registry;
 import ratpack.server.ServerConfig;
+import ratpack.util.Exceptions;
 import ratpack.util.internal.TransportDetector;
 
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 public class GrpcServer {
 
     private ExecController execController;
     private List<BindableService> services;
+    private List<ServerInterceptor> interceptors;
+    private final List<GrpcInterceptor> addedInterceptors = new ArrayList<>();
+    private final List<ServerStreamTracer.Factory> streamTracerFactories = new ArrayList<>();
+    private final List<ServerTransportFilter> transportFilters = new ArrayList<>();
     private ServerConfig serverConfig;
     private GrpcConfig config;
 
+    private int port;
+    private boolean useRatpackEventLoop;
+    private KeepAliveConfig keepAlive;
+    @Nullable
+    private Executor executor;
+    @Nullable
+    private HandlerRegistry fallbackHandlerRegistry;
+    @Nullable
+    private SslContext sslContext;
+    @Nullable
+    private String name;
+    private int eventLoopThreads;
+    private int executorThreads;
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
     private InetSocketAddress address;
-    private Server server;
+    private List<Server> servers = Collections.emptyList();
+
+    @Nullable
+    private EventLoopGroup ownedEventLoopGroup;
+    @Nullable
+    private ExecutorService ownedExecutor;
 
     @Nullable
     private Thread shutdownHookThread;
 
     private static final Logger logger = LoggerFactory.getLogger(GrpcServer.class);
 
+    private static final Attributes.Key<Executor> EVENT_LOOP = Attributes.Key.create("ratpack-grpc-event-loop");
+
     public GrpcServer(ExecController execController, List<BindableService> services, ServerConfig serverConfig, GrpcConfig config) {
+        this(execController, services, Collections.emptyList(), serverConfig, config);
+    }
+
+    /**
+     * Creates a server whose services are all wrapped with the given interceptors.
+     * The first interceptor in the list is the first to see each call, and these interceptors see calls before any
+     * {@link #addInterceptor(GrpcInterceptor) added interceptor}.
+     *
+     * @param execController the Ratpack exec controller
+     * @param services the services to serve
+     * @param interceptors the interceptors applied to every service
+     * @param serverConfig the Ratpack server config
+     * @param config the gRPC config
+     */
+    public GrpcServer(ExecController execController, List<BindableService> services, List<ServerInterceptor> interceptors, ServerConfig serverConfig, GrpcConfig config) {
         this.execController = execController;
         this.services = services;
+        this.interceptors = interceptors;
         this.serverConfig = serverConfig;
         this.config = config;
+        this.port = config.getPort();
+        this.useRatpackEventLoop = config.isUseRatpackEventLoop();
+        this.keepAlive = config.getKeepAlive();
+    }
+
+    /**
+     * Creates a server for the services, interceptors and tracers found in the given registry.
+     * <p>
+     * Both {@link GrpcInterceptor}s and plain {@link ServerInterceptor}s are found in the registry, see {@link GrpcInterceptor} for their ordering.
+     *
+     * @param registry the server registry
+     * @param config the gRPC config
+     * @return an unstarted server
+     */
+    public static GrpcServer of(Registry registry, GrpcConfig config) {
+        ExecController execController = registry.get(ExecController.class);
+        ServerConfig serverConfig = registry.get(ServerConfig.class);
+        Set<String> named = new HashSet<>();
+        config.getServers().values().forEach(s -> named.addAll(s.getServices()));
+        List<BindableService> services = services(registry, s -> !named.contains(s));
+        List<ServerInterceptor> interceptors = interceptors(registry);
+        if (config.getAuth().isEnabled() && !registry.maybeGet(TokenAuthenticator.class).isPresent()) {
+            // without the module's TokenAuthenticator, e.g. in a GrpcRatpackServer
+            interceptors.add(new TokenAuthenticator(execController, config.getAuth()).serverInterceptor());
+        }
+        Optional<PriorityLanes> lanes = registry.maybeGet(PriorityLanes.class).filter(PriorityLanes::isEnabled);
+        // lanes dispatch calls themselves, so they go before every other interceptor
+        lanes.ifPresent(l -> interceptors.add(0, l.serverInterceptor()));
+        Optional<LoadShedder> shedder = registry.maybeGet(LoadShedder.class).filter(LoadShedder::isEnabled);
+        // shed calls before they are queued anywhere
+        shedder.ifPresent(s -> interceptors.add(0, s.serverInterceptor()));
+        GrpcServer server = new GrpcServer(execController, services, interceptors, serverConfig, config).addRegistryExtensions(registry);
+        if (lanes.isPresent()) {
+            server.executor(MoreExecutors.directExecutor());
+        } else {
+            // the shedder observes the delay of calls queued for the Ratpack executor
+            shedder.ifPresent(s -> server.executor(s.wrap(execController.getExecutor())));
+        }
+        if (server.sslContext == null && config.getTls().isEnabled()) {
+            // without the module's GrpcTls, e.g. in a GrpcRatpackServer, serve with the configured certificates without reloading them
+            server.sslContext(Exceptions.uncheck(() -> new GrpcTls(config.getTls())).sslContext());
+        }
+        if (config.getProxy() != null) {
+            server.fallbackHandlerRegistry(new GrpcProxy(registry.get(GrpcClients.class).channel(config.getProxy())).handlerRegistry());
+        }
+        return server;
+    }
+
+    /**
+     * Creates a named server for its services found in the given registry, with its own event loops and executor.
+     *
+     * @param registry the server registry
+     * @param name the server name
+     * @param namedConfig the named server's config
+     * @return an unstarted server
+     * @see GrpcConfig#server(String, ratpack.func.Action)
+     */
+    public static GrpcServer of(Registry registry, String name, NamedServerConfig namedConfig) {
+        List<BindableService> services = services(registry, namedConfig.getServices()::contains);
+        Set<String> missing = new HashSet<>(namedConfig.getServices());
+        services.forEach(s -> missing.remove(s.bindService().getServiceDescriptor().getName()));
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("gRPC server " + name + " serves services that are not in the registry: " + missing);
+        }
+        GrpcConfig config = new GrpcConfig()
+                .port(namedConfig.getPort())
+                .transport(namedConfig.getTransport())
+                .listeners(namedConfig.getListeners())
+                .tcpNoDelay(namedConfig.isTcpNoDelay())
+                .tcpQuickAck(namedConfig.isTcpQuickAck())
+                .useRatpackEventLoop(false);
+        KeepAliveConfig keepAlive = namedConfig.getKeepAlive() != null ? namedConfig.getKeepAlive()
+                : registry.maybeGet(GrpcConfig.class).map(GrpcConfig::getKeepAlive).orElseGet(KeepAliveConfig::new);
+        return new GrpcServer(registry.get(ExecController.class), services, interceptors(registry), registry.get(ServerConfig.class), config)
+                // before the registry extensions, as connection stats recycle at this server's maximum connection age
+                .keepAlive(keepAlive)
+                .addRegistryExtensions(registry)
+                .name(name)
+                .eventLoopThreads(namedConfig.getEventLoopThreads())
+                .executorThreads(namedConfig.getExecutorThreads())
+                .shutdownTimeout(namedConfig.getShutdownTimeout());
+    }
+
+    /**
+     * The event loops that the callbacks of a call run on, so that interceptors can move blocking work off them and back.
+     *
+     * @param callAttributes the attributes of a server call
+     * @return the event loop group running the call's callbacks, or {@code null} if they run on an executor that may block
+     */
+    @Nullable
+    public static Executor eventLoop(Attributes callAttributes) {
+        return callAttributes.get(EVENT_LOOP);
+    }
+
+    private static List<BindableService> services(Registry registry, Predicate<String> serviceName) {
+        List<BindableService> services = Lists.newArrayList();
+        for (BindableService service : registry.getAll(BindableService.class)) {
+            if (serviceName.test(service.bindService().getServiceDescriptor().getName())) {
+                services.add(service);
+            }
+        }
+        return services;
+    }
+
+    private static List<ServerInterceptor> interceptors(Registry registry) {
+        List<ServerInterceptor> interceptors = Lists.newArrayList();
+        // identify callers before anything else sees the call
+        registry.maybeGet(PeerIdentities.class).filter(PeerIdentities::isEnabled).ifPresent(p -> interceptors.add(p.serverInterceptor()));
+        registry.maybeGet(ConnectionStats.class).filter(ConnectionStats::isEnabled).ifPresent(c -> interceptors.add(c.serverInterceptor()));
+        registry.maybeGet(Tracing.class).filter(Tracing::isEnabled).ifPresent(t -> interceptors.add(t.serverInterceptor()));
+        // authenticate after tracing, so that rejected calls and the wait for verification are traced
+        registry.maybeGet(TokenAuthenticator.class).filter(TokenAuthenticator::isEnabled).ifPresent(a -> interceptors.add(a.serverInterceptor()));
+        return interceptors;
+    }
+
+    private GrpcServer addRegistryExtensions(Registry registry) {
+        registry.getAll(ServerInterceptor.class).forEach(i -> addInterceptor(GrpcInterceptor.of(i)));
+        registry.getAll(GrpcInterceptor.class).forEach(this::addInterceptor);
+        registry.maybeGet(ConnectionStats.class).filter(ConnectionStats::isEnabled)
+                .ifPresent(c -> addTransportFilter(c.transportFilter(keepAlive.getMaxConnectionAge())).addStreamTracerFactory(c.streamTracerFactory()));
+        registry.maybeGet(AccessLog.class).filter(AccessLog::isEnabled).ifPresent(l -> addStreamTracerFactory(l.streamTracerFactory()));
+        registry.maybeGet(GrpcTls.class).filter(GrpcTls::isEnabled).ifPresent(t -> sslContext(t.sslContext()));
+        registry.maybeGet(PeerIdentities.class).filter(PeerIdentities::isEnabled).ifPresent(p -> addTransportFilter(p.transportFilter()));
+        return this;
+    }
+
+    /**
+     * The TLS context to serve with, instead of the Ratpack server config's.
+     *
+     * @param sslContext a server TLS context
+     * @return this
+     */
+    public GrpcServer sslContext(SslContext sslContext) {
+        this.sslContext = sslContext;
+        return this;
+    }
+
+    /**
+     * The port to listen on, instead of the gRPC config's.
+     *
+     * @param port the port, zero for an ephemeral port
+     * @return this
+     */
+    public GrpcServer port(int port) {
+        this.port = port;
+        return this;
+    }
+
+    /**
+     * Whether to serve on Ratpack's event loops, instead of as the gRPC config says.
+     *
+     * @param useRatpackEventLoop whether to use Ratpack's event loops and executor
+     * @return this
+     */
+    public GrpcServer useRatpackEventLoop(boolean useRatpackEventLoop) {
+        this.useRatpackEventLoop = useRatpackEventLoop;
+        return this;
+    }
+
+    /**
+     * Keepalive pings and connection lifetimes, instead of the gRPC config's.
+     *
+     * @param keepAlive the keepalive settings
+     * @return this
+     */
+    public GrpcServer keepAlive(KeepAliveConfig keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * The name of this server, used in its thread names and log messages.
+     *
+     * @param name the server name
+     * @return this
+     */
+    public GrpcServer name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Serves on an event loop group of its own with the given number of threads, instead of Ratpack's event loops.
+     * Unless an executor is set, call callbacks also run on these event loops.
+     *
+     * @param eventLoopThreads the number of event loop threads, zero to use Ratpack's event loops
+     * @return this
+     */
+    public GrpcServer eventLoopThreads(int eventLoopThreads) {
+        this.eventLoopThreads = eventLoopThreads;
+        return this;
+    }
+
+    /**
+     * Runs call callbacks on a thread pool of its own with the given number of threads, unless an executor is set.
+     *
+     * @param executorThreads the number of executor threads, zero for no thread pool
+     * @return this
+     */
+    public GrpcServer executorThreads(int executorThreads) {
+        this.executorThreads = executorThreads;
+        return this;
+    }
+
+    /**
+     * How long {@link #stop()} waits for calls in flight to complete before cancelling them, when this server has
+     * {@link #eventLoopThreads(int) event loops} or {@link #executorThreads(int) executor threads} of its own.
+     * Those are only released once its calls are done.
+     *
+     * @param shutdownTimeout the time to wait for calls to complete
+     * @return this
+     */
+    public GrpcServer shutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+        return this;
+    }
+
+    /**
+     * Adds an interceptor, applied to the methods in its scope after the interceptors given to the constructor.
+     *
+     * @param interceptor the interceptor
+     * @return this
+     */
+    public GrpcServer addInterceptor(GrpcInterceptor interceptor) {
+        addedInterceptors.add(interceptor);
+        return this;
+    }
+
+    public GrpcServer addStreamTracerFactory(ServerStreamTracer.Factory factory) {
+        streamTracerFactories.add(factory);
+        return this;
+    }
+
+    /**
+     * The executor that call callbacks run on, instead of the Ratpack executor or gRPC's default executor.
+     *
+     * @param executor the callback executor
+     * @return this
+     */
+    public GrpcServer executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * The registry of methods to serve when no service implements a called method, e.g. a {@link GrpcProxy}.
+     * Its methods are intercepted like those of the services.
+     *
+     * @param fallbackHandlerRegistry the fallback handler registry
+     * @return this
+     */
+    public GrpcServer fallbackHandlerRegistry(HandlerRegistry fallbackHandlerRegistry) {
+        this.fallbackHandlerRegistry = fallbackHandlerRegistry;
+        return this;
+    }
+
+    public GrpcServer addTransportFilter(ServerTransportFilter filter) {
+        transportFilters.add(filter);
+        return this;
     }
 
     public GrpcServer start() throws Exception {
-        int port = config.getPort();
+        boolean ioUring = isIoUring();
+        boolean epoll = !ioUring && isEpoll();
+        int listeners = config.getListeners();
+        if (listeners > 1 && !epoll) {
+            logger.info("SO_REUSEPORT listeners require the epoll transport, binding a single gRPC listener");
+            listeners = 1;
+        }
+
+        Class<? extends ServerChannel> channelType;
+        if (ioUring) {
+            channelType = IoUring.serverSocketChannelType();
+        } else if (listeners > 1) {
+            channelType = ReusePortEpollServerSocketChannel.class;
+        } else {
+            channelType = TransportDetector.getServerSocketChannelImpl();
+        }
+
+        EventLoopGroup eventLoopGroup = null;
+        if (ioUring) {
+            // io_uring channels can only be registered with io_uring event loops
+            ownedEventLoopGroup = IoUring.eventLoopGroup(eventLoopThreads > 0 ? eventLoopThreads : serverConfig.getThreads());
+            eventLoopGroup = ownedEventLoopGroup;
+        } else if (eventLoopThreads > 0) {
+            ownedEventLoopGroup = TransportDetector.eventLoopGroup(eventLoopThreads, new DefaultThreadFactory(threadName("event-loop"), true));
+            eventLoopGroup = ownedEventLoopGroup;
+        } else if (useRatpackEventLoop) {
+            eventLoopGroup = execController.getEventLoopGroup();
+        } else if (listeners > 1) {
+            ownedEventLoopGroup = new EpollEventLoopGroup();
+            eventLoopGroup = ownedEventLoopGroup;
+        }
+
+        Executor callbackExecutor = executor;
+        if (callbackExecutor == null && executorThreads > 0) {
+            ownedExecutor = Executors.newFixedThreadPool(executorThreads, new DefaultThreadFactory(threadName("executor"), true));
+            callbackExecutor = ownedExecutor;
+        } else if (callbackExecutor == null && eventLoopThreads > 0) {
+            callbackExecutor = eventLoopGroup;
+        } else if (callbackExecutor == null && useRatpackEventLoop) {
+            callbackExecutor = execController.getExecutor();
+        }
+
+        int port = this.port;
+        servers = new ArrayList<>(listeners);
+        try {
+            // chain interceptors once, every listener serves the same definitions
+            InterceptorChains chains = interceptorChains();
+            List<ServerServiceDefinition> definitions = new ArrayList<>(services.size());
+            services.forEach(service -> definitions.add(chains.intercept(service.bindService())));
+            // methods served by the fallback, e.g. proxied ones, must pass authentication and the other interceptors too
+            HandlerRegistry fallback = fallbackHandlerRegistry == null ? null : chains.intercept(fallbackHandlerRegistry);
+
+            for (int i = 0; i < listeners; i++) {
+                NettyServerBuilder serverBuilder = serverBuilder(new InetSocketAddress(port), channelType, epoll, callbackExecutor, definitions, fallback);
+                if (eventLoopGroup != null) {
+                    // worker and boss can be the same, see https://groups.google.com/forum/#!topic/grpc-io/LrnAbWFozb0
+                    // with several listeners, each one accepts on its own event loop
+                    serverBuilder.bossEventLoopGroup(listeners > 1 ? eventLoopGroup.next() : eventLoopGroup);
+                    serverBuilder.workerEventLoopGroup(eventLoopGroup);
+                }
+                Server server = serverBuilder.build().start();
+                servers.add(server);
+                // the actual port when binding to port 0, shared by the remaining listeners
+                port = server.getPort();
+            }
+        } catch (Exception e) {
+            // e.g. a later listener could not bind, so release the listeners and threads started so far
+            servers.forEach(Server::shutdownNow);
+            servers = Collections.emptyList();
+            shutdownOwned();
+            throw e;
+        }
         address = new InetSocketAddress(port);
+
+        logger.info(description() + " started, listening on " + port + (ioUring ? " using io_uring" : "") + (listeners > 1 ? " with " + listeners + " listeners" : ""));
+
+        List<Server> started = servers;
+        shutdownHookThread = new Thread(() -> {
+            // Use stderr here since the logger may have been reset by its JVM shutdown hook.
+            logger.info("shutting down gRPC server since JVM is shutting down");
+            started.forEach(Server::shutdownNow);
+        }, "grpc-shutdown-thread");
+        Runtime.getRuntime().addShutdownHook(shutdownHookThread);
+        return this;
+    }
+
+    private NettyServerBuilder serverBuilder(InetSocketAddress address, Class<? extends ServerChannel> channelType, boolean epoll,
+                                             @Nullable Executor callbackExecutor, List<ServerServiceDefinition> definitions,
+                                             @Nullable HandlerRegistry fallback) {
         NettyServerBuilder serverBuilder = NettyServerBuilder.forAddress(address)
-                .channelType(TransportDetector.getServerSocketChannelImpl())
-                .withChildOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+                .channelType(channelType)
+                .withChildOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .withChildOption(ChannelOption.TCP_NODELAY, config.isTcpNoDelay());
 
         // custom grpc ratpack configurations
-        if (config.isUseRatpackEventLoop()) {
-            // worker and boss can be the same, see https://groups.google.com/forum/#!topic/grpc-io/LrnAbWFozb0
-            serverBuilder.bossEventLoopGroup(execController.getEventLoopGroup());
-            serverBuilder.workerEventLoopGroup(execController.getEventLoopGroup());
-            serverBuilder.executor(execController.getExecutor());
+        if (callbackExecutor != null) {
+            serverBuilder.executor(callbackExecutor);
+        }
+        if (epoll && config.isTcpQuickAck()) {
+            serverBuilder.withChildOption(EpollChannelOption.TCP_QUICKACK, true);
+        }
+        serverBuilder.keepAliveTime(keepAlive.getTime().toNanos(), TimeUnit.NANOSECONDS)
+                .keepAliveTimeout(keepAlive.getTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                .permitKeepAliveTime(keepAlive.getPermitTime().toNanos(), TimeUnit.NANOSECONDS)
+                .permitKeepAliveWithoutCalls(keepAlive.isPermitWithoutCalls());
+        if (keepAlive.getMaxConnectionAge() != null) {
+            serverBuilder.maxConnectionAge(keepAlive.getMaxConnectionAge().toNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (keepAlive.getMaxConnectionAgeGrace() != null) {
+            serverBuilder.maxConnectionAgeGrace(keepAlive.getMaxConnectionAgeGrace().toNanos(), TimeUnit.NANOSECONDS);
         }
 
         // standard ratpack configurations
-        if (serverConfig.getNettySslContext() != null) {
-            serverBuilder.sslContext(serverConfig.getNettySslContext());
+        SslContext ssl = sslContext != null ? sslContext : serverConfig.getNettySslContext();
+        if (ssl != null) {
+            serverBuilder.sslContext(ssl);
         }
         serverConfig.getConnectTimeoutMillis().ifPresent(i ->
                 serverBuilder.withChildOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, i)
@@ -82,25 +522,58 @@ public class GrpcServer {
             serverBuilder.maxHeaderListSize(serverConfig.getMaxHeaderSize());
         }
 
+        streamTracerFactories.forEach(serverBuilder::addStreamTracerFactory);
+        transportFilters.forEach(serverBuilder::addTransportFilter);
+        if (callbackExecutor instanceof EventLoopGroup) {
+            serverBuilder.addTransportFilter(new ServerTransportFilter() {
+                @Override
+                public Attributes transportReady(Attributes transportAttrs) {
+                    return transportAttrs.toBuilder().set(EVENT_LOOP, callbackExecutor).build();
+                }
+            });
+        }
+        if (fallback != null) {
+            serverBuilder.fallbackHandlerRegistry(fallback);
+        }
+
         // services
-        services.forEach(serverBuilder::addService);
+        definitions.forEach(serverBuilder::addService);
+        return serverBuilder;
+    }
 
-        // start server
-        server = serverBuilder.build().start();
+    private InterceptorChains interceptorChains() {
+        List<GrpcInterceptor> chained = new ArrayList<>(interceptors.size() + addedInterceptors.size());
+        // the lowest order, and a stable sort, keeps these first and in the given order
+        interceptors.forEach(i -> chained.add(GrpcInterceptor.of(i).order(Integer.MIN_VALUE)));
+        chained.addAll(addedInterceptors);
+        return new InterceptorChains(chained);
+    }
 
-        logger.info("gRPC server started, listening on " + port);
+    private String threadName(String kind) {
+        return "grpc-" + (name == null ? "" : name + "-") + kind;
+    }
 
-        shutdownHookThread = new Thread(() -> {
-            // Use stderr here since the logger may have been reset by its JVM shutdown hook.
-            logger.info("shutting down gRPC server since JVM is shutting down");
-            server.shutdownNow();
-        }, "grpc-shutdown-thread");
-        Runtime.getRuntime().addShutdownHook(shutdownHookThread);
-        return this;
+    private String description() {
+        return name == null ? "gRPC server" : "gRPC server " + name;
+    }
+
+    private boolean isIoUring() {
+        if (config.getTransport() != Transport.IO_URING) {
+            return false;
+        }
+        if (!IoUring.isAvailable()) {
+            logger.info("io_uring transport is not available, falling back to the default transport: " + IoUring.unavailabilityCause());
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isEpoll() {
+        return Epoll.isAvailable() && EpollServerSocketChannel.class.isAssignableFrom(TransportDetector.getServerSocketChannelImpl());
     }
 
     public GrpcServer stop() {
-        if (server != null) {
+        if (!servers.isEmpty()) {
             try {
                 if (shutdownHookThread != null) {
                     Runtime.getRuntime().removeShutdownHook(shutdownHookThread);
@@ -108,12 +581,42 @@ public class GrpcServer {
             } catch (Exception ignored) {
                 // just ignore
             }
-            server.shutdown();
-            logger.info("gRPC server stopped");
+            servers.forEach(Server::shutdown);
+            if (ownedEventLoopGroup != null || ownedExecutor != null) {
+                // calls still running need this server's own threads until they complete
+                awaitTermination();
+            }
+            servers = Collections.emptyList();
+            shutdownOwned();
+            logger.info(description() + " stopped");
         }
         return this;
     }
 
+    private void awaitTermination() {
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Server server : servers) {
+            try {
+                if (!server.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    logger.warn(description() + " calls did not complete within " + shutdownTimeout + ", cancelling them");
+                    server.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                server.shutdownNow();
+            }
+        }
+    }
+
+    private void shutdownOwned() {
+        if (ownedEventLoopGroup != null) {
+            ownedEventLoopGroup.shutdownGracefully();
+        }
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
     public InetSocketAddress address() {
         return address;
     }
@@ -123,6 +626,6 @@ public class GrpcServer {
     }
 
     public boolean isRunning() {
-        return !server.isShutdown();
+        return !servers.isEmpty() && !servers.get(0).isShutdown();
     }
 }
@@ -0,0 +1,108 @@
+package ratpack.grpc.server;
+
+import io.grpc.HandlerRegistry;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import ratpack.api.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chains the interceptors of each method of a service, once, when the service is bound.
+ * <p>
+ * Each method gets a handler that calls its interceptors in order and then the method implementation,
+ * so that no work is done per call to find or wrap interceptors. Methods that no interceptor applies to keep their
+ * original handler and pay nothing.
+ */
+public class InterceptorChains {
+
+    private final List<GrpcInterceptor> interceptors;
+
+    /**
+     * Creates chains of the given interceptors, sorted by order.
+     *
+     * @param interceptors the interceptors, in registry order
+     */
+    public InterceptorChains(List<GrpcInterceptor> interceptors) {
+        List<GrpcInterceptor> sorted = new ArrayList<>(interceptors);
+        // stable, so equal orders keep their registry order
+        sorted.sort(Comparator.comparingInt(GrpcInterceptor::getOrder));
+        this.interceptors = sorted;
+    }
+
+    /**
+     * Binds the service with the interceptors that apply to each of its methods.
+     *
+     * @param service the service
+     * @return the intercepted service
+     */
+    public ServerServiceDefinition intercept(ServerServiceDefinition service) {
+        if (interceptors.isEmpty()) {
+            return service;
+        }
+        ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(service.getServiceDescriptor());
+        for (ServerMethodDefinition<?, ?> method : service.getMethods()) {
+            builder.addMethod(intercept(method));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Wraps a fallback registry, such as a {@link ratpack.grpc.proxy.GrpcProxy}'s, so that the methods it finds get the same
+     * interceptors as bound services. Its methods are only known when called, so they are chained on each lookup.
+     *
+     * @param registry the fallback registry
+     * @return the intercepted registry
+     */
+    public HandlerRegistry intercept(HandlerRegistry registry) {
+        if (interceptors.isEmpty()) {
+            return registry;
+        }
+        return new HandlerRegistry() {
+            @Nullable
+            @Override
+            public ServerMethodDefinition<?, ?> lookupMethod(String methodName, @Nullable String authority) {
+                ServerMethodDefinition<?, ?> method = registry.lookupMethod(methodName, authority);
+                return method == null ? null : intercept(method);
+            }
+        };
+    }
+
+    private <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> intercept(ServerMethodDefinition<ReqT, RespT> method) {
+        MethodDescriptor<ReqT, RespT> descriptor = method.getMethodDescriptor();
+        ServerCallHandler<ReqT, RespT> handler = method.getServerCallHandler();
+        boolean intercepted = false;
+        // wrap from the innermost interceptor out
+        for (int i = interceptors.size() - 1; i >= 0; i--) {
+            GrpcInterceptor interceptor = interceptors.get(i);
+            if (interceptor.appliesTo(descriptor)) {
+                handler = new InterceptingHandler<>(interceptor.getInterceptor(), handler);
+                intercepted = true;
+            }
+        }
+        return intercepted ? method.withServerCallHandler(handler) : method;
+    }
+
+    private static class InterceptingHandler<ReqT, RespT> implements ServerCallHandler<ReqT, RespT> {
+
+        private final ServerInterceptor interceptor;
+        private final ServerCallHandler<ReqT, RespT> next;
+
+        private InterceptingHandler(ServerInterceptor interceptor, ServerCallHandler<ReqT, RespT> next) {
+            this.interceptor = interceptor;
+            this.next = next;
+        }
+
+        @Override
+        public ServerCall.Listener<ReqT> startCall(ServerCall<ReqT, RespT> call, Metadata headers) {
+            return interceptor.interceptCall(call, headers, next);
+        }
+    }
+}
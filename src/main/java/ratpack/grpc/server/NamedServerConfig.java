@@ -0,0 +1,184 @@
+package ratpack.grpc.server;
+
+import ratpack.api.Nullable;
+import ratpack.func.Action;
+import ratpack.grpc.connection.KeepAliveConfig;
+import ratpack.util.Exceptions;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An additional gRPC server, with its own port, services, event loops and executor, see {@link ratpack.grpc.GrpcConfig#server(String, ratpack.func.Action)}.
+ * <p>
+ * The services of a named server are taken from the registry like those of the main server, but only the named server serves them.
+ * Its calls never run on the Ratpack event loops, so a flood of calls to one server can not delay the calls of another.
+ */
+public class NamedServerConfig {
+
+    private int port;
+    private Transport transport = Transport.AUTO;
+    private int listeners = 1;
+    private boolean tcpNoDelay = true;
+    private boolean tcpQuickAck;
+    private int eventLoopThreads = 1;
+    private int executorThreads;
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+    @Nullable
+    private KeepAliveConfig keepAlive;
+    private Set<String> services = new LinkedHashSet<>();
+
+    /**
+     * The port to listen on. Zero binds an ephemeral port.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public NamedServerConfig port(int port) {
+        this.port = port;
+        return this;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public NamedServerConfig transport(Transport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    public int getListeners() {
+        return listeners;
+    }
+
+    /**
+     * The number of listening sockets to bind to the port, see {@link ratpack.grpc.GrpcConfig#listeners(int)}.
+     *
+     * @param listeners the number of listening sockets
+     * @return this
+     */
+    public NamedServerConfig listeners(int listeners) {
+        if (listeners < 1) {
+            throw new IllegalArgumentException("listeners must be at least 1");
+        }
+        this.listeners = listeners;
+        return this;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public NamedServerConfig tcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    public NamedServerConfig tcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+        return this;
+    }
+
+    /**
+     * The number of event loop threads of this server's own event loop group.
+     *
+     * @return the number of event loop threads
+     */
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public NamedServerConfig eventLoopThreads(int eventLoopThreads) {
+        if (eventLoopThreads < 1) {
+            throw new IllegalArgumentException("eventLoopThreads must be at least 1");
+        }
+        this.eventLoopThreads = eventLoopThreads;
+        return this;
+    }
+
+    /**
+     * The number of threads that run call callbacks. Zero runs callbacks on this server's event loops.
+     *
+     * @return the number of executor threads
+     */
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    public NamedServerConfig executorThreads(int executorThreads) {
+        if (executorThreads < 0) {
+            throw new IllegalArgumentException("executorThreads must not be negative");
+        }
+        this.executorThreads = executorThreads;
+        return this;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * How long stopping this server waits for calls in flight to complete before cancelling them and releasing its threads.
+     *
+     * @param shutdownTimeout the time to wait for calls to complete
+     * @return this
+     */
+    public NamedServerConfig shutdownTimeout(Duration shutdownTimeout) {
+        if (shutdownTimeout.isNegative()) {
+            throw new IllegalArgumentException("shutdownTimeout must not be negative");
+        }
+        this.shutdownTimeout = shutdownTimeout;
+        return this;
+    }
+
+    /**
+     * This server's keepalive settings, or {@code null} to use the {@link ratpack.grpc.GrpcConfig#keepAlive(Action) main server's}.
+     *
+     * @return the keepalive settings
+     */
+    @Nullable
+    public KeepAliveConfig getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Configures keepalive pings and the maximum age of connections for this server, starting from gRPC's defaults rather
+     * than the main server's settings.
+     *
+     * @param action configures keepalive
+     * @return this
+     */
+    public NamedServerConfig keepAlive(Action<? super KeepAliveConfig> action) {
+        if (keepAlive == null) {
+            keepAlive = new KeepAliveConfig();
+        }
+        Exceptions.uncheck(() -> action.execute(keepAlive));
+        return this;
+    }
+
+    public Set<String> getServices() {
+        return Collections.unmodifiableSet(services);
+    }
+
+    /**
+     * Serves a service on this server instead of the main server.
+     *
+     * @param serviceName the full service name, e.g. {@code helloworld.Greeter}
+     * @return this
+     */
+    public NamedServerConfig service(String serviceName) {
+        services.add(serviceName);
+        return this;
+    }
+
+}
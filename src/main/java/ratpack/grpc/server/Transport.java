@@ -0,0 +1,18 @@
+package ratpack.grpc.server;
+
+public enum Transport {
+
+    /**
+     * The transport Ratpack uses for HTTP: epoll, kqueue or NIO, whichever is available.
+     */
+    AUTO,
+
+    /**
+     * The Netty incubator io_uring transport, falling back to {@link #AUTO} when it is not on the classpath or not supported by the kernel.
+     * <p>
+     * io_uring channels cannot be registered with Ratpack's event loops, so the server gets its own io_uring event loop group.
+     * Requires {@code io.netty.incubator:netty-incubator-transport-native-io_uring} and a Netty version it supports.
+     */
+    IO_URING
+
+}
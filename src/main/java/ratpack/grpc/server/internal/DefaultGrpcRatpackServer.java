@@ -1,7 +1,5 @@
 package ratpack.grpc.server.internal;
 
-import com.google.common.collect.Lists;
-import io.grpc.BindableService;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.ResourceLeakDetector;
 import org.slf4j.Logger;
@@ -14,6 +12,7 @@ import ratpack.func.Function;
 import ratpack.grpc.GrpcConfig;
 import ratpack.grpc.server.GrpcRatpackServer;
 import ratpack.grpc.server.GrpcServer;
+import ratpack.grpc.server.NamedServerConfig;
 import ratpack.impose.Impositions;
 import ratpack.impose.UserRegistryImposition;
 import ratpack.registry.Registry;
@@ -30,7 +29,9 @@ import ratpack.service.internal.ServicesGraph;
 import ratpack.util.Exceptions;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -60,6 +61,7 @@ public class DefaultGrpcRatpackServer implements GrpcRatpackServer {
     private Thread shutdownHookThread;
 
     private GrpcServer server;
+    private final List<GrpcServer> namedServers = new ArrayList<>();
 
     public DefaultGrpcRatpackServer(Action<? super RatpackServerSpec> definitionFactory, Impositions impositions) throws Exception {
         this.definitionFactory = definitionFactory;
@@ -130,10 +132,24 @@ public class DefaultGrpcRatpackServer implements GrpcRatpackServer {
             servicesGraph.start(new DefaultEvent(serverRegistry, reloading));
 
             // start server
-            List<BindableService> services = Lists.newArrayList(serverRegistry.getAll(BindableService.class));
-            GrpcConfig grpcConfig = new GrpcConfig().port(serverConfig.getPort()).useRatpackEventLoop(true);
-            server = new GrpcServer(execController, services, serverConfig, grpcConfig).start();
+            // the Ratpack server config decides the port, without changing the registry's gRPC config
+            GrpcConfig grpcConfig = serverRegistry.maybeGet(GrpcConfig.class).orElseGet(GrpcConfig::new);
+            server = GrpcServer.of(serverRegistry, grpcConfig)
+                    .port(serverConfig.getPort())
+                    .useRatpackEventLoop(true)
+                    .start();
             boundAddress = server.address();
+            try {
+                for (Map.Entry<String, NamedServerConfig> named : grpcConfig.getServers().entrySet()) {
+                    namedServers.add(GrpcServer.of(serverRegistry, named.getKey(), named.getValue()).start());
+                }
+            } catch (Exception e) {
+                // stop the servers started so far, before the exec controller they run on is closed
+                namedServers.forEach(GrpcServer::stop);
+                namedServers.clear();
+                server.stop();
+                throw e;
+            }
 
             String startMessage = String.format("Ratpack started %sfor %s://%s:%s", serverConfig.isDevelopment() ? "(development) " : "", getScheme(), getBindHost(), getBindPort());
 
@@ -190,6 +206,8 @@ public class DefaultGrpcRatpackServer implements GrpcRatpackServer {
                         servicesGraph.stop(new DefaultEvent(serverRegistry, reloading));
                     }
                 } finally {
+                    namedServers.forEach(GrpcServer::stop);
+                    namedServers.clear();
                     server.stop();
                     execController.close();
                 }
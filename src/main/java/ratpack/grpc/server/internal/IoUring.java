@@ -0,0 +1,58 @@
+package ratpack.grpc.server.internal;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import ratpack.api.Nullable;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Reflective access to the optional Netty incubator io_uring transport.
+ */
+public final class IoUring {
+
+    private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+
+    @Nullable
+    private static final Throwable UNAVAILABILITY_CAUSE;
+
+    static {
+        Throwable cause;
+        try {
+            Class<?> ioUring = Class.forName(PACKAGE + "IOUring");
+            if ((boolean) ioUring.getMethod("isAvailable").invoke(null)) {
+                cause = null;
+            } else {
+                cause = (Throwable) ioUring.getMethod("unavailabilityCause").invoke(null);
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            cause = e;
+        }
+        UNAVAILABILITY_CAUSE = cause;
+    }
+
+    private IoUring() {
+    }
+
+    public static boolean isAvailable() {
+        return UNAVAILABILITY_CAUSE == null;
+    }
+
+    @Nullable
+    public static Throwable unavailabilityCause() {
+        return UNAVAILABILITY_CAUSE;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Class<? extends ServerChannel> serverSocketChannelType() throws ClassNotFoundException {
+        return (Class<? extends ServerChannel>) Class.forName(PACKAGE + "IOUringServerSocketChannel");
+    }
+
+    public static EventLoopGroup eventLoopGroup(int threads) throws ReflectiveOperationException {
+        return (EventLoopGroup) Class.forName(PACKAGE + "IOUringEventLoopGroup")
+                .getConstructor(int.class, ThreadFactory.class)
+                .newInstance(threads, new DefaultThreadFactory("grpc-io-uring", true));
+    }
+
+}
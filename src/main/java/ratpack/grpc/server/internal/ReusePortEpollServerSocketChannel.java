@@ -0,0 +1,16 @@
+package ratpack.grpc.server.internal;
+
+import io.netty.channel.epoll.EpollServerSocketChannel;
+
+/**
+ * An epoll server channel with {@code SO_REUSEPORT} set before it is bound.
+ * <p>
+ * gRPC creates server channels reflectively and does not expose server channel options, so the option is set here instead.
+ */
+public class ReusePortEpollServerSocketChannel extends EpollServerSocketChannel {
+
+    public ReusePortEpollServerSocketChannel() {
+        config().setReusePort(true);
+    }
+
+}
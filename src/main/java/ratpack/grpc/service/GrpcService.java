@@ -1,34 +1,71 @@
 package ratpack.grpc.service;
 
-import com.google.common.collect.Lists;
-import io.grpc.BindableService;
-import ratpack.exec.ExecController;
+import ratpack.api.Nullable;
 import ratpack.grpc.GrpcConfig;
+import ratpack.grpc.log.AccessLog;
 import ratpack.grpc.server.GrpcServer;
+import ratpack.grpc.server.NamedServerConfig;
+import ratpack.grpc.trace.Tracing;
 import ratpack.registry.Registry;
-import ratpack.server.ServerConfig;
+import ratpack.service.DependsOn;
 import ratpack.service.Service;
 import ratpack.service.StartEvent;
 import ratpack.service.StopEvent;
 
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+// start after, and stop before, the services that calls are recorded to
+@DependsOn({AccessLog.class, Tracing.class})
 public class GrpcService implements Service {
 
     private GrpcServer server;
+    private final Map<String, GrpcServer> namedServers = new LinkedHashMap<>();
 
     @Override
     public void onStart(StartEvent event) throws Exception {
         Registry registry = event.getRegistry();
-        ExecController execController = registry.get(ExecController.class);
-        List<BindableService> services = Lists.newArrayList(registry.getAll(BindableService.class));
-        ServerConfig serverConfig = registry.get(ServerConfig.class);
         GrpcConfig config = registry.get(GrpcConfig.class);
-        this.server = new GrpcServer(execController, services, serverConfig, config).start();
+        this.server = GrpcServer.of(registry, config).start();
+        try {
+            for (Map.Entry<String, NamedServerConfig> named : config.getServers().entrySet()) {
+                namedServers.put(named.getKey(), GrpcServer.of(registry, named.getKey(), named.getValue()).start());
+            }
+        } catch (Exception e) {
+            // services that fail to start are not stopped
+            stop();
+            throw e;
+        }
     }
 
     @Override
     public void onStop(StopEvent event) {
+        stop();
+    }
+
+    private void stop() {
+        namedServers.values().forEach(GrpcServer::stop);
+        namedServers.clear();
         server.stop();
     }
+
+    /**
+     * The main server.
+     *
+     * @return the main server
+     */
+    public GrpcServer getServer() {
+        return server;
+    }
+
+    /**
+     * A server configured with {@link GrpcConfig#server(String, ratpack.func.Action)}.
+     *
+     * @param name the server name
+     * @return the named server, or {@code null} if there is no such server
+     */
+    @Nullable
+    public GrpcServer getServer(String name) {
+        return namedServers.get(name);
+    }
 }
@@ -0,0 +1,153 @@
+package ratpack.grpc.shed;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds new calls when the queue in front of the call handlers stays too long, after the CoDel queue management algorithm.
+ * <p>
+ * Every task of the {@link #wrap(Executor) wrapped} executor records how long it waited before it started. When the shortest
+ * wait of an interval is above the target, the queue is not just absorbing a burst but is persistently behind, and new calls
+ * are rejected with {@code UNAVAILABLE} until a task waits less than the target again, i.e. the queue has drained.
+ * Calls already accepted are never shed, so clients see either a fast rejection or a bounded delay.
+ * Shedding also stops when no task has been observed for an interval, as the queue is then empty.
+ */
+public class LoadShedder {
+
+    private static final Metadata.Key<String> RETRY_PUSHBACK = Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final boolean enabled;
+    private volatile Limits limits;
+
+    private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong intervalMinDelay = new AtomicLong(Long.MAX_VALUE);
+    private volatile long lastObserved = System.nanoTime();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean overloaded;
+
+    public LoadShedder(LoadSheddingConfig config) {
+        this.enabled = config.isEnabled();
+        this.limits = new Limits(config);
+    }
+
+    /**
+     * Applies the target and interval of the given config. Both change together, and whether calls are currently shed
+     * is kept until the next interval ends.
+     *
+     * @param config the new settings
+     */
+    public void update(LoadSheddingConfig config) {
+        this.limits = new Limits(config);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether new calls are currently being rejected.
+     *
+     * @return whether the queue is overloaded
+     */
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    /**
+     * The number of calls rejected because the queue was overloaded.
+     *
+     * @return the number of rejected calls
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Wraps an executor so that the queueing delay of every task is observed.
+     *
+     * @param executor the call handler executor
+     * @return an executor that measures queueing delay
+     */
+    public Executor wrap(Executor executor) {
+        return task -> {
+            long queuedAt = System.nanoTime();
+            executor.execute(() -> {
+                observe(System.nanoTime() - queuedAt);
+                task.run();
+            });
+        };
+    }
+
+    /**
+     * Observes how long a task waited before it started.
+     *
+     * @param delayNanos the queueing delay
+     */
+    public void observe(long delayNanos) {
+        lastObserved = System.nanoTime();
+        Limits limits = this.limits;
+        if (delayNanos < limits.targetNanos) {
+            // the queue has drained, whatever the rest of the interval looks like
+            overloaded = false;
+        }
+
+        long minDelay = intervalMinDelay.get();
+        while (delayNanos < minDelay && !intervalMinDelay.compareAndSet(minDelay, delayNanos)) {
+            minDelay = intervalMinDelay.get();
+        }
+
+        long now = System.nanoTime();
+        long start = intervalStart.get();
+        if (now - start >= limits.intervalNanos && intervalStart.compareAndSet(start, now)) {
+            long min = intervalMinDelay.getAndSet(Long.MAX_VALUE);
+            overloaded = min != Long.MAX_VALUE && min > limits.targetNanos;
+        }
+    }
+
+    public ServerInterceptor serverInterceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                if (!overloaded) {
+                    return next.startCall(call, headers);
+                }
+                Limits limits = LoadShedder.this.limits;
+                if (System.nanoTime() - lastObserved >= limits.intervalNanos) {
+                    // nothing was queued for an interval, e.g. priority lanes drained while every new call was rejected here
+                    overloaded = false;
+                    return next.startCall(call, headers);
+                }
+                rejected.increment();
+                Metadata trailers = new Metadata();
+                // tells retrying clients to back off for an interval
+                trailers.put(RETRY_PUSHBACK, Long.toString(limits.intervalMillis));
+                call.close(Status.UNAVAILABLE.withDescription("server overloaded, queueing delay above " + limits.targetMillis + "ms"), trailers);
+                return new ServerCall.Listener<ReqT>() {
+                };
+            }
+        };
+    }
+
+    private static final class Limits {
+
+        private final long targetNanos;
+        private final long targetMillis;
+        private final long intervalNanos;
+        private final long intervalMillis;
+
+        private Limits(LoadSheddingConfig config) {
+            this.targetNanos = config.getTarget().toNanos();
+            this.targetMillis = config.getTarget().toMillis();
+            this.intervalNanos = config.getInterval().toNanos();
+            this.intervalMillis = config.getInterval().toMillis();
+        }
+    }
+
+}
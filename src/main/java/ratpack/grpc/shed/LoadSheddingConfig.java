@@ -0,0 +1,62 @@
+package ratpack.grpc.shed;
+
+import java.time.Duration;
+
+public class LoadSheddingConfig {
+
+    private boolean enabled;
+    private Duration target = Duration.ofMillis(5);
+    private Duration interval = Duration.ofMillis(100);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LoadSheddingConfig enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * The acceptable queueing delay. Calls are shed once even the shortest delay in an interval exceeds it.
+     *
+     * @return the target queueing delay
+     */
+    public Duration getTarget() {
+        return target;
+    }
+
+    public LoadSheddingConfig target(Duration target) {
+        if (target.isNegative() || target.isZero()) {
+            throw new IllegalArgumentException("target must be positive");
+        }
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * How long the queueing delay must stay above the target before calls are shed, roughly the longest burst the queue absorbs.
+     *
+     * @return the interval
+     */
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public LoadSheddingConfig interval(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.interval = interval;
+        return this;
+    }
+
+    public LoadSheddingConfig copy() {
+        LoadSheddingConfig copy = new LoadSheddingConfig();
+        copy.enabled = enabled;
+        copy.target = target;
+        copy.interval = interval;
+        return copy;
+    }
+
+}
@@ -0,0 +1,186 @@
+package ratpack.grpc.tls;
+
+import io.grpc.netty.GrpcSslContexts;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslSessionContext;
+import io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslProvider;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.exec.ExecController;
+import ratpack.service.Service;
+import ratpack.service.StartEvent;
+import ratpack.service.StopEvent;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TLS context of the gRPC servers, built from the certificate and key files of a {@link TlsConfig}.
+ * <p>
+ * OpenSSL is used when {@code netty-tcnative} is on the classpath, which makes full handshakes several times cheaper than
+ * the JDK implementation. Reconnecting clients can skip the full handshake altogether: sessions are cached for clients that
+ * resume by session id, and with OpenSSL, session tickets are encrypted with keys generated at startup and kept for the
+ * life of the server.
+ * <p>
+ * The files are checked for changes every {@link TlsConfig#getWatchInterval() watch interval}, and new connections use the
+ * new certificates as soon as they are loaded, without restarting the listeners. Established connections are not affected.
+ * Files that can not be loaded, e.g. because they are only partly written, are logged and retried at the next check.
+ */
+public class GrpcTls implements Service {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcTls.class);
+
+    private static final int TICKET_KEY_LENGTH = 16;
+
+    private final TlsConfig config;
+    private final SslProvider provider;
+    private final OpenSslSessionTicketKey ticketKey;
+    @Nullable
+    private final ReloadingSslContext sslContext;
+
+    // guarded by this
+    private List<FileTime> lastModified;
+    @Nullable
+    private ScheduledFuture<?> watch;
+
+    public GrpcTls(TlsConfig config) throws IOException {
+        this.config = config;
+        this.provider = config.getProvider() != null ? config.getProvider() : OpenSsl.isAvailable() ? SslProvider.OPENSSL : SslProvider.JDK;
+        this.ticketKey = newTicketKey();
+        if (config.isEnabled()) {
+            this.lastModified = lastModified();
+            this.sslContext = new ReloadingSslContext(build());
+            logger.info("gRPC TLS uses {}", provider);
+        } else {
+            this.sslContext = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return sslContext != null;
+    }
+
+    /**
+     * The TLS implementation in use.
+     *
+     * @return the TLS implementation
+     */
+    public SslProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * The server context. It always uses the latest loaded certificates.
+     *
+     * @return the server context
+     */
+    public SslContext sslContext() {
+        if (sslContext == null) {
+            throw new IllegalStateException("TLS is not configured");
+        }
+        return sslContext;
+    }
+
+    /**
+     * Loads the certificate and key files again, whether or not they changed.
+     *
+     * @throws IOException if the files can not be read or are invalid, in which case the current certificates stay in use
+     */
+    public synchronized void reload() throws IOException {
+        if (sslContext == null) {
+            throw new IllegalStateException("TLS is not configured");
+        }
+        List<FileTime> modified = lastModified();
+        SslContext previous = sslContext.getDelegate();
+        sslContext.setDelegate(build());
+        lastModified = modified;
+        // OpenSSL contexts are reference counted, engines created from the previous context keep it alive until they close,
+        // and engines being created hold a reference while they are
+        ReferenceCountUtil.release(previous);
+        logger.info("gRPC TLS certificates reloaded from {}", config.getCertChain());
+    }
+
+    private synchronized void reloadIfModified() {
+        try {
+            if (!lastModified().equals(lastModified)) {
+                reload();
+            }
+        } catch (Exception e) {
+            logger.warn("unable to reload gRPC TLS certificates from " + config.getCertChain() + ", keeping the current ones", e);
+        }
+    }
+
+    private SslContext build() throws SSLException {
+        SslContextBuilder builder = SslContextBuilder.forServer(config.getCertChain().toFile(), config.getPrivateKey().toFile(), config.getKeyPassword())
+                .clientAuth(config.getClientAuth())
+                .sessionCacheSize(config.getSessionCacheSize())
+                .sessionTimeout(config.getSessionTimeout().getSeconds());
+        if (config.getTrustCertCollection() != null) {
+            builder.trustManager(config.getTrustCertCollection().toFile());
+        }
+        SslContext context = GrpcSslContexts.configure(builder, provider).build();
+        if (context.sessionContext() instanceof OpenSslSessionContext) {
+            // the same keys in every context, so tickets issued before a reload still resume
+            ((OpenSslSessionContext) context.sessionContext()).setTicketKeys(ticketKey);
+        }
+        return context;
+    }
+
+    private List<FileTime> lastModified() throws IOException {
+        List<FileTime> modified = new ArrayList<>(3);
+        modified.add(Files.getLastModifiedTime(config.getCertChain()));
+        modified.add(Files.getLastModifiedTime(config.getPrivateKey()));
+        Path trust = config.getTrustCertCollection();
+        if (trust != null) {
+            modified.add(Files.getLastModifiedTime(trust));
+        }
+        return modified;
+    }
+
+    private static OpenSslSessionTicketKey newTicketKey() {
+        SecureRandom random = new SecureRandom();
+        byte[] name = new byte[TICKET_KEY_LENGTH];
+        byte[] hmacKey = new byte[TICKET_KEY_LENGTH];
+        byte[] aesKey = new byte[TICKET_KEY_LENGTH];
+        random.nextBytes(name);
+        random.nextBytes(hmacKey);
+        random.nextBytes(aesKey);
+        return new OpenSslSessionTicketKey(name, hmacKey, aesKey);
+    }
+
+    @Override
+    public synchronized void onStart(StartEvent event) {
+        if (sslContext == null || config.getWatchInterval().isZero()) {
+            return;
+        }
+        long interval = config.getWatchInterval().toNanos();
+        ExecController execController = event.getRegistry().get(ExecController.class);
+        // the event loop only times the polls, reading files and building contexts blocks
+        Executor blockingExecutor = execController.getBlockingExecutor();
+        watch = execController.getExecutor()
+                .scheduleWithFixedDelay(() -> blockingExecutor.execute(this::reloadIfModified), interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void onStop(StopEvent event) {
+        if (watch != null) {
+            watch.cancel(false);
+            watch = null;
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+package ratpack.grpc.tls;
+
+import io.grpc.Attributes;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerTransportFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ratpack.api.Nullable;
+import ratpack.grpc.exec.GrpcExecution;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+
+/**
+ * Identifies the clients of mutual TLS connections, once per connection rather than once per call.
+ * <p>
+ * A transport filter parses the client certificate when a connection's handshake completes and keeps the
+ * {@link PeerIdentity} with the connection. An interceptor then puts the identity of each call's connection into the call's
+ * gRPC context, so authorization can use {@link PeerIdentity#current()} without parsing certificates on every call.
+ * Calls on connections without a client certificate pass through untouched.
+ */
+public class PeerIdentities {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerIdentities.class);
+
+    private static final Attributes.Key<PeerIdentity> IDENTITY = Attributes.Key.create("ratpack-grpc-peer-identity");
+
+    private final boolean enabled;
+
+    public PeerIdentities(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The identity of the client a call was made by.
+     *
+     * @param callAttributes the attributes of a server call
+     * @return the peer identity, or {@code null} if the client presented no certificate
+     */
+    @Nullable
+    public static PeerIdentity identity(Attributes callAttributes) {
+        return callAttributes.get(IDENTITY);
+    }
+
+    public ServerTransportFilter transportFilter() {
+        return new ServerTransportFilter() {
+            @Override
+            public Attributes transportReady(Attributes transportAttrs) {
+                SSLSession session = transportAttrs.get(Grpc.TRANSPORT_ATTR_SSL_SESSION);
+                if (session == null) {
+                    return transportAttrs;
+                }
+                Certificate[] certificates;
+                try {
+                    certificates = session.getPeerCertificates();
+                } catch (SSLPeerUnverifiedException e) {
+                    return transportAttrs;
+                }
+                if (certificates.length == 0 || !(certificates[0] instanceof X509Certificate)) {
+                    return transportAttrs;
+                }
+                PeerIdentity identity = PeerIdentity.of((X509Certificate) certificates[0]);
+                logger.debug("connection from {} identified as {}", transportAttrs.get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR), identity);
+                return transportAttrs.toBuilder().set(IDENTITY, identity).build();
+            }
+        };
+    }
+
+    public ServerInterceptor serverInterceptor() {
+        GrpcExecution.expose(PeerIdentity.class, PeerIdentity.KEY);
+        return new ServerInterceptor() {
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+                PeerIdentity identity = call.getAttributes().get(IDENTITY);
+                if (identity == null) {
+                    return next.startCall(call, headers);
+                }
+                return Contexts.interceptCall(Context.current().withValue(PeerIdentity.KEY, identity), call, headers, next);
+            }
+        };
+    }
+
+}
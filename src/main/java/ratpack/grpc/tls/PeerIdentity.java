@@ -0,0 +1,128 @@
+package ratpack.grpc.tls;
+
+import io.grpc.Context;
+import ratpack.api.Nullable;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import java.security.Principal;
+import java.security.cert.CertificateParsingException;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The identity of a client, from the certificate it presented for mutual TLS.
+ * <p>
+ * The name is the client's SPIFFE ID, i.e. a {@code spiffe://} URI subject alternative name, or otherwise the common name
+ * of the certificate subject. Identities are parsed once per connection by {@link PeerIdentities}, and are available from
+ * {@link #current()}, the gRPC {@link Context}, and the registry of executions started with {@link ratpack.grpc.exec.GrpcExecution}.
+ */
+public final class PeerIdentity implements Principal {
+
+    public static final Context.Key<PeerIdentity> KEY = Context.key("ratpack-grpc-peer-identity");
+
+    private static final int URI_NAME = 6;
+    private static final String SPIFFE_SCHEME = "spiffe://";
+
+    private final X509Certificate certificate;
+    @Nullable
+    private final String spiffeId;
+    @Nullable
+    private final String commonName;
+
+    private PeerIdentity(X509Certificate certificate, @Nullable String spiffeId, @Nullable String commonName) {
+        this.certificate = certificate;
+        this.spiffeId = spiffeId;
+        this.commonName = commonName;
+    }
+
+    /**
+     * Parses the identity of a client certificate.
+     *
+     * @param certificate the client's leaf certificate
+     * @return the identity
+     */
+    public static PeerIdentity of(X509Certificate certificate) {
+        return new PeerIdentity(certificate, spiffeId(certificate), commonName(certificate));
+    }
+
+    /**
+     * The identity of the client of the current call, if it presented a certificate.
+     *
+     * @return the current peer identity, or {@code null}
+     */
+    @Nullable
+    public static PeerIdentity current() {
+        return KEY.get();
+    }
+
+    /**
+     * The SPIFFE ID if the certificate has one, otherwise the subject common name, otherwise the whole subject.
+     *
+     * @return the name of the client
+     */
+    @Override
+    public String getName() {
+        if (spiffeId != null) {
+            return spiffeId;
+        }
+        return commonName != null ? commonName : certificate.getSubjectX500Principal().getName();
+    }
+
+    @Nullable
+    public String getSpiffeId() {
+        return spiffeId;
+    }
+
+    @Nullable
+    public String getCommonName() {
+        return commonName;
+    }
+
+    public X509Certificate getCertificate() {
+        return certificate;
+    }
+
+    @Nullable
+    private static String spiffeId(X509Certificate certificate) {
+        Collection<List<?>> names;
+        try {
+            names = certificate.getSubjectAlternativeNames();
+        } catch (CertificateParsingException e) {
+            return null;
+        }
+        if (names != null) {
+            for (List<?> name : names) {
+                if (name.size() == 2 && Integer.valueOf(URI_NAME).equals(name.get(0)) && name.get(1) instanceof String
+                        && ((String) name.get(1)).startsWith(SPIFFE_SCHEME)) {
+                    return (String) name.get(1);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String commonName(X509Certificate certificate) {
+        try {
+            List<Rdn> rdns = new LdapName(certificate.getSubjectX500Principal().getName()).getRdns();
+            // the most specific name comes last
+            for (int i = rdns.size() - 1; i >= 0; i--) {
+                if ("CN".equalsIgnoreCase(rdns.get(i).getType())) {
+                    return rdns.get(i).getValue().toString();
+                }
+            }
+        } catch (InvalidNameException ignored) {
+            // no common name
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "PeerIdentity{" + getName() + "}";
+    }
+
+}
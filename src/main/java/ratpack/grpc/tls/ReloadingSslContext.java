@@ -0,0 +1,102 @@
+package ratpack.grpc.tls;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.ApplicationProtocolNegotiator;
+import io.netty.handler.ssl.SslContext;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.ReferenceCounted;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
+import java.util.List;
+
+/**
+ * A server context whose delegate can be replaced while the server runs, so that new connections use new certificates
+ * and established connections keep theirs.
+ */
+class ReloadingSslContext extends SslContext {
+
+    private volatile SslContext delegate;
+
+    ReloadingSslContext(SslContext delegate) {
+        this.delegate = delegate;
+    }
+
+    SslContext getDelegate() {
+        return delegate;
+    }
+
+    void setDelegate(SslContext delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isClient() {
+        return false;
+    }
+
+    @Override
+    public List<String> cipherSuites() {
+        return delegate.cipherSuites();
+    }
+
+    @Override
+    public long sessionCacheSize() {
+        return delegate.sessionCacheSize();
+    }
+
+    @Override
+    public long sessionTimeout() {
+        return delegate.sessionTimeout();
+    }
+
+    @Override
+    public ApplicationProtocolNegotiator applicationProtocolNegotiator() {
+        return delegate.applicationProtocolNegotiator();
+    }
+
+    @Override
+    public SSLEngine newEngine(ByteBufAllocator alloc) {
+        SslContext current = acquire();
+        try {
+            return current.newEngine(alloc);
+        } finally {
+            ReferenceCountUtil.release(current);
+        }
+    }
+
+    @Override
+    public SSLEngine newEngine(ByteBufAllocator alloc, String peerHost, int peerPort) {
+        SslContext current = acquire();
+        try {
+            return current.newEngine(alloc, peerHost, peerPort);
+        } finally {
+            ReferenceCountUtil.release(current);
+        }
+    }
+
+    /**
+     * Retains the current delegate, so that a reload can not free it while an engine is created from it.
+     */
+    private SslContext acquire() {
+        while (true) {
+            SslContext current = delegate;
+            if (!(current instanceof ReferenceCounted)) {
+                return current;
+            }
+            try {
+                ((ReferenceCounted) current).retain();
+                return current;
+            } catch (IllegalReferenceCountException e) {
+                // released by a reload, which replaced the delegate first
+            }
+        }
+    }
+
+    @Override
+    public SSLSessionContext sessionContext() {
+        return delegate.sessionContext();
+    }
+
+}
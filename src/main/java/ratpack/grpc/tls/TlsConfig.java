@@ -0,0 +1,159 @@
+package ratpack.grpc.tls;
+
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslProvider;
+import ratpack.api.Nullable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class TlsConfig {
+
+    @Nullable
+    private Path certChain;
+    @Nullable
+    private Path privateKey;
+    @Nullable
+    private String keyPassword;
+    @Nullable
+    private Path trustCertCollection;
+    private ClientAuth clientAuth = ClientAuth.NONE;
+    @Nullable
+    private SslProvider provider;
+    private long sessionCacheSize = 20_480;
+    private Duration sessionTimeout = Duration.ofHours(1);
+    private Duration watchInterval = Duration.ofMinutes(1);
+
+    /**
+     * Whether TLS is configured, i.e. a certificate chain and private key are set.
+     *
+     * @return whether the server uses TLS
+     */
+    public boolean isEnabled() {
+        return certChain != null && privateKey != null;
+    }
+
+    @Nullable
+    public Path getCertChain() {
+        return certChain;
+    }
+
+    /**
+     * The PEM certificate chain file and PKCS#8 PEM private key file of the server.
+     *
+     * @param certChain the certificate chain file
+     * @param privateKey the private key file
+     * @return this
+     */
+    public TlsConfig keyCertChain(Path certChain, Path privateKey) {
+        this.certChain = certChain;
+        this.privateKey = privateKey;
+        return this;
+    }
+
+    @Nullable
+    public Path getPrivateKey() {
+        return privateKey;
+    }
+
+    @Nullable
+    public String getKeyPassword() {
+        return keyPassword;
+    }
+
+    public TlsConfig keyPassword(String keyPassword) {
+        this.keyPassword = keyPassword;
+        return this;
+    }
+
+    /**
+     * The PEM file of certificates that client certificates are verified against. Without it, the JDK's trust store is used.
+     *
+     * @return the trusted certificates file
+     */
+    @Nullable
+    public Path getTrustCertCollection() {
+        return trustCertCollection;
+    }
+
+    public TlsConfig trustCertCollection(Path trustCertCollection) {
+        this.trustCertCollection = trustCertCollection;
+        return this;
+    }
+
+    public ClientAuth getClientAuth() {
+        return clientAuth;
+    }
+
+    public TlsConfig clientAuth(ClientAuth clientAuth) {
+        this.clientAuth = clientAuth;
+        return this;
+    }
+
+    /**
+     * The TLS implementation. Defaults to OpenSSL, i.e. {@code netty-tcnative}, when it is on the classpath, and the JDK otherwise.
+     *
+     * @return the TLS implementation, or {@code null} for the default
+     */
+    @Nullable
+    public SslProvider getProvider() {
+        return provider;
+    }
+
+    public TlsConfig provider(SslProvider provider) {
+        this.provider = provider;
+        return this;
+    }
+
+    /**
+     * The number of sessions cached for resumption by clients that reconnect without a session ticket.
+     *
+     * @return the session cache size
+     */
+    public long getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public TlsConfig sessionCacheSize(long sessionCacheSize) {
+        if (sessionCacheSize < 0) {
+            throw new IllegalArgumentException("sessionCacheSize must not be negative");
+        }
+        this.sessionCacheSize = sessionCacheSize;
+        return this;
+    }
+
+    /**
+     * How long a session can be resumed, both from the session cache and from a session ticket.
+     *
+     * @return the session timeout
+     */
+    public Duration getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    public TlsConfig sessionTimeout(Duration sessionTimeout) {
+        if (sessionTimeout.isNegative() || sessionTimeout.isZero()) {
+            throw new IllegalArgumentException("sessionTimeout must be positive");
+        }
+        this.sessionTimeout = sessionTimeout;
+        return this;
+    }
+
+    /**
+     * How often the certificate and key files are checked for changes. Zero never reloads them.
+     *
+     * @return the watch interval
+     */
+    public Duration getWatchInterval() {
+        return watchInterval;
+    }
+
+    public TlsConfig watchInterval(Duration watchInterval) {
+        if (watchInterval.isNegative()) {
+            throw new IllegalArgumentException("watchInterval must not be negative");
+        }
+        this.watchInterval = watchInterval;
+        return this;
+    }
+
+}
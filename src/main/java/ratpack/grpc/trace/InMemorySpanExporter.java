@@ -0,0 +1,27 @@
+package ratpack.grpc.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps exported spans in memory, for testing.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final List<Span> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void export(List<Span> spans) {
+        this.spans.addAll(spans);
+    }
+
+    public List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public void reset() {
+        spans.clear();
+    }
+
+}
@@ -0,0 +1,42 @@
+package ratpack.grpc.trace;
+
+import org.slf4j.MDC;
+import ratpack.api.Nullable;
+
+/**
+ * Puts the trace MDC entries for the code running on this thread, restoring the entries they replaced on exit,
+ * e.g. those of the call a segment runs in.
+ */
+final class MdcScope {
+
+    @Nullable
+    private final String previousTraceId;
+    @Nullable
+    private final String previousSpanId;
+
+    private MdcScope(@Nullable String previousTraceId, @Nullable String previousSpanId) {
+        this.previousTraceId = previousTraceId;
+        this.previousSpanId = previousSpanId;
+    }
+
+    static MdcScope enter(String traceId, String spanId) {
+        MdcScope scope = new MdcScope(MDC.get(Tracing.MDC_TRACE_ID), MDC.get(Tracing.MDC_SPAN_ID));
+        MDC.put(Tracing.MDC_TRACE_ID, traceId);
+        MDC.put(Tracing.MDC_SPAN_ID, spanId);
+        return scope;
+    }
+
+    void exit() {
+        restore(Tracing.MDC_TRACE_ID, previousTraceId);
+        restore(Tracing.MDC_SPAN_ID, previousSpanId);
+    }
+
+    private static void restore(String key, @Nullable String previous) {
+        if (previous == null) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, previous);
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package ratpack.grpc.trace;
+
+import io.grpc.Context;
+import ratpack.exec.ExecInterceptor;
+import ratpack.exec.Execution;
+import ratpack.func.Block;
+
+/**
+ * Records a span for each segment of an execution started from a sampled call.
+ */
+class SegmentTracer implements ExecInterceptor {
+
+    static final Context.Key<SegmentTracer> KEY = Context.key("ratpack-grpc-segment-tracer");
+
+    private final Tracing tracing;
+    private final TraceContext trace;
+
+    SegmentTracer(Tracing tracing, TraceContext trace) {
+        this.tracing = tracing;
+        this.trace = trace;
+    }
+
+    @Override
+    public void intercept(Execution execution, ExecType execType, Block continuation) throws Exception {
+        Span span = tracing.start(execType == ExecType.BLOCKING ? "ratpack.blocking" : "ratpack.compute", Span.Kind.INTERNAL, trace.child());
+        // log lines written by the segment belong to its own span
+        MdcScope mdc = MdcScope.enter(span.getTraceId(), span.getSpanId());
+        try {
+            continuation.execute();
+        } finally {
+            mdc.exit();
+            tracing.finish(span, null);
+        }
+    }
+
+}
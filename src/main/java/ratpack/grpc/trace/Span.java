@@ -0,0 +1,83 @@
+package ratpack.grpc.trace;
+
+import io.grpc.Status;
+import ratpack.api.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A finished, sampled span.
+ */
+public final class Span {
+
+    public enum Kind {
+        SERVER, CLIENT, INTERNAL
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final TraceContext context;
+    private final long startEpochMicros;
+    private final long startNanos;
+
+    private long durationNanos;
+    private String status;
+
+    Span(String name, Kind kind, TraceContext context) {
+        this.name = name;
+        this.kind = kind;
+        this.context = context;
+        this.startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    void end(@Nullable Status status) {
+        this.durationNanos = System.nanoTime() - startNanos;
+        this.status = status == null ? null : status.getCode().name();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getTraceId() {
+        return context.getTraceId();
+    }
+
+    public String getSpanId() {
+        return context.getSpanId();
+    }
+
+    @Nullable
+    public String getParentSpanId() {
+        return context.getParentSpanId();
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * The gRPC status code of the call, or {@code null} for spans that are not calls.
+     *
+     * @return the status code name
+     */
+    @Nullable
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + context + " " + durationNanos + "ns " + status;
+    }
+
+}
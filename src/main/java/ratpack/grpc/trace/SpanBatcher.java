@@ -0,0 +1,94 @@
+package ratpack.grpc.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands finished spans to an exporter in batches, from a background thread.
+ * <p>
+ * Recording a span never blocks: when the queue is full the span is dropped and counted.
+ */
+class SpanBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpanBatcher.class);
+
+    // wakes the export thread on close
+    private static final Span CLOSE = new Span("close", Span.Kind.INTERNAL, TraceContext.root());
+
+    private final SpanExporter exporter;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<Span> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    SpanBatcher(SpanExporter exporter, TracingConfig config) {
+        this.exporter = exporter;
+        this.batchSize = config.getBatchSize();
+        this.flushIntervalNanos = config.getFlushInterval().toNanos();
+        this.queue = new ArrayBlockingQueue<>(config.getMaxQueueSize());
+        this.thread = new Thread(this::run, "grpc-trace-exporter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void record(Span span) {
+        if (!queue.offer(span)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private void run() {
+        List<Span> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Span first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    export(batch);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        while (queue.drainTo(batch, batchSize) > 0) {
+            export(batch);
+        }
+    }
+
+    private void export(List<Span> batch) {
+        batch.remove(CLOSE);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            exporter.export(batch);
+        } catch (Exception e) {
+            logger.warn("failed to export " + batch.size() + " spans", e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    void close() throws Exception {
+        running = false;
+        queue.offer(CLOSE);
+        thread.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+        exporter.close();
+    }
+
+}
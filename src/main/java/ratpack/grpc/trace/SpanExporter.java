@@ -0,0 +1,16 @@
+package ratpack.grpc.trace;
+
+import java.util.List;
+
+/**
+ * Receives batches of finished spans from a background thread.
+ */
+public interface SpanExporter extends AutoCloseable {
+
+    void export(List<Span> spans) throws Exception;
+
+    @Override
+    default void close() throws Exception {
+    }
+
+}
@@ -0,0 +1,151 @@
+package ratpack.grpc.trace;
+
+import io.grpc.Context;
+import io.grpc.Metadata;
+import ratpack.api.Nullable;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The identity of a sampled span, propagated between services with the W3C {@code traceparent} header.
+ * <p>
+ * Only sampled calls have a trace context. It is available from {@link #current()}, the gRPC {@link Context},
+ * and the registry of executions started with {@link ratpack.grpc.exec.GrpcExecution}.
+ */
+public final class TraceContext {
+
+    public static final Metadata.Key<String> TRACEPARENT = Metadata.Key.of("traceparent", Metadata.ASCII_STRING_MARSHALLER);
+
+    public static final Context.Key<TraceContext> KEY = Context.key("ratpack-grpc-trace-context");
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+    private final long parentSpanId;
+
+    private String traceIdHex;
+    private String spanIdHex;
+
+    TraceContext(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+    }
+
+    /**
+     * The trace context of the current gRPC context, if the call is sampled.
+     *
+     * @return the current trace context, or {@code null}
+     */
+    @Nullable
+    public static TraceContext current() {
+        return KEY.get();
+    }
+
+    static TraceContext root() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new TraceContext(random.nextLong(), nonZero(random), nonZero(random), 0);
+    }
+
+    TraceContext child() {
+        return new TraceContext(traceIdHigh, traceIdLow, nonZero(ThreadLocalRandom.current()), spanId);
+    }
+
+    private static long nonZero(ThreadLocalRandom random) {
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    public String getTraceId() {
+        if (traceIdHex == null) {
+            traceIdHex = hex(traceIdHigh) + hex(traceIdLow);
+        }
+        return traceIdHex;
+    }
+
+    public String getSpanId() {
+        if (spanIdHex == null) {
+            spanIdHex = hex(spanId);
+        }
+        return spanIdHex;
+    }
+
+    @Nullable
+    public String getParentSpanId() {
+        return parentSpanId == 0 ? null : hex(parentSpanId);
+    }
+
+    /**
+     * The {@code traceparent} header value identifying this span as the parent of a downstream call.
+     *
+     * @return the header value
+     */
+    public String toTraceparent() {
+        return "00-" + getTraceId() + "-" + getSpanId() + "-01";
+    }
+
+    /**
+     * The result of parsing an incoming {@code traceparent} header.
+     */
+    enum Parent {
+        ABSENT, SAMPLED, NOT_SAMPLED
+    }
+
+    static Parent parent(@Nullable String traceparent) {
+        if (traceparent == null || traceparent.length() < 55 || traceparent.charAt(2) != '-') {
+            return Parent.ABSENT;
+        }
+        int flags = Character.digit(traceparent.charAt(54), 16);
+        if (flags < 0) {
+            return Parent.ABSENT;
+        }
+        return (flags & 1) == 1 ? Parent.SAMPLED : Parent.NOT_SAMPLED;
+    }
+
+    /**
+     * Parses a {@code traceparent} header value of the form {@code 00-<trace id>-<parent span id>-<flags>},
+     * returning a child context of the parent span.
+     *
+     * @param traceparent the header value
+     * @return a new child trace context, or {@code null} if the value is invalid
+     */
+    @Nullable
+    static TraceContext childOf(String traceparent) {
+        if (traceparent.length() < 55 || traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+            return null;
+        }
+        try {
+            long traceIdHigh = Long.parseUnsignedLong(traceparent.substring(3, 19), 16);
+            long traceIdLow = Long.parseUnsignedLong(traceparent.substring(19, 35), 16);
+            long parentSpanId = Long.parseUnsignedLong(traceparent.substring(36, 52), 16);
+            if ((traceIdHigh == 0 && traceIdLow == 0) || parentSpanId == 0) {
+                return null;
+            }
+            return new TraceContext(traceIdHigh, traceIdLow, parentSpanId, 0).child();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String hex(long value) {
+        String hex = Long.toHexString(value);
+        if (hex.length() == 16) {
+            return hex;
+        }
+        StringBuilder padded = new StringBuilder(16);
+        for (int i = hex.length(); i < 16; i++) {
+            padded.append('0');
+        }
+        return padded.append(hex).toString();
+    }
+
+    @Override
+    public String toString() {
+        return toTraceparent();
+    }
+
+}
@@ -0,0 +1,110 @@
+package ratpack.grpc.trace;
+
+import io.grpc.ClientInterceptor;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import ratpack.api.Nullable;
+import ratpack.grpc.exec.GrpcExecution;
+import ratpack.service.Service;
+import ratpack.service.StopEvent;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled distributed tracing for gRPC calls, propagated with the W3C {@code traceparent} header.
+ * <p>
+ * Sampled server calls record a span for the call, and for every segment of Ratpack executions started from the call with
+ * {@link GrpcExecution}. The {@link TraceContext} is available from the gRPC context, the execution registry,
+ * and the {@code traceId} and {@code spanId} MDC entries while the call's callbacks and segments run.
+ * <p>
+ * Unsampled calls pass straight through to the service without any wrapping.
+ */
+public class Tracing implements Service {
+
+    public static final String MDC_TRACE_ID = "traceId";
+    public static final String MDC_SPAN_ID = "spanId";
+
+    private final TracingConfig config;
+
+    @Nullable
+    private final SpanBatcher batcher;
+    private volatile double sampleRate;
+
+    private Tracing(TracingConfig config, @Nullable SpanBatcher batcher) {
+        this.config = config;
+        this.batcher = batcher;
+        this.sampleRate = config.getSampleRate();
+    }
+
+    public static Tracing of(TracingConfig config) throws IOException {
+        if (!config.isEnabled()) {
+            return new Tracing(config, null);
+        }
+        SpanExporter exporter = config.getExporter();
+        if (exporter == null && config.getFile() != null) {
+            exporter = new FileSpanExporter(config.getFile());
+        }
+        if (exporter == null) {
+            throw new IllegalStateException("tracing is enabled but no span exporter or file is configured");
+        }
+        return new Tracing(config, new SpanBatcher(exporter, config));
+    }
+
+    public boolean isEnabled() {
+        return batcher != null;
+    }
+
+    /**
+     * Applies the sample rate of the given config to calls that start from now on.
+     *
+     * @param config the new settings
+     */
+    public void update(TracingConfig config) {
+        this.sampleRate = config.getSampleRate();
+    }
+
+    public ServerInterceptor serverInterceptor() {
+        // only servers that trace calls carry trace contexts into their executions
+        GrpcExecution.expose(TraceContext.class, TraceContext.KEY);
+        GrpcExecution.intercept(SegmentTracer.KEY);
+        return new TracingServerInterceptor(this);
+    }
+
+    public ClientInterceptor clientInterceptor() {
+        return new TracingClientInterceptor(this);
+    }
+
+    /**
+     * The number of spans dropped because the export queue was full.
+     *
+     * @return the number of dropped spans
+     */
+    public long getDroppedSpans() {
+        return batcher == null ? 0 : batcher.getDropped();
+    }
+
+    boolean sample() {
+        double rate = sampleRate;
+        return batcher != null && rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    Span start(String name, Span.Kind kind, TraceContext context) {
+        return new Span(name, kind, context);
+    }
+
+    void finish(Span span, @Nullable Status status) {
+        span.end(status);
+        if (batcher != null) {
+            batcher.record(span);
+        }
+    }
+
+    @Override
+    public void onStop(StopEvent event) throws Exception {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package ratpack.grpc.trace;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import ratpack.exec.Execution;
+
+class TracingClientInterceptor implements ClientInterceptor {
+
+    private final Tracing tracing;
+
+    TracingClientInterceptor(Tracing tracing) {
+        this.tracing = tracing;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        TraceContext parent = TraceContext.current();
+        if (parent == null && Execution.isManagedThread()) {
+            parent = Execution.currentOpt().flatMap(e -> e.maybeGet(TraceContext.class)).orElse(null);
+        }
+        TraceContext trace = parent != null ? parent.child() : tracing.sample() ? TraceContext.root() : null;
+        if (trace == null) {
+            return next.newCall(method, callOptions);
+        }
+
+        Span span = tracing.start(method.getFullMethodName(), Span.Kind.CLIENT, trace);
+        return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                headers.put(TraceContext.TRACEPARENT, trace.toTraceparent());
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        tracing.finish(span, status);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,116 @@
+package ratpack.grpc.trace;
+
+import ratpack.api.Nullable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class TracingConfig {
+
+    private boolean enabled;
+    private double sampleRate = 0.01;
+    private int batchSize = 512;
+    private int maxQueueSize = 4096;
+    private Duration flushInterval = Duration.ofSeconds(5);
+    @Nullable
+    private SpanExporter exporter;
+    @Nullable
+    private Path file;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public TracingConfig enabled(boolean enabled) {
+        this.enabled = enabled;
+        return this;
+    }
+
+    /**
+     * The fraction of calls without a sampled parent that start a new sampled trace.
+     * Calls with a {@code traceparent} header follow the parent's sampling decision.
+     *
+     * @return the sample rate between 0 and 1
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public TracingConfig sampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public TracingConfig batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * The number of finished spans buffered for export, above which spans are dropped.
+     *
+     * @return the maximum queue size
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    public TracingConfig maxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public TracingConfig flushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    @Nullable
+    public SpanExporter getExporter() {
+        return exporter;
+    }
+
+    public TracingConfig exporter(SpanExporter exporter) {
+        this.exporter = exporter;
+        return this;
+    }
+
+    /**
+     * Exports spans to the given file, as JSON lines, when no {@link #exporter(SpanExporter) exporter} is set.
+     *
+     * @return the file to export spans to
+     */
+    @Nullable
+    public Path getFile() {
+        return file;
+    }
+
+    public TracingConfig file(Path file) {
+        this.file = file;
+        return this;
+    }
+
+    public TracingConfig copy() {
+        TracingConfig copy = new TracingConfig();
+        copy.enabled = enabled;
+        copy.sampleRate = sampleRate;
+        copy.batchSize = batchSize;
+        copy.maxQueueSize = maxQueueSize;
+        copy.flushInterval = flushInterval;
+        copy.exporter = exporter;
+        copy.file = file;
+        return copy;
+    }
+
+}
@@ -0,0 +1,165 @@
+package ratpack.grpc.trace;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class TracingServerInterceptor implements ServerInterceptor {
+
+    private final Tracing tracing;
+
+    TracingServerInterceptor(Tracing tracing) {
+        this.tracing = tracing;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        // only decode the header when there is one, most calls have none
+        String traceparent = headers.containsKey(TraceContext.TRACEPARENT) ? headers.get(TraceContext.TRACEPARENT) : null;
+        TraceContext trace;
+        switch (TraceContext.parent(traceparent)) {
+            case SAMPLED:
+                trace = TraceContext.childOf(traceparent);
+                break;
+            case NOT_SAMPLED:
+                trace = null;
+                break;
+            default:
+                trace = tracing.sample() ? TraceContext.root() : null;
+        }
+        if (trace == null) {
+            return next.startCall(call, headers);
+        }
+
+        CallSpan span = new CallSpan(tracing, tracing.start(call.getMethodDescriptor().getFullMethodName(), Span.Kind.SERVER, trace));
+        Context context = Context.current().withValues(TraceContext.KEY, trace, SegmentTracer.KEY, new SegmentTracer(tracing, trace));
+        ServerCall<ReqT, RespT> tracedCall = new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                span.finish(status);
+                super.close(status, trailers);
+            }
+        };
+
+        Scope scope = new Scope(context, trace);
+        scope.enter();
+        try {
+            return new TracingListener<>(next.startCall(tracedCall, headers), scope, span);
+        } finally {
+            scope.exit();
+        }
+    }
+
+    private static class CallSpan {
+        private final Tracing tracing;
+        private final Span span;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private CallSpan(Tracing tracing, Span span) {
+            this.tracing = tracing;
+            this.span = span;
+        }
+
+        void finish(Status status) {
+            if (finished.compareAndSet(false, true)) {
+                tracing.finish(span, status);
+            }
+        }
+    }
+
+    /**
+     * Attaches the gRPC context and trace MDC entries on the thread running a callback.
+     */
+    private static class Scope {
+        private final Context context;
+        private final TraceContext trace;
+        private Context previous;
+        private MdcScope mdc;
+
+        private Scope(Context context, TraceContext trace) {
+            this.context = context;
+            this.trace = trace;
+        }
+
+        void enter() {
+            previous = context.attach();
+            mdc = MdcScope.enter(trace.getTraceId(), trace.getSpanId());
+        }
+
+        void exit() {
+            mdc.exit();
+            context.detach(previous);
+        }
+    }
+
+    private static class TracingListener<ReqT> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+        private final Scope scope;
+        private final CallSpan span;
+
+        private TracingListener(ServerCall.Listener<ReqT> delegate, Scope scope, CallSpan span) {
+            super(delegate);
+            this.scope = scope;
+            this.span = span;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            scope.enter();
+            try {
+                super.onMessage(message);
+            } finally {
+                scope.exit();
+            }
+        }
+
+        @Override
+        public void onHalfClose() {
+            scope.enter();
+            try {
+                super.onHalfClose();
+            } finally {
+                scope.exit();
+            }
+        }
+
+        @Override
+        public void onCancel() {
+            span.finish(Status.CANCELLED);
+            scope.enter();
+            try {
+                super.onCancel();
+            } finally {
+                scope.exit();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            scope.enter();
+            try {
+                super.onComplete();
+            } finally {
+                scope.exit();
+            }
+        }
+
+        @Override
+        public void onReady() {
+            scope.enter();
+            try {
+                super.onReady();
+            } finally {
+                scope.exit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package ratpack.grpc.coroutines
+
+import io.grpc.CallOptions
+import io.grpc.ClientCall
+import io.grpc.Metadata
+import io.grpc.MethodDescriptor
+import io.grpc.Status
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.channels.produce
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+import io.grpc.Channel as GrpcChannel
+
+/**
+ * Performs a unary call, suspending until the response arrives. Cancelling the coroutine cancels the call.
+ */
+suspend fun <Req, Resp> GrpcChannel.unary(method: MethodDescriptor<Req, Resp>, request: Req, callOptions: CallOptions = CallOptions.DEFAULT): Resp =
+        suspendCancellableCoroutine { continuation ->
+            val call = newCall(method, callOptions)
+            continuation.invokeOnCancellation { call.cancel("coroutine cancelled", it) }
+            call.start(object : ClientCall.Listener<Resp>() {
+                private var response: Resp? = null
+
+                override fun onMessage(message: Resp) {
+                    response = message
+                }
+
+                override fun onClose(status: Status, trailers: Metadata) {
+                    val received = response
+                    when {
+                        !status.isOk -> continuation.resumeWithException(status.asRuntimeException(trailers))
+                        received == null -> continuation.resumeWithException(Status.INTERNAL.withDescription("no response message").asRuntimeException())
+                        else -> continuation.resume(received)
+                    }
+                }
+            }, Metadata())
+            call.request(2)
+            call.sendMessage(request)
+            call.halfClose()
+        }
+
+/**
+ * Performs a server streaming call. A response message is only requested from the server once the previous one is received
+ * from the returned channel, and cancelling the channel cancels the call.
+ */
+fun <Req, Resp> CoroutineScope.serverStreaming(channel: GrpcChannel, method: MethodDescriptor<Req, Resp>, request: Req,
+                                               callOptions: CallOptions = CallOptions.DEFAULT): ReceiveChannel<Resp> = produce {
+    val call = channel.newCall(method, callOptions)
+    val inbound = Channel<Resp>(1)
+    call.start(object : ClientCall.Listener<Resp>() {
+        override fun onMessage(message: Resp) {
+            inbound.offer(message)
+        }
+
+        override fun onClose(status: Status, trailers: Metadata) {
+            inbound.close(if (status.isOk) null else status.asRuntimeException(trailers))
+        }
+    }, Metadata())
+    call.sendMessage(request)
+    call.halfClose()
+    try {
+        while (true) {
+            call.request(1)
+            val response = inbound.receiveOrNull() ?: break
+            send(response)
+        }
+    } finally {
+        if (!inbound.isClosedForReceive) {
+            call.cancel("response channel cancelled", null)
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ratpack.grpc.coroutines
+
+import io.grpc.BindableService
+import io.grpc.Metadata
+import io.grpc.MethodDescriptor
+import io.grpc.ServerCall
+import io.grpc.ServerCallHandler
+import io.grpc.ServerServiceDefinition
+import io.grpc.ServiceDescriptor
+import io.grpc.Status
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.channels.produce
+import kotlinx.coroutines.launch
+
+/**
+ * Builds a service whose methods are implemented with coroutines.
+ *
+ * ```
+ * val greeter = coroutineService(GreeterGrpc.getServiceDescriptor()) {
+ *     unary(GreeterGrpc.getSayHelloMethod()) { request ->
+ *         HelloReply.newBuilder().setMessage("Hello ${request.name}").build()
+ *     }
+ * }
+ * ```
+ * Each call runs in a coroutine on the Ratpack event loop the call started on, see [EventLoopDispatcher], with the call's
+ * gRPC context attached. Request messages are only requested from the client as the implementation receives them, and
+ * response messages are only sent while the call is ready, suspending the implementation otherwise. When the client cancels,
+ * the call's coroutine is cancelled.
+ *
+ * Throw a [io.grpc.StatusException] or [io.grpc.StatusRuntimeException] to fail a call with a specific status.
+ */
+fun coroutineService(descriptor: ServiceDescriptor, methods: CoroutineServiceBuilder.() -> Unit): BindableService {
+    val builder = ServerServiceDefinition.builder(descriptor)
+    CoroutineServiceBuilder(builder).methods()
+    val definition = builder.build()
+    return BindableService { definition }
+}
+
+/**
+ * Builds a service whose methods are implemented with coroutines, for services without a generated descriptor.
+ */
+fun coroutineService(serviceName: String, methods: CoroutineServiceBuilder.() -> Unit): BindableService {
+    val builder = ServerServiceDefinition.builder(serviceName)
+    CoroutineServiceBuilder(builder).methods()
+    val definition = builder.build()
+    return BindableService { definition }
+}
+
+class CoroutineServiceBuilder internal constructor(private val builder: ServerServiceDefinition.Builder) {
+
+    fun <Req, Resp> unary(method: MethodDescriptor<Req, Resp>, implementation: suspend CoroutineScope.(Req) -> Resp) {
+        builder.addMethod(method, coroutineCall { requests, responses ->
+            responses.send(implementation(single(requests)))
+        })
+    }
+
+    fun <Req, Resp> serverStreaming(method: MethodDescriptor<Req, Resp>, implementation: suspend CoroutineScope.(Req) -> ReceiveChannel<Resp>) {
+        builder.addMethod(method, coroutineCall { requests, responses ->
+            for (response in implementation(single(requests))) {
+                responses.send(response)
+            }
+        })
+    }
+
+    fun <Req, Resp> clientStreaming(method: MethodDescriptor<Req, Resp>, implementation: suspend CoroutineScope.(ReceiveChannel<Req>) -> Resp) {
+        builder.addMethod(method, coroutineCall { requests, responses ->
+            responses.send(implementation(requests))
+        })
+    }
+
+    fun <Req, Resp> bidiStreaming(method: MethodDescriptor<Req, Resp>, implementation: suspend CoroutineScope.(ReceiveChannel<Req>) -> ReceiveChannel<Resp>) {
+        builder.addMethod(method, coroutineCall { requests, responses ->
+            for (response in implementation(requests)) {
+                responses.send(response)
+            }
+        })
+    }
+
+    private suspend fun <Req> single(requests: ReceiveChannel<Req>): Req =
+            requests.receiveOrNull() ?: throw Status.INTERNAL.withDescription("missing request message").asRuntimeException()
+}
+
+/**
+ * Sends the response messages of a call, suspending until the call is ready for each one.
+ */
+internal class Responses<Resp>(private val call: ServerCall<*, Resp>, private val ready: ReceiveChannel<Unit>) {
+
+    private var headersSent = false
+
+    suspend fun send(message: Resp) {
+        if (!headersSent) {
+            call.sendHeaders(Metadata())
+            headersSent = true
+        }
+        while (!call.isReady) {
+            ready.receive()
+        }
+        call.sendMessage(message)
+    }
+}
+
+internal fun <Req, Resp> coroutineCall(body: suspend CoroutineScope.(ReceiveChannel<Req>, Responses<Resp>) -> Unit): ServerCallHandler<Req, Resp> =
+        ServerCallHandler { call, _ ->
+            // one message is requested at a time, so the buffer never overflows
+            val inbound = Channel<Req>(1)
+            val ready = Channel<Unit>(Channel.CONFLATED)
+            val job = Job()
+            var cancelled = false
+
+            CoroutineScope(EventLoopDispatcher.current() + job + GrpcContextElement()).launch {
+                val requests = produce<Req> {
+                    call.request(1)
+                    for (request in inbound) {
+                        send(request)
+                        call.request(1)
+                    }
+                }
+                try {
+                    body(requests, Responses(call, ready))
+                    call.close(Status.OK, Metadata())
+                } catch (e: CancellationException) {
+                    if (!cancelled) {
+                        call.close(Status.CANCELLED.withCause(e), Metadata())
+                    }
+                } catch (e: Throwable) {
+                    call.close(Status.fromThrowable(e), Status.trailersFromThrowable(e) ?: Metadata())
+                } finally {
+                    requests.cancel()
+                }
+            }
+
+            object : ServerCall.Listener<Req>() {
+                override fun onMessage(message: Req) {
+                    inbound.offer(message)
+                }
+
+                override fun onHalfClose() {
+                    inbound.close()
+                }
+
+                override fun onCancel() {
+                    cancelled = true
+                    job.cancel()
+                    inbound.cancel()
+                }
+
+                override fun onReady() {
+                    ready.offer(Unit)
+                }
+            }
+        }
@@ -0,0 +1,53 @@
+package ratpack.grpc.coroutines
+
+import io.grpc.Context
+import io.netty.util.concurrent.EventExecutor
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ThreadContextElement
+import kotlinx.coroutines.asCoroutineDispatcher
+import ratpack.exec.ExecController
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * Runs coroutines on one Ratpack event loop, without a thread hop when resumed from that event loop.
+ */
+class EventLoopDispatcher(val eventLoop: EventExecutor) : CoroutineDispatcher() {
+
+    override fun isDispatchNeeded(context: CoroutineContext): Boolean = !eventLoop.inEventLoop()
+
+    override fun dispatch(context: CoroutineContext, block: Runnable) {
+        eventLoop.execute(block)
+    }
+
+    override fun toString(): String = "EventLoopDispatcher($eventLoop)"
+
+    companion object {
+
+        /**
+         * The dispatcher for the event loop the current thread runs, the Ratpack executor if the current thread is not an event loop,
+         * or [Dispatchers.Default] outside of Ratpack.
+         */
+        fun current(): CoroutineDispatcher {
+            val controller = ExecController.current().orElse(null) ?: return Dispatchers.Default
+            val eventLoop = controller.eventLoopGroup.firstOrNull { it.inEventLoop() }
+            return if (eventLoop != null) EventLoopDispatcher(eventLoop) else controller.executor.asCoroutineDispatcher()
+        }
+    }
+}
+
+/**
+ * Attaches a gRPC [Context] while a coroutine runs, so that [Context.current] works in coroutines started from a call.
+ */
+class GrpcContextElement(private val context: Context = Context.current()) : ThreadContextElement<Context> {
+
+    companion object Key : CoroutineContext.Key<GrpcContextElement>
+
+    override val key: CoroutineContext.Key<GrpcContextElement> get() = Key
+
+    override fun updateThreadContext(context: CoroutineContext): Context = this.context.attach()
+
+    override fun restoreThreadContext(context: CoroutineContext, oldState: Context) {
+        this.context.detach(oldState)
+    }
+}
@@ -1,8 +1,13 @@
 package ratpack.grpc
 
+import io.grpc.BindableService
 import io.grpc.ManagedChannel
 import io.grpc.ManagedChannelBuilder
+import io.grpc.MethodDescriptor
+import io.grpc.ServerServiceDefinition
 import io.grpc.StatusRuntimeException
+import io.grpc.protobuf.ProtoUtils
+import io.grpc.stub.ServerCalls
 import io.grpc.stub.StreamObserver
 import org.slf4j.LoggerFactory
 import ratpack.grpc.helloworld.GreeterGrpc
@@ -51,4 +56,26 @@ class GreeterService : GreeterGrpc.GreeterImplBase() {
         responseObserver.onNext(reply)
         responseObserver.onCompleted()
     }
-}
\ No newline at end of file
+}
+
+object StreamingGreeter {
+    const val SERVICE_NAME = "helloworld.StreamingGreeter"
+
+    val sayHellos: MethodDescriptor<HelloRequest, HelloReply> = MethodDescriptor.newBuilder<HelloRequest, HelloReply>()
+            .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "SayHellos"))
+            .setRequestMarshaller(ProtoUtils.marshaller(HelloRequest.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(HelloReply.getDefaultInstance()))
+            .build()
+}
+
+class StreamingGreeterService : BindableService {
+    override fun bindService(): ServerServiceDefinition = ServerServiceDefinition.builder(StreamingGreeter.SERVICE_NAME)
+            .addMethod(StreamingGreeter.sayHellos, ServerCalls.asyncServerStreamingCall<HelloRequest, HelloReply> { req, responseObserver ->
+                (1..3).forEach {
+                    responseObserver.onNext(HelloReply.newBuilder().setMessage("Hello ${req.name} $it").build())
+                }
+                responseObserver.onCompleted()
+            })
+            .build()
+}
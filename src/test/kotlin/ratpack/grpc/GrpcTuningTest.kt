@@ -0,0 +1,56 @@
+package ratpack.grpc
+
+import ratpack.grpc.lane.PriorityLanes
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class GrpcTuningTest {
+
+    val port = 32768
+    var server: RatpackServer? = null
+
+    @AfterTest
+    fun cleanup() {
+        server?.stop()
+    }
+
+    @Test
+    fun `applies updates to the running server`() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.lanes { lanes -> lanes.lane("interactive", 4).lane("batch", 1).method("helloworld.Greeter", "interactive") }
+                }
+            })
+        }
+        val registry = server!!.registry.get()
+        val tuning = registry.get(GrpcTuning::class.java)
+        val lanes = registry.get(PriorityLanes::class.java)
+
+        tuning.update { c -> c.lanes { it.lane("interactive", 8).method("helloworld.Greeter", "batch") } }
+        assertEquals(8, lanes.laneOf("other.Service/Call").weight)
+        assertEquals("batch", lanes.laneOf("helloworld.Greeter/SayHello").name)
+
+        val client = GreeterClient("localhost", port)
+        try {
+            assertEquals("Hello drmaas", client.greet("drmaas"))
+        } finally {
+            client.shutdown()
+        }
+        assertTrue(lanes.laneOf("helloworld.Greeter/SayHello").dispatched > 0)
+
+        assertFailsWith<IllegalArgumentException> {
+            tuning.update { c -> c.lanes { it.method("helloworld.Greeter", "missing") } }
+        }
+        assertEquals("batch", lanes.laneOf("helloworld.Greeter/SayHello").name)
+        assertEquals("batch", tuning.config.lanes.methods["helloworld.Greeter"])
+    }
+
+}
@@ -0,0 +1,147 @@
+package ratpack.grpc.auth
+
+import io.grpc.ClientInterceptors
+import io.grpc.ManagedChannel
+import io.grpc.ManagedChannelBuilder
+import io.grpc.Metadata
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.stub.MetadataUtils
+import io.grpc.stub.StreamObserver
+import ratpack.exec.Execution
+import ratpack.exec.Promise
+import ratpack.grpc.GrpcConfig
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.exec.GrpcExecution
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class AuthenticatedGreeterService : GreeterGrpc.GreeterImplBase() {
+    override fun sayHello(req: HelloRequest, responseObserver: StreamObserver<HelloReply>) {
+        val subject = VerifiedToken.current()!!.subject
+        GrpcExecution.respond(responseObserver) {
+            val token = Execution.current().get(VerifiedToken::class.java)
+            Promise.value(HelloReply.newBuilder().setMessage("Hello $subject ${token.subject}").build())
+        }
+    }
+}
+
+class TokenAuthenticatorTest {
+
+    val port = 32768
+    val adminPort = 32769
+    val verified = AtomicInteger()
+    val verifierThreads: MutableSet<String> = ConcurrentHashMap.newKeySet()
+    var lifetime: Duration = Duration.ofHours(1)
+    var server: RatpackServer? = null
+    var channel: ManagedChannel? = null
+
+    @BeforeTest
+    fun setup() = start {}
+
+    private fun start(configure: (GrpcConfig) -> Unit) {
+        server?.stop()
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(AuthenticatedGreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.auth { auth ->
+                        auth.verifier { token ->
+                            verified.incrementAndGet()
+                            verifierThreads.add(Thread.currentThread().name)
+                            // an expensive signature check
+                            Thread.sleep(200)
+                            if (!token.startsWith("valid-")) {
+                                throw IllegalArgumentException("bad signature")
+                            }
+                            VerifiedToken.of(token.removePrefix("valid-"), Instant.now().plus(lifetime))
+                        }
+                    }
+                    configure(it)
+                }
+            })
+        }
+        channel?.shutdownNow()
+        channel = ManagedChannelBuilder.forAddress("localhost", port).usePlaintext().build()
+    }
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()?.awaitTermination(5, TimeUnit.SECONDS)
+        server?.stop()
+    }
+
+    private fun stub(token: String?): GreeterGrpc.GreeterFutureStub {
+        val headers = Metadata()
+        token?.let { headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer $it") }
+        return GreeterGrpc.newFutureStub(ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers)))
+    }
+
+    private fun greet(token: String?): String =
+            stub(token).sayHello(HelloRequest.newBuilder().setName("drmaas").build()).get(5, TimeUnit.SECONDS).message
+
+    private fun status(token: String?): Status.Code {
+        val e = assertFailsWith<Exception> { greet(token) }
+        return (e.cause as StatusRuntimeException).status.code
+    }
+
+    @Test
+    fun `verifies concurrent calls with the same token once`() {
+        val replies = (1..20).map { stub("valid-drmaas").sayHello(HelloRequest.newBuilder().setName("drmaas").build()) }
+        replies.forEach { assertEquals("Hello drmaas drmaas", it.get(5, TimeUnit.SECONDS).message) }
+        assertEquals("Hello drmaas drmaas", greet("valid-drmaas"))
+        assertEquals(1, verified.get())
+
+        assertEquals("Hello other other", greet("valid-other"))
+        assertEquals(2, verified.get())
+    }
+
+    @Test
+    fun `rejects calls without a valid token`() {
+        assertEquals(Status.Code.UNAUTHENTICATED, status(null))
+        assertEquals(Status.Code.UNAUTHENTICATED, status("forged"))
+        assertEquals(Status.Code.UNAUTHENTICATED, status("forged"))
+        // failures are not cached
+        assertEquals(2, verified.get())
+    }
+
+    @Test
+    fun `verifies tokens again once they expire`() {
+        lifetime = Duration.ofMillis(500)
+        assertEquals("Hello drmaas drmaas", greet("valid-drmaas"))
+        assertEquals("Hello drmaas drmaas", greet("valid-drmaas"))
+        assertEquals(1, verified.get())
+
+        Thread.sleep(600)
+        assertEquals("Hello drmaas drmaas", greet("valid-drmaas"))
+        assertEquals(2, verified.get())
+    }
+
+    @Test
+    fun `verifies off the event loops of a named server`() {
+        start { it.server("admin") { admin -> admin.port(adminPort).service(GreeterGrpc.SERVICE_NAME) } }
+        channel?.shutdownNow()
+        channel = ManagedChannelBuilder.forAddress("localhost", adminPort).usePlaintext().build()
+
+        val replies = (1..5).map { stub("valid-drmaas").sayHello(HelloRequest.newBuilder().setName("drmaas").build()) }
+        replies.forEach { assertEquals("Hello drmaas drmaas", it.get(5, TimeUnit.SECONDS).message) }
+        assertEquals(1, verified.get())
+        assertTrue(verifierThreads.none { it.startsWith("grpc-admin-") })
+    }
+
+}
@@ -0,0 +1,160 @@
+package ratpack.grpc.broadcast
+
+import com.google.protobuf.Empty
+import com.google.protobuf.StringValue
+import io.grpc.BindableService
+import io.grpc.CallOptions
+import io.grpc.ClientCall
+import io.grpc.ManagedChannel
+import io.grpc.Metadata
+import io.grpc.MethodDescriptor
+import io.grpc.Server
+import io.grpc.ServerServiceDefinition
+import io.grpc.Status
+import io.grpc.inprocess.InProcessChannelBuilder
+import io.grpc.inprocess.InProcessServerBuilder
+import io.grpc.protobuf.ProtoUtils
+import io.grpc.stub.ServerCalls
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class BroadcastHubTest {
+
+    val name = "broadcast-hub-test"
+    val subscribe: MethodDescriptor<Empty, StringValue> = MethodDescriptor.newBuilder<Empty, StringValue>()
+            .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("quotes.Quotes", "Subscribe"))
+            .setRequestMarshaller(ProtoUtils.marshaller(Empty.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+            .build()
+
+    // the method the hub replaces, as a generated service base class would implement it
+    val service = BindableService {
+        ServerServiceDefinition.builder("quotes.Quotes")
+                .addMethod(subscribe, ServerCalls.asyncUnimplementedStreamingCall(subscribe))
+                .build()
+    }
+
+    var server: Server? = null
+    var channel: ManagedChannel? = null
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()
+        server?.shutdownNow()
+    }
+
+    inner class Subscription(initial: Int) {
+        val messages = CopyOnWriteArrayList<String>()
+        val closed = CompletableFuture<Status>()
+        val call: ClientCall<Empty, StringValue> = channel!!.newCall(subscribe, CallOptions.DEFAULT)
+
+        init {
+            call.start(object : ClientCall.Listener<StringValue>() {
+                override fun onMessage(message: StringValue) {
+                    messages.add(message.value)
+                }
+
+                override fun onClose(status: Status, trailers: Metadata) {
+                    closed.complete(status)
+                }
+            }, Metadata())
+            if (initial > 0) {
+                call.request(initial)
+            }
+            call.sendMessage(Empty.getDefaultInstance())
+            call.halfClose()
+        }
+    }
+
+    private fun start(hub: BroadcastHub<StringValue>) {
+        server = InProcessServerBuilder.forName(name)
+                .addService(hub.bind(service, subscribe))
+                .directExecutor()
+                .build()
+                .start()
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build()
+    }
+
+    private fun subscribers(hub: BroadcastHub<StringValue>, count: Int) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (hub.subscribers < count && System.nanoTime() < deadline) {
+            Thread.sleep(5)
+        }
+        assertEquals(count, hub.subscribers)
+    }
+
+    private fun message(value: String) = StringValue.newBuilder().setValue(value).build()
+
+    @Test
+    fun `publishes to every subscriber`() {
+        val hub = BroadcastHub.of<StringValue> {}
+        start(hub)
+        val subscriptions = (1..3).map { Subscription(100) }
+        subscribers(hub, 3)
+
+        (1..5).forEach { hub.publish(message("quote $it")) }
+        hub.close()
+
+        subscriptions.forEach {
+            assertEquals(Status.Code.OK, it.closed.get(5, TimeUnit.SECONDS).code)
+            assertEquals((1..5).map { "quote $it" }, it.messages)
+        }
+        assertEquals(0, hub.subscribers)
+    }
+
+    @Test
+    fun `drops the oldest messages of a slow subscriber`() {
+        val hub = BroadcastHub.of<StringValue> { it.queueSize(2) }
+        start(hub)
+        val slow = Subscription(0)
+        subscribers(hub, 1)
+
+        (1..4).forEach { hub.publish(message("quote $it")) }
+        slow.call.request(10)
+        hub.close()
+
+        assertEquals(Status.Code.OK, slow.closed.get(5, TimeUnit.SECONDS).code)
+        assertEquals(listOf("quote 3", "quote 4"), slow.messages)
+        assertEquals(2, hub.dropped)
+    }
+
+    @Test
+    fun `conflates messages by key`() {
+        val hub = BroadcastHub.of<StringValue> { it.queueSize(2).policy(SlowConsumerPolicy.CONFLATE) }
+        start(hub)
+        val slow = Subscription(0)
+        subscribers(hub, 1)
+
+        hub.publish("a", message("a 1"))
+        hub.publish("b", message("b 1"))
+        hub.publish("a", message("a 2"))
+        slow.call.request(10)
+        hub.close()
+
+        assertEquals(Status.Code.OK, slow.closed.get(5, TimeUnit.SECONDS).code)
+        assertEquals(listOf("a 2", "b 1"), slow.messages)
+    }
+
+    @Test
+    fun `disconnects slow subscribers`() {
+        val hub = BroadcastHub.of<StringValue> { it.queueSize(2).policy(SlowConsumerPolicy.DISCONNECT) }
+        start(hub)
+        val fast = Subscription(100)
+        val slow = Subscription(0)
+        subscribers(hub, 2)
+
+        (1..3).forEach { hub.publish(message("quote $it")) }
+
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, slow.closed.get(5, TimeUnit.SECONDS).code)
+        assertEquals(1, hub.disconnected)
+        assertEquals(1, hub.subscribers)
+        assertTrue(fast.messages.size == 3)
+    }
+
+}
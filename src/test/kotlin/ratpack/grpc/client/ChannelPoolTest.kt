@@ -0,0 +1,154 @@
+package ratpack.grpc.client
+
+import io.grpc.CallOptions
+import io.grpc.ClientCall
+import io.grpc.Metadata
+import io.grpc.Server
+import io.grpc.Status
+import io.grpc.inprocess.InProcessChannelBuilder
+import io.grpc.inprocess.InProcessServerBuilder
+import ratpack.grpc.GreeterService
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class ChannelPoolTest {
+
+    val name = "channel-pool-test"
+    var server: Server? = null
+    var pool: ChannelPool? = null
+
+    @BeforeTest
+    fun setup() {
+        server = InProcessServerBuilder.forName(name)
+                .addService(GreeterService())
+                .directExecutor()
+                .build()
+                .start()
+    }
+
+    @AfterTest
+    fun cleanup() {
+        pool?.shutdownNow()?.awaitTermination(5, TimeUnit.SECONDS)
+        server?.shutdownNow()
+    }
+
+    private fun pool(configure: (ChannelPoolConfig) -> Unit): ChannelPool {
+        val config = ChannelPoolConfig().minSize(1).maxSize(3).maxInFlightPerChannel(1)
+        configure(config)
+        pool = ChannelPool({ InProcessChannelBuilder.forName(name).directExecutor().build() }, config, null)
+        return pool!!
+    }
+
+    // the server does not respond to a unary call until the client half closes, so the call stays in flight
+    private fun startCall(channel: ChannelPool): ClientCall<HelloRequest, HelloReply> {
+        val call = channel.newCall(GreeterGrpc.getSayHelloMethod(), CallOptions.DEFAULT)
+        call.start(object : ClientCall.Listener<HelloReply>() {}, Metadata())
+        call.request(1)
+        return call
+    }
+
+    @Test
+    fun `grows when connections reach in flight limit`() {
+        val pool = pool {}
+        val calls = (1..4).map { startCall(pool) }
+
+        assertEquals(3, pool.size())
+        assertEquals(4, pool.inFlight())
+
+        calls.forEach { it.cancel("done", null) }
+        assertEquals(0, pool.inFlight())
+    }
+
+    @Test
+    fun `trims idle connections down to min size`() {
+        val pool = pool {}
+        val calls = (1..3).map { startCall(pool) }
+        assertEquals(3, pool.size())
+
+        calls.forEach { it.cancel("done", null) }
+        pool.trim()
+        pool.trim()
+        pool.trim()
+
+        assertEquals(1, pool.size())
+    }
+
+    @Test
+    fun `does not trim while connections are busy`() {
+        val pool = pool {}
+        val calls = (1..3).map { startCall(pool) }
+
+        pool.trim()
+        assertEquals(3, pool.size())
+
+        calls.forEach { it.cancel("done", null) }
+    }
+
+    @Test
+    fun `lets calls on a trimmed connection complete before shutting it down`() {
+        val pool = pool { it.maxInFlightPerChannel(4) }
+        val closed = CompletableFuture<Status>()
+        val call = pool.newCall(GreeterGrpc.getSayHelloMethod(), CallOptions.DEFAULT)
+        call.start(object : ClientCall.Listener<HelloReply>() {
+            override fun onClose(status: Status, trailers: Metadata) {
+                closed.complete(status)
+            }
+        }, Metadata())
+        call.request(1)
+        val others = (1..4).map { startCall(pool) }
+        assertEquals(2, pool.size())
+        // one call left on each connection, and the first connection is trimmed
+        others.take(3).forEach { it.cancel("done", null) }
+        pool.trim()
+        assertEquals(1, pool.size())
+
+        call.sendMessage(HelloRequest.newBuilder().setName("drmaas").build())
+        call.halfClose()
+        assertEquals(Status.Code.OK, closed.get(5, TimeUnit.SECONDS).code)
+
+        others.last().cancel("done", null)
+        pool.shutdown()
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS))
+    }
+
+    @Test
+    fun `waits for trimmed connections to terminate`() {
+        val pool = pool {}
+        val calls = (1..2).map { startCall(pool) }
+        calls.forEach { it.cancel("done", null) }
+        pool.trim()
+        assertEquals(1, pool.size())
+
+        pool.shutdown()
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS))
+        assertTrue(pool.isTerminated)
+    }
+
+    @Test
+    fun `round robin spreads calls without growing`() {
+        val pool = pool { it.minSize(2).maxInFlightPerChannel(10).strategy(ChannelPoolConfig.Strategy.ROUND_ROBIN) }
+        val calls = (1..4).map { startCall(pool) }
+
+        assertEquals(2, pool.size())
+        assertEquals(4, pool.inFlight())
+
+        calls.forEach { it.cancel("done", null) }
+    }
+
+    @Test
+    fun `completes calls through the pool`() {
+        val pool = pool {}
+        val reply = GreeterGrpc.newBlockingStub(pool).sayHello(HelloRequest.newBuilder().setName("drmaas").build())
+        assertEquals("Hello drmaas", reply.message)
+        assertEquals(0, pool.inFlight())
+    }
+
+}
@@ -0,0 +1,80 @@
+package ratpack.grpc.client
+
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.StreamingGreeter
+import ratpack.grpc.StreamingGreeterService
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import ratpack.test.exec.ExecHarness
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotSame
+
+class GrpcClientsTest {
+
+    val port = 32768
+    var server: RatpackServer? = null
+
+    @BeforeTest
+    fun setup() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.bind(StreamingGreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                }
+            })
+        }
+    }
+
+    @AfterTest
+    fun cleanup() {
+        server?.stop()
+    }
+
+    private fun clients() = server!!.registry.get().get(GrpcClients::class.java)
+
+    private fun request(name: String) = HelloRequest.newBuilder().setName(name).build()
+
+    @Test
+    fun `channels are cached per target`() {
+        val clients = clients()
+        assertEquals(clients.channel("localhost", port), clients.channel("localhost:$port"))
+        assertNotSame(clients.channel("localhost", port), clients.channel("127.0.0.1", port))
+    }
+
+    @Test
+    fun `unary call is adapted to a promise`() {
+        val channel = clients().channel("localhost", port)
+        val reply = ExecHarness.yieldSingle {
+            GrpcCalls.unary(channel, GreeterGrpc.getSayHelloMethod(), request("drmaas"))
+        }.valueOrThrow
+        assertEquals("Hello drmaas", reply.message)
+    }
+
+    @Test
+    fun `stub call is adapted to a promise`() {
+        val stub = GreeterGrpc.newStub(clients().channel("localhost", port))
+        val reply = ExecHarness.yieldSingle {
+            GrpcCalls.promise<HelloReply> { stub.sayHello(request("drmaas"), it) }
+        }.valueOrThrow
+        assertEquals("Hello drmaas", reply.message)
+    }
+
+    @Test
+    fun `server streaming call is adapted to a publisher`() {
+        val channel = clients().channel("localhost", port)
+        val replies = ExecHarness.yieldSingle {
+            GrpcCalls.serverStreaming(channel, StreamingGreeter.sayHellos, request("drmaas")).toList()
+        }.valueOrThrow
+        assertEquals(listOf("Hello drmaas 1", "Hello drmaas 2", "Hello drmaas 3"), replies.map { it.message })
+    }
+
+}
@@ -0,0 +1,203 @@
+package ratpack.grpc.client.lb
+
+import io.grpc.Metadata
+import io.grpc.stub.MetadataUtils
+import io.grpc.stub.StreamObserver
+import ratpack.grpc.GrpcConfig
+import ratpack.grpc.client.internal.DefaultGrpcClients
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.grpc.server.GrpcServer
+import ratpack.server.ServerConfig
+import ratpack.test.exec.ExecHarness
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class CountingGreeterService : GreeterGrpc.GreeterImplBase() {
+    val calls = AtomicInteger()
+    val names: MutableSet<String> = ConcurrentHashMap.newKeySet()
+
+    override fun sayHello(req: HelloRequest, responseObserver: StreamObserver<HelloReply>) {
+        calls.incrementAndGet()
+        names.add(req.name)
+        responseObserver.onNext(HelloReply.newBuilder().setMessage("Hello ${req.name}").build())
+        responseObserver.onCompleted()
+    }
+}
+
+class LoadBalancingTest {
+
+    val harness: ExecHarness = ExecHarness.harness()
+    val backends = (1..3).map { CountingGreeterService() }
+    var servers: List<GrpcServer> = emptyList()
+    var file: Path? = null
+
+    @BeforeTest
+    fun setup() {
+        servers = backends.map {
+            GrpcServer(harness.controller, listOf(it), ServerConfig.embedded().build(), GrpcConfig().port(0)).start()
+        }
+    }
+
+    @AfterTest
+    fun cleanup() {
+        servers.forEach { it.stop() }
+        file?.let { Files.deleteIfExists(it) }
+        harness.close()
+    }
+
+    private fun addresses(servers: List<GrpcServer>) = servers.map { "localhost:${it.port()}" }
+
+    private fun clients(configure: (GrpcConfig) -> Unit): DefaultGrpcClients {
+        val config = GrpcConfig()
+        configure(config)
+        return DefaultGrpcClients(harness.controller, config)
+    }
+
+    private fun greet(clients: DefaultGrpcClients, times: Int) {
+        val stub = GreeterGrpc.newBlockingStub(clients.channel("greeters"))
+        repeat(times) {
+            assertEquals("Hello drmaas", stub.sayHello(HelloRequest.newBuilder().setName("drmaas").build()).message)
+        }
+    }
+
+    private fun eventually(condition: () -> Boolean) {
+        val deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos()
+        while (!condition() && System.nanoTime() < deadline) {
+            Thread.sleep(50)
+        }
+        assertTrue(condition(), "condition not met in time")
+    }
+
+    @Test
+    fun `round robin spreads calls over static addresses`() {
+        val clients = clients { c -> c.client { it.target("greeters") { t -> t.addresses(addresses(servers)) } } }
+        // wait for every backend to be connected so the picker cycles over all of them
+        greet(clients, 3)
+        eventually {
+            greet(clients, 30)
+            backends.all { it.calls.get() >= 10 }
+        }
+        clients.channel("greeters").shutdownNow()
+    }
+
+    @Test
+    fun `least request and power of two choices reach every backend`() {
+        listOf(LoadBalancingPolicy.LEAST_REQUEST, LoadBalancingPolicy.POWER_OF_TWO_CHOICES).forEach { policy ->
+            backends.forEach { it.calls.set(0) }
+            val clients = clients { c -> c.client { it.target("greeters") { t -> t.addresses(addresses(servers)).policy(policy) } } }
+            eventually {
+                greet(clients, 30)
+                backends.all { it.calls.get() > 0 }
+            }
+            clients.channel("greeters").shutdownNow()
+        }
+    }
+
+    @Test
+    fun `follows changes to a watched address file`() {
+        val file = Files.createTempFile("grpc-backends", ".txt")
+        this.file = file
+        Files.write(file, addresses(servers.take(1)))
+
+        val clients = clients { c ->
+            c.client { it.target("greeters") { t -> t.file(file).watchInterval(Duration.ofMillis(50)) } }
+        }
+        greet(clients, 5)
+        assertEquals(5, backends[0].calls.get())
+        assertEquals(0, backends[1].calls.get())
+
+        Files.write(file, addresses(servers.drop(1)))
+        // make sure the change is visible on file systems with coarse modification times
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000))
+
+        eventually {
+            greet(clients, 5)
+            backends[1].calls.get() > 0 && backends[2].calls.get() > 0
+        }
+        eventually {
+            val calls = backends[0].calls.get()
+            greet(clients, 5)
+            backends[0].calls.get() == calls
+        }
+        clients.channel("greeters").shutdownNow()
+    }
+
+    private fun awaitAllReady(clients: DefaultGrpcClients, target: String, backends: List<CountingGreeterService>) {
+        // calls without a routing key are spread round robin
+        val stub = GreeterGrpc.newBlockingStub(clients.channel(target))
+        val before = backends.map { it.calls.get() }
+        eventually {
+            repeat(10) { stub.sayHello(HelloRequest.newBuilder().setName("warmup").build()) }
+            backends.indices.all { backends[it].calls.get() > before[it] }
+        }
+        this.backends.forEach { it.names.clear() }
+    }
+
+    private fun greetAs(stub: GreeterGrpc.GreeterBlockingStub, users: IntRange) = users.forEach { user ->
+        repeat(3) { stub.sayHello(HelloRequest.newBuilder().setName("user-$user").build()) }
+    }
+
+    private fun owners(users: IntRange) = users.associate { user -> "user-$user" to backends.indices.filter { "user-$user" in backends[it].names } }
+
+    @Test
+    fun `consistent hashing routes a header key to one backend`() {
+        val clients = clients { c ->
+            c.client { it.target("greeters") { t -> t.addresses(addresses(servers)).policy(LoadBalancingPolicy.CONSISTENT_HASH).hashHeader("x-user-id") } }
+        }
+        awaitAllReady(clients, "greeters", backends)
+
+        val users = 1..30
+        users.forEach { user ->
+            val headers = Metadata()
+            headers.put(Metadata.Key.of("x-user-id", Metadata.ASCII_STRING_MARSHALLER), "user-$user")
+            greetAs(GreeterGrpc.newBlockingStub(clients.channel("greeters")).withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers)), user..user)
+        }
+
+        val owners = owners(users)
+        assertTrue(owners.values.all { it.size == 1 }, owners.toString())
+        assertTrue(backends.all { it.names.isNotEmpty() }, "keys are spread over every backend")
+        clients.channel("greeters").shutdownNow()
+    }
+
+    @Test
+    fun `consistent hashing only moves the keys of a removed backend`() {
+        val clients = clients { c ->
+            c.client {
+                it.target("all") { t -> t.addresses(addresses(servers)).policy(LoadBalancingPolicy.CONSISTENT_HASH) }
+                it.target("remaining") { t -> t.addresses(addresses(servers.take(2))).policy(LoadBalancingPolicy.CONSISTENT_HASH) }
+            }
+        }
+        awaitAllReady(clients, "all", backends)
+        awaitAllReady(clients, "remaining", backends.take(2))
+        val byName = ConsistentHash.byRequest<HelloRequest> { it.name }
+
+        val users = 1..60
+        greetAs(GreeterGrpc.newBlockingStub(clients.channel("all")).withInterceptors(byName), users)
+        val before = owners(users)
+        assertTrue(before.values.all { it.size == 1 }, before.toString())
+
+        backends.forEach { it.names.clear() }
+        greetAs(GreeterGrpc.newBlockingStub(clients.channel("remaining")).withInterceptors(byName), users)
+        val after = owners(users)
+
+        before.forEach { (user, owner) ->
+            if (owner.single() != 2) {
+                assertEquals(owner, after[user], "$user moved although its backend remained")
+            }
+        }
+        clients.channel("all").shutdownNow()
+        clients.channel("remaining").shutdownNow()
+    }
+
+}
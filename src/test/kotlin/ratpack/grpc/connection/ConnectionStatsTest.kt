@@ -0,0 +1,94 @@
+package ratpack.grpc.connection
+
+import ratpack.grpc.GreeterClient
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.time.Duration
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class ConnectionStatsTest {
+
+    val port = 32768
+    var server: RatpackServer? = null
+
+    @AfterTest
+    fun cleanup() {
+        server?.stop()
+    }
+
+    private fun start(enabled: Boolean, maxConnectionAge: Duration? = null): ConnectionStats {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.connectionStats(enabled)
+                    it.keepAlive { k -> k.maxConnectionAge(maxConnectionAge).maxConnectionAgeGrace(Duration.ofSeconds(1)) }
+                }
+            })
+        }
+        return server!!.registry.get().get(ConnectionStats::class.java)
+    }
+
+    private fun eventually(timeout: Duration = Duration.ofSeconds(5), condition: () -> Boolean) {
+        val deadline = System.nanoTime() + timeout.toNanos()
+        while (!condition() && System.nanoTime() < deadline) {
+            Thread.sleep(10)
+        }
+        assertTrue(condition())
+    }
+
+    @Test
+    fun `tracks streams and bytes per connection`() {
+        val stats = start(true)
+        val client = GreeterClient("localhost", port)
+        client.greet("drmaas")
+        client.greet("drmaas")
+
+        assertEquals(1, stats.opened)
+        val connection = stats.connections.single()
+        assertEquals(2, connection.totalStreams)
+        assertEquals(0, connection.activeStreams)
+        assertTrue(connection.bytesIn > 0)
+        assertTrue(connection.bytesOut > 0)
+        assertEquals(0, connection.flowControlStalls)
+        assertTrue(connection.remoteAddress != null)
+
+        client.shutdown()
+        eventually { stats.closed == 1L }
+        assertTrue(stats.connections.isEmpty())
+    }
+
+    @Test
+    fun `counts connections recycled at their maximum age`() {
+        // long enough that the second connection, closed by the client right away, is well short of the age
+        val stats = start(true, Duration.ofSeconds(3))
+        val client = GreeterClient("localhost", port)
+        client.greet("drmaas")
+        eventually(Duration.ofSeconds(10)) { stats.recycled == 1L }
+
+        // the client reconnects on its next call
+        client.greet("drmaas")
+        eventually { stats.opened == 2L }
+        client.shutdown()
+        eventually { stats.closed == 2L }
+        assertEquals(1, stats.recycled)
+    }
+
+    @Test
+    fun `collects nothing when disabled`() {
+        val stats = start(false)
+        val client = GreeterClient("localhost", port)
+        client.greet("drmaas")
+        client.shutdown()
+
+        assertEquals(0, stats.opened)
+        assertTrue(stats.connections.isEmpty())
+    }
+
+}
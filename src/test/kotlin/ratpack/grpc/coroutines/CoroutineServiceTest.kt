@@ -0,0 +1,107 @@
+package ratpack.grpc.coroutines
+
+import io.grpc.BindableService
+import io.grpc.ManagedChannel
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.netty.NettyChannelBuilder
+import kotlinx.coroutines.channels.produce
+import kotlinx.coroutines.channels.toList
+import kotlinx.coroutines.runBlocking
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.StreamingGreeter
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+private fun reply(message: String) = HelloReply.newBuilder().setMessage(message).build()
+
+class CoroutineGreeter : BindableService by coroutineService(GreeterGrpc.getServiceDescriptor(), {
+    unary(GreeterGrpc.getSayHelloMethod()) { request ->
+        handlerThread = Thread.currentThread().name
+        if (request.name.isEmpty()) {
+            throw Status.INVALID_ARGUMENT.withDescription("name required").asRuntimeException()
+        }
+        reply("Hello ${request.name}")
+    }
+}) {
+    companion object {
+        @Volatile
+        var handlerThread: String? = null
+    }
+}
+
+class CoroutineStreamingGreeter : BindableService by coroutineService(StreamingGreeter.SERVICE_NAME, {
+    serverStreaming(StreamingGreeter.sayHellos) { request ->
+        produce {
+            (1..3).forEach { send(reply("Hello ${request.name} $it")) }
+        }
+    }
+})
+
+class CoroutineServiceTest {
+
+    val port = 32768
+    var server: RatpackServer? = null
+    var channel: ManagedChannel? = null
+
+    private fun request(name: String) = HelloRequest.newBuilder().setName(name).build()
+
+    @BeforeTest
+    fun setup() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.module(GrpcModule::class.java) { it.port(port) }
+                it.bind(CoroutineGreeter::class.java)
+                it.bind(CoroutineStreamingGreeter::class.java)
+            })
+        }
+        channel = NettyChannelBuilder.forAddress("localhost", port).usePlaintext().build()
+    }
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()
+        server?.stop()
+    }
+
+    @Test
+    fun `runs unary methods on the event loop`() {
+        val reply = GreeterGrpc.newBlockingStub(channel).sayHello(request("drmaas"))
+
+        assertEquals("Hello drmaas", reply.message)
+        val thread = CoroutineGreeter.handlerThread!!
+        assertTrue(thread.startsWith("ratpack-compute"), thread)
+    }
+
+    @Test
+    fun `closes calls with the thrown status`() {
+        val e = assertFailsWith<StatusRuntimeException> {
+            GreeterGrpc.newBlockingStub(channel).sayHello(request(""))
+        }
+        assertEquals(Status.Code.INVALID_ARGUMENT, e.status.code)
+    }
+
+    @Test
+    fun `calls unary methods from coroutines`() {
+        val reply = runBlocking { channel!!.unary(GreeterGrpc.getSayHelloMethod(), request("drmaas")) }
+
+        assertEquals("Hello drmaas", reply.message)
+    }
+
+    @Test
+    fun `streams responses`() {
+        val replies = runBlocking { serverStreaming(channel!!, StreamingGreeter.sayHellos, request("drmaas")).toList() }
+
+        assertEquals(listOf("Hello drmaas 1", "Hello drmaas 2", "Hello drmaas 3"), replies.map { it.message })
+    }
+
+}
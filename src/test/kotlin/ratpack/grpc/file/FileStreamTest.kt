@@ -0,0 +1,126 @@
+package ratpack.grpc.file
+
+import com.google.protobuf.BytesValue
+import io.grpc.CallOptions
+import io.grpc.ManagedChannel
+import io.grpc.MethodDescriptor
+import io.grpc.Server
+import io.grpc.ServerServiceDefinition
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.netty.NettyChannelBuilder
+import io.grpc.netty.NettyServerBuilder
+import io.grpc.protobuf.ProtoUtils
+import io.grpc.stub.ClientCalls
+import io.grpc.stub.ServerCalls
+import ratpack.file.FileSystemBinding
+import ratpack.grpc.helloworld.HelloRequest
+import java.io.ByteArrayOutputStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Random
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class FileStreamTest {
+
+    val download: MethodDescriptor<HelloRequest, BytesValue> = MethodDescriptor.newBuilder<HelloRequest, BytesValue>()
+            .setType(MethodDescriptor.MethodType.SERVER_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("files.Files", "Download"))
+            .setRequestMarshaller(ProtoUtils.marshaller(HelloRequest.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(BytesValue.getDefaultInstance()))
+            .build()
+
+    lateinit var dir: Path
+    lateinit var content: ByteArray
+    var server: Server? = null
+    var channel: ManagedChannel? = null
+
+    @BeforeTest
+    fun setup() {
+        dir = Files.createTempDirectory("file-stream")
+        content = ByteArray(300 * 1024 + 7)
+        Random(42).nextBytes(content)
+        Files.write(dir.resolve("artifact.bin"), content)
+    }
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()
+        server?.shutdownNow()
+        dir.toFile().deleteRecursively()
+    }
+
+    private fun start(stream: (String) -> FileStream) {
+        // chunks reuse one buffer, which needs a transport that serializes messages as they are sent
+        server = NettyServerBuilder.forPort(0)
+                .addService(ServerServiceDefinition.builder("files.Files")
+                        .addMethod(download, ServerCalls.asyncServerStreamingCall<HelloRequest, BytesValue> { req, responseObserver ->
+                            stream(req.name).send({ BytesValue.newBuilder().setValue(it).build() }, responseObserver)
+                        })
+                        .build())
+                .directExecutor()
+                .build()
+                .start()
+        channel = NettyChannelBuilder.forAddress("localhost", server!!.port).usePlaintext().build()
+    }
+
+    private fun download(path: String): List<ByteArray> {
+        val request = HelloRequest.newBuilder().setName(path).build()
+        return ClientCalls.blockingServerStreamingCall(channel, download, CallOptions.DEFAULT, request)
+                .asSequence()
+                .map { it.value.toByteArray() }
+                .toList()
+    }
+
+    private fun List<ByteArray>.joined(): ByteArray {
+        val out = ByteArrayOutputStream()
+        forEach { out.write(it) }
+        return out.toByteArray()
+    }
+
+    @Test
+    fun `streams a file in chunks`() {
+        start { FileStream.of(dir.resolve(it)) }
+        val chunks = download("artifact.bin")
+        assertEquals(5, chunks.size)
+        assertTrue(chunks.dropLast(1).all { it.size == FileStream.DEFAULT_CHUNK_SIZE })
+        assertTrue(content.contentEquals(chunks.joined()))
+    }
+
+    @Test
+    fun `streams a memory mapped file`() {
+        start { FileStream.of(dir.resolve(it)).mapped(true).chunkSize(10_000) }
+        assertTrue(content.contentEquals(download("artifact.bin").joined()))
+    }
+
+    @Test
+    fun `streams a byte range`() {
+        start { FileStream.of(dir.resolve(it)).range(1000, 100_000).chunkSize(30_000) }
+        val chunks = download("artifact.bin")
+        assertEquals(4, chunks.size)
+        assertTrue(content.copyOfRange(1000, 101_000).contentEquals(chunks.joined()))
+    }
+
+    @Test
+    fun `fails with out of range for a range past the end`() {
+        start { FileStream.of(dir.resolve(it)).range(content.size.toLong(), 1) }
+        val e = assertFailsWith<StatusRuntimeException> { download("artifact.bin") }
+        assertEquals(Status.Code.OUT_OF_RANGE, e.status.code)
+    }
+
+    @Test
+    fun `resolves files of a file system binding`() {
+        val binding = FileSystemBinding.of(dir)
+        start { FileStream.of(binding, it) }
+        assertTrue(content.contentEquals(download("artifact.bin").joined()))
+
+        assertEquals(Status.Code.NOT_FOUND, assertFailsWith<StatusRuntimeException> { download("missing.bin") }.status.code)
+        assertEquals(Status.Code.NOT_FOUND, assertFailsWith<StatusRuntimeException> { download("../outside.bin") }.status.code)
+    }
+
+}
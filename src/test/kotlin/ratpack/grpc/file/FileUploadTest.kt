@@ -0,0 +1,124 @@
+package ratpack.grpc.file
+
+import com.google.protobuf.ByteString
+import com.google.protobuf.BytesValue
+import com.google.protobuf.StringValue
+import io.grpc.CallOptions
+import io.grpc.ManagedChannel
+import io.grpc.MethodDescriptor
+import io.grpc.Server
+import io.grpc.ServerServiceDefinition
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.inprocess.InProcessChannelBuilder
+import io.grpc.inprocess.InProcessServerBuilder
+import io.grpc.protobuf.ProtoUtils
+import io.grpc.stub.ClientCalls
+import io.grpc.stub.ServerCalls
+import io.grpc.stub.StreamObserver
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.MessageDigest
+import java.util.Random
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class FileUploadTest {
+
+    val name = "file-upload-test"
+    val upload: MethodDescriptor<BytesValue, StringValue> = MethodDescriptor.newBuilder<BytesValue, StringValue>()
+            .setType(MethodDescriptor.MethodType.CLIENT_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("files.Files", "Upload"))
+            .setRequestMarshaller(ProtoUtils.marshaller(BytesValue.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+            .build()
+
+    lateinit var dir: Path
+    var server: Server? = null
+    var channel: ManagedChannel? = null
+
+    @BeforeTest
+    fun setup() {
+        dir = Files.createTempDirectory("file-upload")
+    }
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()
+        server?.shutdownNow()
+        dir.toFile().deleteRecursively()
+    }
+
+    private fun start(configure: (FileUpload) -> FileUpload) {
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerServiceDefinition.builder("files.Files")
+                        .addMethod(upload, ServerCalls.asyncClientStreamingCall<BytesValue, StringValue> { responseObserver ->
+                            configure(FileUpload.to(dir.resolve("upload.bin")))
+                                    .receive({ it.value }, { StringValue.newBuilder().setValue("${it.size} ${it.checksum}").build() }, responseObserver)
+                        })
+                        .build())
+                .directExecutor()
+                .build()
+                .start()
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build()
+    }
+
+    private fun send(chunks: List<ByteArray>): String {
+        val response = CompletableFuture<String>()
+        val requests = ClientCalls.asyncClientStreamingCall(channel!!.newCall(upload, CallOptions.DEFAULT), object : StreamObserver<StringValue> {
+            override fun onNext(value: StringValue) {
+                response.complete(value.value)
+            }
+
+            override fun onError(t: Throwable) {
+                response.completeExceptionally(t)
+            }
+
+            override fun onCompleted() {
+            }
+        })
+        chunks.forEach { requests.onNext(BytesValue.newBuilder().setValue(ByteString.copyFrom(it)).build()) }
+        requests.onCompleted()
+        try {
+            return response.get(5, TimeUnit.SECONDS)
+        } catch (e: ExecutionException) {
+            throw e.cause!!
+        }
+    }
+
+    private fun chunks(count: Int, size: Int): List<ByteArray> {
+        val random = Random(42)
+        return (1..count).map { ByteArray(size).also { random.nextBytes(it) } }
+    }
+
+    @Test
+    fun `writes chunks to disk with a checksum`() {
+        start { it.checksum("SHA-256").maxInFlight(2) }
+        val chunks = chunks(20, 64 * 1024)
+        val digest = MessageDigest.getInstance("SHA-256")
+        chunks.forEach { digest.update(it) }
+        val expected = digest.digest().joinToString("") { "%02x".format(it) }
+
+        assertEquals("${20 * 64 * 1024} $expected", send(chunks))
+        val written = Files.readAllBytes(dir.resolve("upload.bin"))
+        assertTrue(chunks.reduce { a, b -> a + b }.contentEquals(written))
+    }
+
+    @Test
+    fun `rejects uploads over the maximum size and deletes the partial file`() {
+        start { it.maxSize(100_000) }
+        val e = assertFailsWith<StatusRuntimeException> { send(chunks(4, 30_000)) }
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.status.code)
+        Thread.sleep(50)
+        assertFalse(Files.exists(dir.resolve("upload.bin")))
+    }
+
+}
@@ -0,0 +1,144 @@
+package ratpack.grpc.lane
+
+import ratpack.grpc.GreeterClient
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.util.ArrayDeque
+import java.util.concurrent.Executor
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class PriorityLanesTest {
+
+    var server: RatpackServer? = null
+
+    @AfterTest
+    fun cleanup() {
+        server?.stop()
+    }
+
+    class ManualExecutor : Executor {
+        val tasks = ArrayDeque<Runnable>()
+        override fun execute(command: Runnable) {
+            tasks.add(command)
+        }
+
+        fun runAll() {
+            while (tasks.isNotEmpty()) {
+                tasks.poll().run()
+            }
+        }
+    }
+
+    private val config = PriorityLanesConfig()
+            .lane("interactive", 4)
+            .lane("batch", 1)
+            .method("helloworld.Greeter/SayHello", "interactive")
+            .method("batch.Jobs", "batch")
+
+    @Test
+    fun `assigns methods and services to lanes`() {
+        val lanes = PriorityLanes(ManualExecutor(), 1, config, null)
+        assertEquals("interactive", lanes.laneOf("helloworld.Greeter/SayHello").name)
+        assertEquals("batch", lanes.laneOf("batch.Jobs/Run").name)
+        assertEquals("interactive", lanes.laneOf("other.Service/Call").name)
+    }
+
+    @Test
+    fun `rejects unknown lanes`() {
+        assertFailsWith<IllegalArgumentException> {
+            PriorityLanes(ManualExecutor(), 1, PriorityLanesConfig().lane("interactive", 1).method("a.B", "batch"), null)
+        }
+    }
+
+    @Test
+    fun `dispatches lanes in proportion to their weight`() {
+        val executor = ManualExecutor()
+        val lanes = PriorityLanes(executor, 1, config, null)
+        val interactive = lanes.laneOf("helloworld.Greeter/SayHello")
+        val batch = lanes.laneOf("batch.Jobs/Run")
+        val order = mutableListOf<String>()
+
+        // a burst of batch calls arrives first
+        repeat(10) { lanes.submit(batch) { order.add("batch") } }
+        repeat(8) { lanes.submit(interactive) { order.add("interactive") } }
+        assertEquals(9, batch.queueLength)
+        executor.runAll()
+
+        assertEquals(18, order.size)
+        // after the batch call already running, interactive calls get four of every five dispatches
+        assertEquals(8, order.subList(1, 11).count { it == "interactive" })
+        assertEquals(0, batch.queueLength)
+        assertEquals(10, batch.dispatched)
+        assertEquals(8, interactive.waitMicros.totalCount)
+    }
+
+    @Test
+    fun `reweights lanes and raises concurrency while running`() {
+        val executor = ManualExecutor()
+        val lanes = PriorityLanes(executor, 1, config, null)
+        val interactive = lanes.laneOf("helloworld.Greeter/SayHello")
+        val batch = lanes.laneOf("batch.Jobs/Run")
+        val order = mutableListOf<String>()
+
+        repeat(10) { lanes.submit(batch) { order.add("batch") } }
+        repeat(8) { lanes.submit(interactive) { order.add("interactive") } }
+        lanes.update(PriorityLanesConfig()
+                .lane("interactive", 1)
+                .lane("batch", 1)
+                .method("helloworld.Greeter/SayHello", "interactive")
+                .method("batch.Jobs", "batch")
+                .concurrency(2))
+
+        // the queued calls stay in their lanes, and the higher concurrency dispatches a second one straight away
+        assertEquals(1, interactive.weight)
+        assertEquals(2, executor.tasks.size)
+        executor.runAll()
+        assertEquals(18, order.size)
+        // equal weights alternate the lanes, where four to one gave interactive calls eight of these ten dispatches
+        assertEquals(6, order.subList(1, 11).count { it == "interactive" })
+    }
+
+    @Test
+    fun `keeps the running lanes when an update is invalid`() {
+        val lanes = PriorityLanes(ManualExecutor(), 1, config, null)
+        assertFailsWith<IllegalArgumentException> {
+            lanes.update(PriorityLanesConfig().lane("interactive", 1).method("helloworld.Greeter", "missing"))
+        }
+        assertFailsWith<IllegalArgumentException> {
+            lanes.update(PriorityLanesConfig())
+        }
+        assertEquals(4, lanes.laneOf("helloworld.Greeter/SayHello").weight)
+        assertEquals("batch", lanes.laneOf("batch.Jobs/Run").name)
+    }
+
+    @Test
+    fun `serves calls through lanes`() {
+        val port = 32768
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.lanes { lanes -> lanes.lane("interactive", 4).lane("batch", 1).method("helloworld.Greeter", "interactive") }
+                }
+            })
+        }
+        val client = GreeterClient("localhost", port)
+        try {
+            assertEquals("Hello drmaas", client.greet("drmaas"))
+        } finally {
+            client.shutdown()
+        }
+
+        val lanes = server!!.registry.get().get(PriorityLanes::class.java)
+        assertTrue(lanes.laneOf("helloworld.Greeter/SayHello").dispatched > 0)
+        assertEquals(0, lanes.laneOf("batch.Jobs/Run").dispatched)
+    }
+
+}
@@ -0,0 +1,92 @@
+package ratpack.grpc.log
+
+import ch.qos.logback.classic.Logger
+import ch.qos.logback.classic.spi.ILoggingEvent
+import ch.qos.logback.core.read.ListAppender
+import io.grpc.Status
+import org.slf4j.LoggerFactory
+import ratpack.grpc.GreeterClient
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.net.InetSocketAddress
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class AccessLogTest {
+
+    val port = 32768
+    val loggerName = "ratpack.grpc.access.test"
+    val appender = ListAppender<ILoggingEvent>()
+    var server: RatpackServer? = null
+    var client: GreeterClient? = null
+
+    @AfterTest
+    fun cleanup() {
+        client?.shutdown()
+        server?.stop()
+        (LoggerFactory.getLogger(loggerName) as Logger).detachAppender(appender)
+    }
+
+    private fun start(configure: (AccessLogConfig) -> Unit) {
+        appender.start()
+        (LoggerFactory.getLogger(loggerName) as Logger).addAppender(appender)
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.accessLog { log -> configure(log.enabled(true).loggerName(loggerName)) }
+                }
+            })
+        }
+        client = GreeterClient("localhost", port)
+    }
+
+    private fun lines(): List<String> = synchronized(appender) { appender.list.map { it.formattedMessage } }
+
+    @Test
+    fun `logs one line per call`() {
+        start {}
+        client?.greet("drmaas")
+        client?.greet("drmaas")
+
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (lines().size < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10)
+        }
+        assertEquals(2, lines().size)
+        lines().forEach {
+            assertTrue(it.matches(Regex("helloworld\\.Greeter/SayHello \\S+:\\d+ OK \\d+\\.\\d{3}ms in=\\d+ out=\\d+")), it)
+        }
+    }
+
+    @Test
+    fun `only logs slow calls in slow call mode`() {
+        start { it.slowCallThreshold(Duration.ofSeconds(10)) }
+        client?.greet("drmaas")
+        Thread.sleep(100)
+        assertTrue(lines().isEmpty())
+    }
+
+    @Test
+    fun `drops entries when the buffer is full`() {
+        val buffer = AccessLogBuffer(2)
+        val peer = InetSocketAddress("localhost", 1234)
+        assertTrue(buffer.offer("a", peer, Status.Code.OK, 1, 1, 1))
+        assertTrue(buffer.offer("b", peer, Status.Code.OK, 1, 1, 1))
+        assertTrue(!buffer.offer("c", peer, Status.Code.OK, 1, 1, 1))
+        assertEquals(1, buffer.dropped)
+
+        val drained = mutableListOf<String>()
+        assertEquals(2, buffer.drain { drained.add(it.method) })
+        assertEquals(listOf("a", "b"), drained)
+        assertTrue(buffer.offer("d", peer, Status.Code.OK, 1, 1, 1))
+    }
+
+}
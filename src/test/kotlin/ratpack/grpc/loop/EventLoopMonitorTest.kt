@@ -0,0 +1,60 @@
+package ratpack.grpc.loop
+
+import ratpack.test.exec.ExecHarness
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class EventLoopMonitorTest {
+
+    val harness = ExecHarness.harness()
+    val monitor = EventLoopMonitor(harness.controller, EventLoopMonitorConfig()
+            .enabled(true)
+            .sampleInterval(Duration.ofMillis(5))
+            .reportInterval(Duration.ofHours(1)))
+
+    @AfterTest
+    fun cleanup() {
+        monitor.onStop(null)
+        harness.close()
+    }
+
+    @Test
+    fun `samples every event loop`() {
+        monitor.onStart(null)
+        Thread.sleep(100)
+        monitor.report()
+
+        val stats = monitor.stats
+        assertEquals(harness.controller.numThreads, stats.size)
+        stats.forEach {
+            assertTrue(it.lagMicros.totalCount > 0)
+            assertTrue(it.thread.isNotEmpty())
+        }
+    }
+
+    @Test
+    fun `measures lag of a blocked event loop`() {
+        monitor.onStart(null)
+        Thread.sleep(20)
+        val blocked = CountDownLatch(harness.controller.numThreads)
+        harness.controller.eventLoopGroup.forEach {
+            it.execute {
+                Thread.sleep(100)
+                blocked.countDown()
+            }
+        }
+        assertTrue(blocked.await(5, TimeUnit.SECONDS))
+        Thread.sleep(20)
+        monitor.report()
+
+        monitor.stats.forEach {
+            assertTrue(it.maxLagMicros >= 50_000, it.toString())
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package ratpack.grpc.proxy
+
+import io.grpc.CallOptions
+import io.grpc.ClientInterceptors
+import io.grpc.ManagedChannel
+import io.grpc.Metadata
+import io.grpc.Server
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.netty.NettyChannelBuilder
+import io.grpc.netty.NettyServerBuilder
+import io.grpc.stub.ClientCalls
+import io.grpc.stub.MetadataUtils
+import ratpack.grpc.GreeterClient
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.StreamingGreeter
+import ratpack.grpc.auth.VerifiedToken
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.time.Instant
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+
+class GrpcProxyTest {
+
+    val port = 32768
+    var upstream: Server? = null
+    var server: RatpackServer? = null
+    var channel: ManagedChannel? = null
+
+    @BeforeTest
+    fun setup() {
+        // the upstream only implements the unary greeter
+        upstream = NettyServerBuilder.forPort(0)
+                .addService(GreeterService())
+                .build()
+                .start()
+        start(false)
+    }
+
+    private fun start(auth: Boolean) {
+        server?.stop()
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.proxy("localhost:${upstream!!.port}")
+                    if (auth) {
+                        it.auth { a -> a.verifier { token -> VerifiedToken.of(token, Instant.now().plusSeconds(60)) } }
+                    }
+                }
+            })
+        }
+        channel?.shutdownNow()
+        channel = NettyChannelBuilder.forAddress("localhost", port).usePlaintext().build()
+    }
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()
+        server?.stop()
+        upstream?.shutdownNow()
+    }
+
+    private fun request(name: String) = HelloRequest.newBuilder().setName(name).build()
+
+    @Test
+    fun `forwards calls to the upstream`() {
+        val client = GreeterClient("localhost", port)
+        try {
+            assertEquals("Hello drmaas", client.greet("drmaas"))
+        } finally {
+            client.shutdown()
+        }
+    }
+
+    @Test
+    fun `forwards many calls over one channel`() {
+        val stub = GreeterGrpc.newBlockingStub(channel)
+        (1..50).forEach {
+            assertEquals("Hello $it", stub.sayHello(request("$it")).message)
+        }
+    }
+
+    @Test
+    fun `forwards upstream status`() {
+        val e = assertFailsWith<StatusRuntimeException> {
+            ClientCalls.blockingServerStreamingCall(channel, StreamingGreeter.sayHellos, CallOptions.DEFAULT, request("drmaas")).next()
+        }
+        assertEquals(Status.Code.UNIMPLEMENTED, e.status.code)
+    }
+
+    @Test
+    fun `authenticates proxied calls`() {
+        start(true)
+        val unauthenticated = assertFailsWith<StatusRuntimeException> {
+            GreeterGrpc.newBlockingStub(channel).sayHello(request("drmaas"))
+        }
+        assertEquals(Status.Code.UNAUTHENTICATED, unauthenticated.status.code)
+
+        val headers = Metadata()
+        headers.put(Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer drmaas")
+        val authenticated = ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers))
+        assertEquals("Hello drmaas", GreeterGrpc.newBlockingStub(authenticated).sayHello(request("drmaas")).message)
+    }
+
+}
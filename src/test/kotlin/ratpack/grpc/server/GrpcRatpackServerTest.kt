@@ -2,10 +2,13 @@ package ratpack.grpc.server
 
 import ratpack.grpc.GreeterClient
 import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcConfig
 import ratpack.guice.Guice
+import java.net.ServerSocket
 import kotlin.test.AfterTest
 import kotlin.test.BeforeTest
 import kotlin.test.Test
+import kotlin.test.assertFailsWith
 import kotlin.test.assertTrue
 
 class GrpcRatpackServerTest {
@@ -13,9 +16,11 @@ class GrpcRatpackServerTest {
     var server: GrpcRatpackServer? = null
     var client: GreeterClient? = null
 
+    val port = 32768
+    val adminPort = 32769
+
     @BeforeTest
     fun setup() {
-        val port = 32768
         client = GreeterClient("localhost", port)
         server = GrpcRatpackServer.start {
             it.serverConfig {
@@ -41,4 +46,24 @@ class GrpcRatpackServerTest {
         assert(response == "Hello drmaas")
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `stops the main server when a named server fails to start`() {
+        server?.stop()
+        ServerSocket(adminPort).use {
+            assertFailsWith<Exception> {
+                GrpcRatpackServer.start {
+                    it.serverConfig {
+                        it.port(port)
+                    }
+                    it.registry(Guice.registry {
+                        it.bind(GreeterService::class.java)
+                        it.bindInstance(GrpcConfig::class.java, GrpcConfig().server("admin") { admin -> admin.port(adminPort) })
+                    })
+                }
+            }
+        }
+        // the main server released its port
+        ServerSocket(port).close()
+    }
+
+}
@@ -0,0 +1,63 @@
+package ratpack.grpc.server
+
+import ratpack.grpc.GreeterClient
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcConfig
+import ratpack.server.ServerConfig
+import ratpack.test.exec.ExecHarness
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class GrpcServerTest {
+
+    val harness: ExecHarness = ExecHarness.harness()
+    var server: GrpcServer? = null
+    var client: GreeterClient? = null
+
+    @AfterTest
+    fun cleanup() {
+        client?.shutdown()
+        server?.stop()
+        harness.close()
+    }
+
+    private fun start(config: GrpcConfig): GrpcServer {
+        server = GrpcServer(harness.controller, listOf(GreeterService()), ServerConfig.embedded().build(), config).start()
+        client = GreeterClient("localhost", server!!.port())
+        return server!!
+    }
+
+    @Test
+    fun `binds an ephemeral port`() {
+        val server = start(GrpcConfig().port(0))
+        assertTrue(server.port() > 0)
+        assertEquals("Hello drmaas", client?.greet("drmaas"))
+    }
+
+    @Test
+    fun `serves with several listeners, or one when epoll is unavailable`() {
+        val server = start(GrpcConfig().port(0).listeners(4).tcpQuickAck(true))
+        assertTrue(server.isRunning)
+        (1..8).forEach {
+            assertEquals("Hello drmaas $it", client?.greet("drmaas $it"))
+        }
+        server.stop()
+        assertFalse(server.isRunning)
+    }
+
+    @Test
+    fun `serves with several listeners on a dedicated event loop group`() {
+        start(GrpcConfig().port(0).listeners(2).useRatpackEventLoop(false))
+        assertEquals("Hello drmaas", client?.greet("drmaas"))
+    }
+
+    @Test
+    fun `serves with io_uring, or the default transport when it is unavailable`() {
+        start(GrpcConfig().port(0).transport(Transport.IO_URING))
+        assertEquals("Hello drmaas", client?.greet("drmaas"))
+    }
+
+}
@@ -0,0 +1,84 @@
+package ratpack.grpc.server
+
+import io.grpc.CallOptions
+import io.grpc.ManagedChannel
+import io.grpc.Metadata
+import io.grpc.ServerCall
+import io.grpc.ServerCallHandler
+import io.grpc.ServerInterceptor
+import io.grpc.netty.NettyChannelBuilder
+import io.grpc.stub.ClientCalls
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.StreamingGreeter
+import ratpack.grpc.StreamingGreeterService
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.util.concurrent.CopyOnWriteArrayList
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertSame
+
+class RecordingInterceptor(private val name: String, private val calls: MutableList<String>) : ServerInterceptor {
+    override fun <ReqT, RespT> interceptCall(call: ServerCall<ReqT, RespT>, headers: Metadata, next: ServerCallHandler<ReqT, RespT>): ServerCall.Listener<ReqT> {
+        calls.add("$name ${call.methodDescriptor.fullMethodName}")
+        return next.startCall(call, headers)
+    }
+}
+
+class InterceptorChainsTest {
+
+    val port = 32768
+    val calls: MutableList<String> = CopyOnWriteArrayList()
+    var server: RatpackServer? = null
+    var channel: ManagedChannel? = null
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()
+        server?.stop()
+    }
+
+    private fun request(name: String) = HelloRequest.newBuilder().setName(name).build()
+
+    @Test
+    fun `applies registry interceptors in order and scope`() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.module(GrpcModule::class.java) { it.port(port) }
+                it.bind(GreeterService::class.java)
+                it.bind(StreamingGreeterService::class.java)
+                it.bindInstance(ServerInterceptor::class.java, RecordingInterceptor("global", calls))
+                it.multiBindInstance(GrpcInterceptor::class.java, GrpcInterceptor.of(RecordingInterceptor("first", calls)).order(-1))
+                it.multiBindInstance(GrpcInterceptor::class.java, GrpcInterceptor.forService(StreamingGreeter.SERVICE_NAME, RecordingInterceptor("service", calls)))
+                it.multiBindInstance(GrpcInterceptor::class.java, GrpcInterceptor.forMethod(GreeterGrpc.getSayHelloMethod().fullMethodName, RecordingInterceptor("method", calls)).order(1))
+            })
+        }
+        channel = NettyChannelBuilder.forAddress("localhost", port).usePlaintext().build()
+
+        GreeterGrpc.newBlockingStub(channel).sayHello(request("drmaas"))
+        val unary = GreeterGrpc.getSayHelloMethod().fullMethodName
+        assertEquals(listOf("first $unary", "global $unary", "method $unary"), calls)
+
+        calls.clear()
+        ClientCalls.blockingServerStreamingCall(channel, StreamingGreeter.sayHellos, CallOptions.DEFAULT, request("drmaas")).forEach { }
+        val streaming = StreamingGreeter.sayHellos.fullMethodName
+        assertEquals(listOf("first $streaming", "global $streaming", "service $streaming"), calls)
+    }
+
+    @Test
+    fun `keeps the handlers of methods without interceptors`() {
+        val service = GreeterService().bindService()
+        val chains = InterceptorChains(listOf(GrpcInterceptor.forService(StreamingGreeter.SERVICE_NAME, RecordingInterceptor("service", calls))))
+
+        val intercepted = chains.intercept(service)
+
+        val method = GreeterGrpc.getSayHelloMethod().fullMethodName
+        assertSame(service.getMethod(method), intercepted.getMethod(method))
+        assertSame(service, InterceptorChains(emptyList()).intercept(service))
+    }
+
+}
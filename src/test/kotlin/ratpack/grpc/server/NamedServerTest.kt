@@ -0,0 +1,142 @@
+package ratpack.grpc.server
+
+import io.grpc.CallOptions
+import io.grpc.ManagedChannel
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.netty.NettyChannelBuilder
+import io.grpc.stub.ClientCalls
+import io.grpc.stub.StreamObserver
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.StreamingGreeter
+import ratpack.grpc.StreamingGreeterService
+import ratpack.grpc.connection.ConnectionStats
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.grpc.service.GrpcService
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class SlowGreeterService : GreeterGrpc.GreeterImplBase() {
+    override fun sayHello(req: HelloRequest, responseObserver: StreamObserver<HelloReply>) {
+        Thread.sleep(500)
+        responseObserver.onNext(HelloReply.newBuilder().setMessage("Hello ${req.name}").build())
+        responseObserver.onCompleted()
+    }
+}
+
+class NamedServerTest {
+
+    val port = 32768
+    val adminPort = 32769
+    var server: RatpackServer? = null
+    val channels = mutableListOf<ManagedChannel>()
+
+    @AfterTest
+    fun cleanup() {
+        channels.forEach { it.shutdownNow() }
+        server?.stop()
+    }
+
+    private fun channel(port: Int) = NettyChannelBuilder.forAddress("localhost", port).usePlaintext().build().also { channels.add(it) }
+
+    private fun request(name: String) = HelloRequest.newBuilder().setName(name).build()
+
+    @Test
+    fun `serves each service on its own server`() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.bind(StreamingGreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.server("admin") { admin -> admin.port(adminPort).executorThreads(1).service(StreamingGreeter.SERVICE_NAME) }
+                }
+            })
+        }
+        val main = channel(port)
+        val admin = channel(adminPort)
+
+        assertEquals("Hello drmaas", GreeterGrpc.newBlockingStub(main).sayHello(request("drmaas")).message)
+        val replies = ClientCalls.blockingServerStreamingCall(admin, StreamingGreeter.sayHellos, CallOptions.DEFAULT, request("drmaas"))
+        assertTrue(replies.hasNext())
+
+        val onMain = assertFailsWith<StatusRuntimeException> {
+            ClientCalls.blockingServerStreamingCall(main, StreamingGreeter.sayHellos, CallOptions.DEFAULT, request("drmaas")).next()
+        }
+        assertEquals(Status.Code.UNIMPLEMENTED, onMain.status.code)
+        val onAdmin = assertFailsWith<StatusRuntimeException> {
+            GreeterGrpc.newBlockingStub(admin).sayHello(request("drmaas"))
+        }
+        assertEquals(Status.Code.UNIMPLEMENTED, onAdmin.status.code)
+
+        val service = server!!.registry.get().get(GrpcService::class.java)
+        assertEquals(adminPort, service.getServer("admin")!!.port())
+    }
+
+    @Test
+    fun `fails to start when a named service is missing`() {
+        assertFailsWith<Exception> {
+            server = RatpackServer.start {
+                it.registry(Guice.registry {
+                    it.bind(GreeterService::class.java)
+                    it.module(GrpcModule::class.java) {
+                        it.port(port)
+                        it.server("admin") { admin -> admin.port(adminPort).service("missing.Service") }
+                    }
+                })
+            }
+        }
+    }
+
+    @Test
+    fun `lets calls in flight complete when stopping`() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(SlowGreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.server("admin") { admin -> admin.port(adminPort).executorThreads(1).service(GreeterGrpc.SERVICE_NAME) }
+                }
+            })
+        }
+        val reply = GreeterGrpc.newFutureStub(channel(adminPort)).sayHello(request("drmaas"))
+        Thread.sleep(100)
+
+        server!!.stop()
+        assertEquals("Hello drmaas", reply.get(5, TimeUnit.SECONDS).message)
+    }
+
+    @Test
+    fun `recycles connections at the named server's own maximum age`() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port).connectionStats(true)
+                    it.server("admin") { admin ->
+                        admin.port(adminPort).service(GreeterGrpc.SERVICE_NAME).keepAlive { k -> k.maxConnectionAge(Duration.ofSeconds(1)) }
+                    }
+                }
+            })
+        }
+        val stats = server!!.registry.get().get(ConnectionStats::class.java)
+        assertEquals("Hello drmaas", GreeterGrpc.newBlockingStub(channel(adminPort)).sayHello(request("drmaas")).message)
+
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+        while (stats.recycled == 0L && System.nanoTime() < deadline) {
+            Thread.sleep(10)
+        }
+        assertEquals(1, stats.recycled)
+    }
+
+}
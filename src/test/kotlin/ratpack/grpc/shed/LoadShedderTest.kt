@@ -0,0 +1,150 @@
+package ratpack.grpc.shed
+
+import io.grpc.Server
+import io.grpc.ServerInterceptors
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.inprocess.InProcessChannelBuilder
+import io.grpc.inprocess.InProcessServerBuilder
+import io.grpc.ManagedChannelBuilder
+import io.grpc.stub.StreamObserver
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.time.Duration
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+class SlowGreeterService : GreeterGrpc.GreeterImplBase() {
+    override fun sayHello(req: HelloRequest, responseObserver: StreamObserver<HelloReply>) {
+        // occupies the only lane slot, so that the calls behind it queue
+        Thread.sleep(20)
+        responseObserver.onNext(HelloReply.newBuilder().setMessage("Hello ${req.name}").build())
+        responseObserver.onCompleted()
+    }
+}
+
+class LoadShedderTest {
+
+    val name = "load-shedder-test"
+    val shedder = LoadShedder(LoadSheddingConfig().enabled(true).target(Duration.ofMillis(5)).interval(Duration.ofMillis(20)))
+    var server: Server? = null
+
+    @AfterTest
+    fun cleanup() {
+        server?.shutdownNow()
+    }
+
+    private fun overload() {
+        shedder.observe(TimeUnit.MILLISECONDS.toNanos(50))
+        Thread.sleep(25)
+        shedder.observe(TimeUnit.MILLISECONDS.toNanos(50))
+    }
+
+    @Test
+    fun `sheds once the minimum delay stays above the target for an interval`() {
+        shedder.observe(TimeUnit.MILLISECONDS.toNanos(50))
+        assertFalse(shedder.isOverloaded)
+        overload()
+        assertTrue(shedder.isOverloaded)
+    }
+
+    @Test
+    fun `tolerates bursts within an interval`() {
+        shedder.observe(TimeUnit.MILLISECONDS.toNanos(50))
+        shedder.observe(TimeUnit.MILLISECONDS.toNanos(1))
+        Thread.sleep(25)
+        shedder.observe(TimeUnit.MILLISECONDS.toNanos(50))
+        assertFalse(shedder.isOverloaded)
+    }
+
+    @Test
+    fun `stops shedding once the queue drains`() {
+        overload()
+        assertTrue(shedder.isOverloaded)
+        shedder.observe(TimeUnit.MILLISECONDS.toNanos(1))
+        assertFalse(shedder.isOverloaded)
+    }
+
+    @Test
+    fun `applies a new target`() {
+        shedder.update(LoadSheddingConfig().target(Duration.ofMillis(100)).interval(Duration.ofMillis(20)))
+        overload()
+        assertFalse(shedder.isOverloaded)
+        assertTrue(shedder.isEnabled)
+    }
+
+    @Test
+    fun `rejects new calls while overloaded`() {
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerInterceptors.interceptForward(GreeterService(), shedder.serverInterceptor()))
+                .directExecutor()
+                .build()
+                .start()
+        val channel = InProcessChannelBuilder.forName(name).directExecutor().build()
+        try {
+            val stub = GreeterGrpc.newBlockingStub(channel)
+            val request = HelloRequest.newBuilder().setName("drmaas").build()
+            assertEquals("Hello drmaas", stub.sayHello(request).message)
+
+            overload()
+            val e = assertFailsWith<StatusRuntimeException> { stub.sayHello(request) }
+            assertEquals(Status.Code.UNAVAILABLE, e.status.code)
+            assertEquals(1, shedder.rejected)
+        } finally {
+            channel.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `recovers after a burst queued in priority lanes`() {
+        val port = 32768
+        val ratpack = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(SlowGreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.lanes { l -> l.lane("default", 1).concurrency(1) }
+                    it.shedding { s -> s.enabled(true).target(Duration.ofMillis(5)).interval(Duration.ofMillis(50)) }
+                }
+            })
+        }
+        val channel = ManagedChannelBuilder.forAddress("localhost", port).usePlaintext().build()
+        try {
+            val request = HelloRequest.newBuilder().setName("drmaas").build()
+            val queued = (1..30).map { GreeterGrpc.newFutureStub(channel).sayHello(request) }
+            // calls arriving once the queue has stayed behind for an interval are shed
+            Thread.sleep(150)
+            val late = (1..10).map { GreeterGrpc.newFutureStub(channel).sayHello(request) }
+            queued.forEach { it.get(10, TimeUnit.SECONDS) }
+            val shed = late.count {
+                try {
+                    it.get(10, TimeUnit.SECONDS)
+                    false
+                } catch (e: ExecutionException) {
+                    true
+                }
+            }
+            assertTrue(shed > 0)
+
+            // the lanes have drained, so nothing observes the queue any more
+            Thread.sleep(100)
+            assertEquals("Hello drmaas", GreeterGrpc.newBlockingStub(channel).sayHello(request).message)
+            assertFalse(ratpack.registry.get().get(LoadShedder::class.java).isOverloaded)
+        } finally {
+            channel.shutdownNow()
+            ratpack.stop()
+        }
+    }
+
+}
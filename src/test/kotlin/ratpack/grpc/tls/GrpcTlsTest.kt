@@ -0,0 +1,93 @@
+package ratpack.grpc.tls
+
+import io.grpc.ManagedChannel
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
+import io.grpc.netty.GrpcSslContexts
+import io.grpc.netty.NettyChannelBuilder
+import io.netty.handler.ssl.OpenSsl
+import io.netty.handler.ssl.SslProvider
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import ratpack.grpc.GreeterService
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.time.Duration
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+
+class GrpcTlsTest {
+
+    val port = 32768
+    val first = SelfSignedCertificate("localhost")
+    val second = SelfSignedCertificate("localhost")
+    val dir: Path = Files.createTempDirectory("grpc-tls")
+    val certChain: Path = dir.resolve("cert.pem")
+    val privateKey: Path = dir.resolve("key.pem")
+    var server: RatpackServer? = null
+    val channels = mutableListOf<ManagedChannel>()
+
+    @BeforeTest
+    fun setup() {
+        install(first)
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(GreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.tls { tls -> tls.keyCertChain(certChain, privateKey).watchInterval(Duration.ZERO) }
+                }
+            })
+        }
+    }
+
+    @AfterTest
+    fun cleanup() {
+        channels.forEach { it.shutdownNow() }
+        server?.stop()
+        first.delete()
+        second.delete()
+        dir.toFile().deleteRecursively()
+    }
+
+    private fun install(certificate: SelfSignedCertificate) {
+        Files.copy(certificate.certificate().toPath(), certChain, StandardCopyOption.REPLACE_EXISTING)
+        Files.copy(certificate.privateKey().toPath(), privateKey, StandardCopyOption.REPLACE_EXISTING)
+    }
+
+    private fun greet(trusted: SelfSignedCertificate): String {
+        val channel = NettyChannelBuilder.forAddress("localhost", port)
+                .sslContext(GrpcSslContexts.forClient().trustManager(trusted.cert()).build())
+                .build()
+        channels.add(channel)
+        return GreeterGrpc.newBlockingStub(channel).sayHello(HelloRequest.newBuilder().setName("drmaas").build()).message
+    }
+
+    @Test
+    fun `serves with TLS, using OpenSSL when available`() {
+        assertEquals("Hello drmaas", greet(first))
+        val tls = server!!.registry.get().get(GrpcTls::class.java)
+        assertEquals(if (OpenSsl.isAvailable()) SslProvider.OPENSSL else SslProvider.JDK, tls.provider)
+    }
+
+    @Test
+    fun `reloads certificates without restarting`() {
+        assertEquals("Hello drmaas", greet(first))
+
+        install(second)
+        server!!.registry.get().get(GrpcTls::class.java).reload()
+
+        assertEquals("Hello drmaas", greet(second))
+        val e = assertFailsWith<StatusRuntimeException> { greet(first) }
+        assertEquals(Status.Code.UNAVAILABLE, e.status.code)
+    }
+
+}
@@ -0,0 +1,93 @@
+package ratpack.grpc.tls
+
+import io.grpc.ManagedChannel
+import io.grpc.netty.GrpcSslContexts
+import io.grpc.netty.NettyChannelBuilder
+import io.grpc.stub.StreamObserver
+import io.netty.handler.ssl.ClientAuth
+import io.netty.handler.ssl.util.SelfSignedCertificate
+import ratpack.exec.Execution
+import ratpack.exec.Promise
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.exec.GrpcExecution
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.time.Duration
+import java.util.Collections
+import java.util.IdentityHashMap
+import kotlin.test.AfterTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+
+class IdentityGreeterService : GreeterGrpc.GreeterImplBase() {
+
+    val identities: MutableSet<PeerIdentity> = Collections.synchronizedSet(Collections.newSetFromMap(IdentityHashMap()))
+
+    override fun sayHello(req: HelloRequest, responseObserver: StreamObserver<HelloReply>) {
+        identities.add(PeerIdentity.current()!!)
+        GrpcExecution.respond(responseObserver) {
+            val identity = Execution.current().get(PeerIdentity::class.java)
+            Promise.value(HelloReply.newBuilder().setMessage("Hello ${identity.name}").build())
+        }
+    }
+}
+
+class PeerIdentitiesTest {
+
+    val port = 32768
+    val serverCertificate = SelfSignedCertificate("localhost")
+    val clientCertificate = SelfSignedCertificate("client.example.com")
+    val service = IdentityGreeterService()
+    var server: RatpackServer? = null
+    var channel: ManagedChannel? = null
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()
+        server?.stop()
+        serverCertificate.delete()
+        clientCertificate.delete()
+    }
+
+    @Test
+    fun `identifies clients once per connection`() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bindInstance(service)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.tls { tls ->
+                        tls.keyCertChain(serverCertificate.certificate().toPath(), serverCertificate.privateKey().toPath())
+                                .trustCertCollection(clientCertificate.certificate().toPath())
+                                .clientAuth(ClientAuth.REQUIRE)
+                                .watchInterval(Duration.ZERO)
+                    }
+                }
+            })
+        }
+        channel = NettyChannelBuilder.forAddress("localhost", port)
+                .sslContext(GrpcSslContexts.forClient()
+                        .trustManager(serverCertificate.cert())
+                        .keyManager(clientCertificate.certificate(), clientCertificate.privateKey())
+                        .build())
+                .build()
+
+        val stub = GreeterGrpc.newBlockingStub(channel)
+        repeat(3) {
+            assertEquals("Hello client.example.com", stub.sayHello(HelloRequest.newBuilder().setName("drmaas").build()).message)
+        }
+        assertEquals(1, service.identities.size)
+    }
+
+    @Test
+    fun `names clients by common name without a SPIFFE ID`() {
+        val identity = PeerIdentity.of(clientCertificate.cert())
+        assertEquals("client.example.com", identity.commonName)
+        assertEquals(null, identity.spiffeId)
+        assertEquals("client.example.com", identity.name)
+    }
+
+}
@@ -0,0 +1,116 @@
+package ratpack.grpc.trace
+
+import io.grpc.ClientInterceptors
+import io.grpc.ManagedChannel
+import io.grpc.ManagedChannelBuilder
+import io.grpc.Metadata
+import io.grpc.stub.MetadataUtils
+import io.grpc.stub.StreamObserver
+import org.slf4j.MDC
+import ratpack.exec.Blocking
+import ratpack.exec.Execution
+import ratpack.grpc.GrpcModule
+import ratpack.grpc.exec.GrpcExecution
+import ratpack.grpc.helloworld.GreeterGrpc
+import ratpack.grpc.helloworld.HelloReply
+import ratpack.grpc.helloworld.HelloRequest
+import ratpack.guice.Guice
+import ratpack.server.RatpackServer
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+import kotlin.test.AfterTest
+import kotlin.test.BeforeTest
+import kotlin.test.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+class TracedGreeterService : GreeterGrpc.GreeterImplBase() {
+    override fun sayHello(req: HelloRequest, responseObserver: StreamObserver<HelloReply>) {
+        GrpcExecution.respond(responseObserver) {
+            Blocking.get { req.name }.map {
+                val traceId = Execution.current().maybeGet(TraceContext::class.java).map { it.traceId }.orElse("none")
+                HelloReply.newBuilder().setMessage("$traceId ${MDC.get(Tracing.MDC_TRACE_ID) ?: "none"} ${MDC.get(Tracing.MDC_SPAN_ID) ?: "none"}").build()
+            }
+        }
+    }
+}
+
+class TracingTest {
+
+    val port = 32768
+    val exporter = InMemorySpanExporter()
+    var server: RatpackServer? = null
+    var channel: ManagedChannel? = null
+
+    @BeforeTest
+    fun setup() {
+        server = RatpackServer.start {
+            it.registry(Guice.registry {
+                it.bind(TracedGreeterService::class.java)
+                it.module(GrpcModule::class.java) {
+                    it.port(port)
+                    it.tracing { t -> t.enabled(true).sampleRate(1.0).exporter(exporter).flushInterval(Duration.ofMillis(20)) }
+                }
+            })
+        }
+        channel = ManagedChannelBuilder.forAddress("localhost", port).usePlaintext().build()
+    }
+
+    @AfterTest
+    fun cleanup() {
+        channel?.shutdownNow()?.awaitTermination(5, TimeUnit.SECONDS)
+        server?.stop()
+    }
+
+    private fun greet(traceparent: String? = null): String {
+        val headers = Metadata()
+        traceparent?.let { headers.put(TraceContext.TRACEPARENT, it) }
+        val intercepted = ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers))
+        return GreeterGrpc.newBlockingStub(intercepted).sayHello(HelloRequest.newBuilder().setName("drmaas").build()).message
+    }
+
+    private fun awaitSpans(condition: (List<Span>) -> Boolean): List<Span> {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (!condition(exporter.spans) && System.nanoTime() < deadline) {
+            Thread.sleep(20)
+        }
+        return exporter.spans
+    }
+
+    @Test
+    fun `records call and execution segment spans for sampled calls`() {
+        val (traceId, mdcTraceId, mdcSpanId) = greet().split(" ")
+        assertEquals(32, traceId.length)
+        assertEquals(traceId, mdcTraceId)
+
+        val spans = awaitSpans { spans -> spans.any { it.kind == Span.Kind.SERVER } && spans.any { it.name == "ratpack.blocking" } }
+        val call = spans.single { it.kind == Span.Kind.SERVER }
+        assertEquals("helloworld.Greeter/SayHello", call.name)
+        assertEquals(traceId, call.traceId)
+        assertEquals("OK", call.status)
+
+        val segments = spans.filter { it.kind == Span.Kind.INTERNAL }
+        assertTrue(segments.any { it.name == "ratpack.compute" })
+        assertTrue(segments.all { it.traceId == traceId && it.parentSpanId == call.spanId })
+        // the reply is built in a compute segment, which logs with its own span id
+        assertTrue(segments.any { it.name == "ratpack.compute" && it.spanId == mdcSpanId })
+    }
+
+    @Test
+    fun `continues a sampled incoming trace`() {
+        val (traceId, _) = greet("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01").split(" ")
+        assertEquals("0af7651916cd43dd8448eb211c80319c", traceId)
+
+        val call = awaitSpans { spans -> spans.any { it.kind == Span.Kind.SERVER } }.single { it.kind == Span.Kind.SERVER }
+        assertEquals("0af7651916cd43dd8448eb211c80319c", call.traceId)
+        assertEquals("b7ad6b7169203331", call.parentSpanId)
+    }
+
+    @Test
+    fun `does not trace calls whose parent is not sampled`() {
+        assertEquals("none none none", greet("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-00"))
+        Thread.sleep(100)
+        assertTrue(exporter.spans.isEmpty())
+    }
+
+}